@@ -0,0 +1,33 @@
+/*
+ * algorithms.BenchmarkFiles
+ *
+ * @description: Temporary directories holding the synthetic datasets of the benchmarks.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+public class BenchmarkFiles {
+
+    public static Path createTempDirectory() throws IOException {
+        return Files.createTempDirectory("community-detection-bench");
+    }
+
+    public static void delete(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
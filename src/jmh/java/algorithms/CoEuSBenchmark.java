@@ -0,0 +1,100 @@
+/*
+ * algorithms.CoEuSBenchmark
+ *
+ * @description: Throughput of CoEuS expanding a varying number of seed-sets with varying pruning policies and windows,
+ *               and cost of pruning all the communities once, on a synthetic graph held in memory.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import community.IntSet;
+import community.SortedArrayIntSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CoEuSBenchmark {
+
+    private static final int NUM_SEEDS = 3;
+
+    @Param({"1000000"})
+    public int nEdges;
+
+    @Param({"100", "1000", "5000"})
+    public int nSeedSets;
+
+    @Param({"1000", "10000", "100000"})
+    public int windowSize;
+
+    @Param({"DEFAULT", "EDGE_QUALITY"})
+    public CoEuS.UpdateRule updateRule;
+
+    @Param({"WINDOW", "ADAPTIVE"})
+    public CoEuSConfig.Pruning pruning;
+
+    private SyntheticGraph graph;
+    private List<int[]> seedSets;
+    private int[] communityIds;
+    private CoEuSConfig config;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        graph = SyntheticGraph.plantedPartition(nEdges / 5, nEdges, 20, 0.2, 42);
+
+        // Seed-sets: random nodes from the planted communities
+        Random rand = new Random(42);
+        seedSets = new ArrayList<>(nSeedSets);
+        for (int i = 0; i < nSeedSets; i++) {
+            int[] community = graph.communities.get(i % graph.communities.size());
+            IntSet seedSet = new SortedArrayIntSet(NUM_SEEDS);
+            while (seedSet.size() < NUM_SEEDS) {
+                seedSet.add(community[rand.nextInt(community.length)]);
+            }
+            seedSets.add(seedSet.toArray());
+        }
+        communityIds = IntStream.range(0, nSeedSets).toArray();
+        config = CoEuSConfig.builder().numSeeds(NUM_SEEDS).updateRule(updateRule).pruning(pruning)
+                .windowSize(windowSize).build();
+    }
+
+    @Benchmark
+    public CoEuSState process(EdgeCounter counter) {
+        CoEuSState state = new CoEuSState(seedSets, communityIds, graph.nNodes, config);
+        state.process(graph.edges, graph.nEdges);
+        state.finish();
+        counter.edges += graph.nEdges;
+        return state;
+    }
+
+    /**
+     * Pruning of all the communities after the whole stream was processed without pruning.
+     */
+    @State(Scope.Thread)
+    public static class UnprunedState {
+        CoEuSState state;
+
+        @Setup(Level.Invocation)
+        public void setup(CoEuSBenchmark benchmark) {
+            state = new CoEuSState(benchmark.seedSets, benchmark.communityIds, benchmark.graph.nNodes,
+                    benchmark.config.toBuilder().pruning(CoEuSConfig.Pruning.WINDOW).windowSize(Integer.MAX_VALUE)
+                            .build());
+            state.process(benchmark.graph.edges, benchmark.graph.nEdges);
+        }
+    }
+
+    @Benchmark
+    public CoEuSState pruneAll(UnprunedState unpruned) {
+        unpruned.state.pruneAll();
+        return unpruned.state;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * algorithms.DataValidatorBenchmark
+ *
+ * @description: Throughput of the node ids rescaling of DataValidator on a synthetic SNAP-formatted dataset.
+ *               DataValidator lives in the default package, which cannot be imported (nor host JMH benchmarks), so
+ *               it is invoked through a method handle resolved once per trial.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataValidatorBenchmark {
+
+    @Param({"1000000"})
+    public int nEdges;
+
+    @Param({"1", "4"})
+    public int nThreads;
+
+    private Path tmpDir;
+    private String dir;
+    private int nWrittenEdges;
+    private MethodHandle rescaleNodeIds;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        tmpDir = BenchmarkFiles.createTempDirectory();
+        SyntheticGraph graph = SyntheticGraph.plantedPartition(nEdges / 5, nEdges, 20, 0.2, 42);
+        dir = graph.writeOriginal(tmpDir, "synthetic");
+        nWrittenEdges = graph.nEdges;
+
+        rescaleNodeIds = MethodHandles.publicLookup().findStatic(Class.forName("DataValidator"), "rescaleNodeIds",
+                MethodType.methodType(int[].class, String.class, String.class, String.class, String.class,
+                        int.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.delete(tmpDir);
+    }
+
+    @Benchmark
+    public int[] rescaleNodeIds(EdgeCounter counter) throws Throwable {
+        int[] degrees = (int[]) rescaleNodeIds.invokeExact(dir + "original/synthetic.txt",
+                dir + "synthetic_edges.txt", dir + "original/syntheticGTC.txt", dir + "syntheticGTC.txt", nThreads);
+        counter.edges += nWrittenEdges;
+        return degrees;
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * algorithms.EdgeCounter
+ *
+ * @description: JMH auxiliary counter of the processed edges, reported by the benchmarks as edges/sec next to the
+ *               primary score.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class EdgeCounter {
+
+    public long edges;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        edges = 0;
+    }
+}
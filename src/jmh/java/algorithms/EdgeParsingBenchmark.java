@@ -0,0 +1,89 @@
+/*
+ * algorithms.EdgeParsingBenchmark
+ *
+ * @description: Throughput of reading an edges list: the readLine/split path used by the original readers, the text
+ *               edge source and the memory-mapped binary edge source.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EdgeParsingBenchmark {
+
+    @Param({"1000000"})
+    public int nEdges;
+
+    private Path tmpDir;
+    private String edgesFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        tmpDir = BenchmarkFiles.createTempDirectory();
+        SyntheticGraph graph = SyntheticGraph.plantedPartition(nEdges / 5, nEdges, 20, 0.2, 42);
+        String dir = graph.writeDataset(tmpDir, "synthetic");
+        edgesFile = dir + "synthetic_edges.txt";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.delete(tmpDir);
+    }
+
+    @Benchmark
+    public long readLineSplit(EdgeCounter counter) throws IOException {
+        long checksum = 0;
+        try (BufferedReader br = new BufferedReader(new FileReader(edgesFile))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] nodes = line.split("\\s+");
+                int u = Integer.parseInt(nodes[0]);
+                int v = Integer.parseInt(nodes[1]);
+                checksum += u ^ v;
+                counter.edges++;
+            }
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public long textEdgeSource(EdgeCounter counter) throws IOException {
+        try (EdgeSource edges = new TextEdgeSource(edgesFile)) {
+            return consume(edges, counter);
+        }
+    }
+
+    @Benchmark
+    public long binaryEdgeSource(EdgeCounter counter) throws IOException {
+        try (EdgeSource edges = new BinaryEdgeSource(EdgeSource.binaryFileFor(edgesFile))) {
+            return consume(edges, counter);
+        }
+    }
+
+    private static long consume(EdgeSource edges, EdgeCounter counter) throws IOException {
+        long checksum = 0;
+        int[] batch = new int[2 * EdgeSource.BATCH_SIZE];
+        int n;
+        while ((n = edges.read(batch)) > 0) {
+            for (int e = 0; e < 2 * n; e += 2) {
+                checksum += batch[e] ^ batch[e + 1];
+            }
+            counter.edges += n;
+        }
+        return checksum;
+    }
+}
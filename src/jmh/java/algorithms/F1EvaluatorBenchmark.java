@@ -0,0 +1,59 @@
+/*
+ * algorithms.F1EvaluatorBenchmark
+ *
+ * @description: Cost of the average F1 score evaluation between synthetic detected and ground-truth communities.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class F1EvaluatorBenchmark {
+
+    @Param({"5000"})
+    public int nGtc;
+
+    @Param({"5000", "50000"})
+    public int nDetected;
+
+    @Param({"20"})
+    public int communitySize;
+
+    private List<int[]> gtcCommunities;
+    private List<int[]> detectedCommunities;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        int nNodes = nGtc * communitySize;
+        gtcCommunities = SyntheticGraph.plantedPartition(nNodes, 0, communitySize, 0, 42).communities;
+
+        // Detected communities: ground-truth communities with half of their nodes replaced by random ones
+        SplittableRandom rand = new SplittableRandom(42);
+        detectedCommunities = new ArrayList<>(nDetected);
+        for (int i = 0; i < nDetected; i++) {
+            int[] community = gtcCommunities.get(rand.nextInt(nGtc)).clone();
+            for (int k = 0; k < community.length / 2; k++) {
+                community[rand.nextInt(community.length)] = rand.nextInt(nNodes);
+            }
+            detectedCommunities.add(F1Evaluator.distinct(community));
+        }
+    }
+
+    @Benchmark
+    public double averageF1Score() {
+        return new F1Evaluator(gtcCommunities).averageF1Score(detectedCommunities);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * algorithms.SCoDABenchmark
+ *
+ * @description: Throughput of SCoDA: the edge processing (update rule only, edges in memory) and the whole run
+ *               (shuffle, detection and output) on a synthetic graph.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SCoDABenchmark {
+
+    @Param({"1000000"})
+    public int nEdges;
+
+    @Param({"20"})
+    public int communitySize;
+
+    @Param({"0.2"})
+    public double mixing;
+
+    private Path tmpDir;
+    private SyntheticGraph graph;
+    private SCoDA sCoDA;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        tmpDir = BenchmarkFiles.createTempDirectory();
+        graph = SyntheticGraph.plantedPartition(nEdges / 5, nEdges, communitySize, mixing, 42);
+        String dir = graph.writeDataset(tmpDir, "synthetic");
+        sCoDA = new SCoDA(dir, "synthetic");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.delete(tmpDir);
+    }
+
+    @Benchmark
+    public int[] processEdges(EdgeCounter counter) {
+        int[] degrees = new int[graph.nNodes];
+        int[] communities = new int[graph.nNodes];
+        for (int i = 0; i < graph.nNodes; i++) {
+            communities[i] = i;
+        }
+        sCoDA.processEdges(graph.edges, graph.nEdges, degrees, communities, new SplittableRandom(42));
+        counter.edges += graph.nEdges;
+        return communities;
+    }
+
+    @Benchmark
+    public void run(EdgeCounter counter) {
+        sCoDA.run();
+        counter.edges += graph.nEdges;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * algorithms.SyntheticGraph
+ *
+ * @description: Reproducible synthetic graph with planted communities for the benchmarks, so that they do not depend
+ *               on the SNAP datasets. Nodes are split into disjoint communities of equal size, each edge connects two
+ *               nodes of the same community with probability (1 - mixing), two random nodes otherwise.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class SyntheticGraph {
+
+    public final int nNodes;
+    public final int nEdges;
+    public final int[] edges; // consecutive (u, v) pairs
+    public final List<int[]> communities;
+
+    private SyntheticGraph(int nNodes, int[] edges, List<int[]> communities) {
+        this.nNodes = nNodes;
+        this.nEdges = edges.length / 2;
+        this.edges = edges;
+        this.communities = communities;
+    }
+
+    /**
+     * Generate a planted partition graph.
+     *
+     * @param nNodes        the number of nodes
+     * @param nEdges        the number of edges
+     * @param communitySize the size of each community
+     * @param mixing        the fraction of edges between random nodes
+     * @param seed          the random seed
+     * @return the generated graph
+     */
+    public static SyntheticGraph plantedPartition(int nNodes, int nEdges, int communitySize, double mixing,
+                                                  long seed) {
+        SplittableRandom rand = new SplittableRandom(seed);
+        int nCommunities = Math.max(1, nNodes / communitySize);
+
+        int[] edges = new int[2 * nEdges];
+        for (int e = 0; e < 2 * nEdges; e += 2) {
+            int u;
+            int v;
+            do {
+                if (rand.nextDouble() >= mixing) {
+                    int community = rand.nextInt(nCommunities);
+                    u = community * communitySize + rand.nextInt(communitySize);
+                    v = community * communitySize + rand.nextInt(communitySize);
+                } else {
+                    u = rand.nextInt(nCommunities * communitySize);
+                    v = rand.nextInt(nCommunities * communitySize);
+                }
+            } while (u == v);
+            edges[e] = u;
+            edges[e + 1] = v;
+        }
+
+        List<int[]> communities = new ArrayList<>(nCommunities);
+        for (int c = 0; c < nCommunities; c++) {
+            int[] community = new int[communitySize];
+            for (int i = 0; i < communitySize; i++) {
+                community[i] = c * communitySize + i;
+            }
+            communities.add(community);
+        }
+        return new SyntheticGraph(nCommunities * communitySize, edges, communities);
+    }
+
+    /**
+     * Write the graph as a validated dataset (edges lists, degree distribution and ground-truth communities), as
+     * produced by DataValidator.
+     *
+     * @param parent  the directory where the dataset directory is created
+     * @param dataset the name of the dataset
+     * @return the dataset directory, as expected by the algorithms
+     * @throws IOException if the files cannot be written
+     */
+    public String writeDataset(Path parent, String dataset) throws IOException {
+        Path dir = Files.createDirectories(parent.resolve(dataset));
+        String edgesFile = dir.resolve(dataset + "_edges.txt").toString();
+
+        try (BufferedWriter text = new BufferedWriter(new FileWriter(edgesFile));
+             BinaryEdgeWriter binary = new BinaryEdgeWriter(EdgeSource.binaryFileFor(edgesFile))) {
+            binary.setNodes(nNodes);
+            for (int e = 0; e < 2 * nEdges; e += 2) {
+                text.write(edges[e] + " " + edges[e + 1] + "\n");
+                binary.write(edges[e], edges[e + 1]);
+            }
+        }
+
+        int[] degrees = new int[nNodes];
+        for (int node : edges) {
+            degrees[node]++;
+        }
+        new DegreeDistribution(degrees).write(dir.resolve(dataset + "_degrees.bin").toString());
+
+        writeCommunities(dir.resolve(dataset + "GTC.txt"), 0, 1, " ");
+        return dir + "/";
+    }
+
+    /**
+     * Write the graph as an original SNAP dataset, to be validated: sparse node ids, comment header and tab
+     * separated values.
+     *
+     * @param parent  the directory where the dataset directory is created
+     * @param dataset the name of the dataset
+     * @return the dataset directory
+     * @throws IOException if the files cannot be written
+     */
+    public String writeOriginal(Path parent, String dataset) throws IOException {
+        Path dir = Files.createDirectories(parent.resolve(dataset).resolve("original"));
+        try (BufferedWriter text = new BufferedWriter(new FileWriter(dir.resolve(dataset + ".txt").toFile()))) {
+            text.write("# Synthetic planted partition graph\n# FromNodeId\tToNodeId\n");
+            for (int e = 0; e < 2 * nEdges; e += 2) {
+                text.write(sparseId(edges[e]) + "\t" + sparseId(edges[e + 1]) + "\n");
+            }
+        }
+        writeCommunities(dir.resolve(dataset + "GTC.txt"), 1, 3, "\t");
+        return parent.resolve(dataset) + "/";
+    }
+
+    private void writeCommunities(Path file, int offset, int stride, String separator) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file.toFile()))) {
+            for (int[] community : communities) {
+                StringBuilder sb = new StringBuilder();
+                for (int node : community) {
+                    sb.append(offset + stride * node).append(separator);
+                }
+                writer.write(sb.toString().strip() + "\n");
+            }
+        }
+    }
+
+    private static int sparseId(int node) {
+        return 1 + 3 * node;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * community.CommunityDegreeMapBenchmark
+ *
+ * @description: Micro-benchmark of the community degrees store, comparing CommunityDegreeMap with the
+ *               Map<CommunityNode, Integer> it replaces on the CoEuS access pattern (merge, lookup, removal).
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package community;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CommunityDegreeMapBenchmark {
+
+    private static final int N_OPERATIONS = 1 << 20;
+
+    @Param({"10000", "1000000"})
+    public int nNodes;
+
+    @Param({"100", "5000"})
+    public int nCommunities;
+
+    private int[] nodes;
+    private int[] communities;
+
+    private Map<CommunityNode, Integer> hashMap;
+    private CommunityDegreeMap primitiveMap;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SplittableRandom rand = new SplittableRandom(42);
+        nodes = new int[N_OPERATIONS];
+        communities = new int[N_OPERATIONS];
+        for (int i = 0; i < N_OPERATIONS; i++) {
+            nodes[i] = rand.nextInt(nNodes);
+            communities[i] = rand.nextInt(nCommunities);
+        }
+
+        hashMap = new HashMap<>();
+        primitiveMap = new CommunityDegreeMap();
+        for (int i = 0; i < N_OPERATIONS; i++) {
+            hashMap.merge(new CommunityNode(nodes[i], communities[i]), 1, Integer::sum);
+            primitiveMap.merge(nodes[i], communities[i], 1);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_OPERATIONS)
+    public Map<CommunityNode, Integer> mergeHashMap() {
+        Map<CommunityNode, Integer> map = new HashMap<>();
+        for (int i = 0; i < N_OPERATIONS; i++) {
+            map.merge(new CommunityNode(nodes[i], communities[i]), 1, Integer::sum);
+        }
+        return map;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_OPERATIONS)
+    public CommunityDegreeMap mergeCommunityDegreeMap() {
+        CommunityDegreeMap map = new CommunityDegreeMap();
+        for (int i = 0; i < N_OPERATIONS; i++) {
+            map.merge(nodes[i], communities[i], 1);
+        }
+        return map;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_OPERATIONS)
+    public void getHashMap(Blackhole bh) {
+        for (int i = 0; i < N_OPERATIONS; i++) {
+            bh.consume(hashMap.get(new CommunityNode(nodes[i], communities[i])));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_OPERATIONS)
+    public void getCommunityDegreeMap(Blackhole bh) {
+        for (int i = 0; i < N_OPERATIONS; i++) {
+            bh.consume(primitiveMap.get(nodes[i], communities[i], 0));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_OPERATIONS)
+    public int mergeRemoveHashMap() {
+        Map<CommunityNode, Integer> map = new HashMap<>();
+        for (int i = 0; i < N_OPERATIONS; i++) {
+            map.merge(new CommunityNode(nodes[i], communities[i]), 1, Integer::sum);
+            if ((i & 3) == 3) {
+                map.remove(new CommunityNode(nodes[i - 1], communities[i - 1]));
+            }
+        }
+        return map.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_OPERATIONS)
+    public int mergeRemoveCommunityDegreeMap() {
+        CommunityDegreeMap map = new CommunityDegreeMap();
+        for (int i = 0; i < N_OPERATIONS; i++) {
+            map.merge(nodes[i], communities[i], 1);
+            if ((i & 3) == 3) {
+                map.remove(nodes[i - 1], communities[i - 1]);
+            }
+        }
+        return map.size();
+    }
+}
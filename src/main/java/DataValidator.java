@@ -3,80 +3,140 @@
  *
  * @description: Class for validating SNAP datasets, from the graph file an edges list file is generated, then the
  *               node ids are rescaled both in the edge file and the ground-truth communities file to account for
- *               missing node ids in the original dataset. Finally, small communities (<3) are filtered.
+ *               missing node ids in the original dataset. Finally, small communities (<3) are filtered. The
+ *               rescaled edges are also stored in a compact binary file, streamed by the algorithms, and the
+ *               degree distribution of the graph is cached as well, together with its adjacency (CSR) index. A
+ *               manifest of the original files and outputs allows later runs to skip the validation.
  *
  * @author: matteo.pinna@hotmail.com
  */
 
+import algorithms.DegreeDistribution;
+import algorithms.EdgeListRescaler;
+import algorithms.EdgeSource;
+import algorithms.Graph;
+import algorithms.IntLineReader;
+import algorithms.ValidationManifest;
+
 import java.io.*;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 
 public class DataValidator {
 
 
     /**
-     * Validate a dataset: generate edges file from entire graph file, and rescale node ids.
+     * Validate a dataset: generate edges file from entire graph file, rescale node ids and store the degree
+     * distribution. Validation is skipped when the manifest of a previous validation still matches the original
+     * files and the outputs.
      *
      * @param dir     the directory of the dataset
      * @param dataset the name of the dataset
      */
     public static void validate(String dir, String dataset) {
-        System.out.println("[INFO]: validating dataset");
-
         String edgesFileToValidate = String.format("%s/original/%s.txt", dir, dataset);
         String gtcFileToValidate = String.format("%s/original/%sGTC.txt", dir, dataset);
 
         String edgesFileValidated = String.format("%s/%s_edges.txt", dir, dataset);
         String gtcFileValidated = String.format("%s/%sGTC.txt", dir, dataset);
+        String degreesFile = String.format("%s/%s_degrees.bin", dir, dataset);
+        String graphFile = String.format("%s/%s_graph.bin", dir, dataset);
+        String manifestFile = ValidationManifest.fileFor(dir, dataset);
+
+        ValidationManifest manifest = null;
+        try {
+            manifest = ValidationManifest.forSources(dir, edgesFileToValidate, gtcFileToValidate);
+            ValidationManifest previous = ValidationManifest.readIfValid(manifestFile);
+            if (previous != null && previous.isUpToDate(manifest)) {
+                System.out.println("[INFO]: dataset already validated, skipping validation");
+                return;
+            }
+            // Invalidate the previous outputs until the new ones are complete
+            Files.deleteIfExists(Paths.get(manifestFile));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        System.out.println("[INFO]: validating dataset");
 
         // Rescale node ids
-        rescaleNodeIds(edgesFileToValidate, edgesFileValidated, gtcFileToValidate, gtcFileValidated);
+        int[] degrees = rescaleNodeIds(edgesFileToValidate, edgesFileValidated, gtcFileToValidate, gtcFileValidated);
+        // Store the degree distribution
+        try {
+            new DegreeDistribution(degrees).write(degreesFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        // Build the adjacency (CSR) index, with a single pass over the rescaled edges
+        try {
+            Graph.build(edgesFileValidated, degrees, graphFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
         // Remove small communities (< 3)
         removeSmallCommunities(gtcFileValidated);
 
+        // Store the manifest, once all the outputs are written
+        if (manifest != null) {
+            long degreeSum = 0;
+            for (int degree : degrees) {
+                degreeSum += degree;
+            }
+            try {
+                manifest.setGraph(degrees.length, degreeSum / 2);
+                manifest.putOutput(ValidationManifest.EDGES, edgesFileValidated);
+                manifest.putOutput(ValidationManifest.BINARY_EDGES, EdgeSource.binaryFileFor(edgesFileValidated));
+                manifest.putOutput(ValidationManifest.GTC, gtcFileValidated);
+                manifest.putOutput(ValidationManifest.DEGREES, degreesFile);
+                manifest.putOutput(ValidationManifest.GRAPH, graphFile);
+                manifest.write(manifestFile);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
         System.out.println("[INFO]: finished validating dataset");
     }
 
     /**
-     * Rescale node ids in the list of edges.
+     * Rescale node ids in the list of edges, writing both the text and the binary edges files, on all the available
+     * processors.
      *
      * @param infileEdges  edges file to rescale
      * @param outfileEdges rescaled edges file
      * @param infileGtc    gtc file to rescale
      * @param outfileGtc   rescaled gtc file
+     * @return the degree of each (rescaled) node
      */
-    public static void rescaleNodeIds(String infileEdges, String outfileEdges, String infileGtc, String outfileGtc) {
-        Map<Integer, Integer> oldToNewIds = new HashMap<>();
-
-        int newId = 0;
-        // Process and rescale node ids for each edge
-        try (BufferedReader inf = new BufferedReader(new FileReader(infileEdges));
-             BufferedWriter outf = new BufferedWriter(new FileWriter(outfileEdges))) {
-            String line;
-            while ((line = inf.readLine()) != null) {
-                if (!line.matches("^\\d+\\s+\\d+$")) continue;
+    public static int[] rescaleNodeIds(String infileEdges, String outfileEdges, String infileGtc, String outfileGtc) {
+        return rescaleNodeIds(infileEdges, outfileEdges, infileGtc, outfileGtc,
+                Runtime.getRuntime().availableProcessors());
+    }
 
-                String[] parts = line.strip().split("\\s+");
-                int u = Integer.parseInt(parts[0]);
-                int v = Integer.parseInt(parts[1]);
-                if (!oldToNewIds.containsKey(u)) {
-                    oldToNewIds.put(u, newId);
-                    newId++;
-                }
-                if (!oldToNewIds.containsKey(v)) {
-                    oldToNewIds.put(v, newId);
-                    newId++;
-                }
-                outf.write(oldToNewIds.get(u) + " " + oldToNewIds.get(v) + "\n");
-            }
+    /**
+     * Rescale node ids in the list of edges, writing both the text and the binary edges files. New ids are assigned
+     * in order of first appearance in the edges file, regardless of the number of threads.
+     *
+     * @param infileEdges  edges file to rescale
+     * @param outfileEdges rescaled edges file
+     * @param infileGtc    gtc file to rescale
+     * @param outfileGtc   rescaled gtc file
+     * @param nThreads     the number of threads parsing the files
+     * @return the degree of each (rescaled) node
+     */
+    public static int[] rescaleNodeIds(String infileEdges, String outfileEdges, String infileGtc, String outfileGtc,
+                                       int nThreads) {
+        EdgeListRescaler rescaler = new EdgeListRescaler(nThreads);
+        try {
+            rescaler.rescaleEdges(infileEdges, outfileEdges);
         } catch (IOException e) {
             e.printStackTrace();
+            return new int[0];
         }
         // Rescale the gtc communities
-        rescaleCommunities(oldToNewIds, infileGtc, outfileGtc);
+        rescaleCommunities(rescaler, infileGtc, outfileGtc);
+        return rescaler.getDegrees();
     }
 
     /**
@@ -85,21 +145,27 @@ public class DataValidator {
      * @param file the communities file to filter
      */
     public static void removeSmallCommunities(String file) {
-        List<String> filteredCommunities = new ArrayList<>();
-        try (BufferedReader f = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = f.readLine()) != null) {
-                if (line.split("\\s+").length >= 3) {
-                    filteredCommunities.add(line);
+        String filteredFile = file + ".tmp";
+        try (IntLineReader reader = new IntLineReader(file);
+             BufferedWriter f = new BufferedWriter(new FileWriter(filteredFile))) {
+            StringBuilder sb = new StringBuilder();
+            int n;
+            while ((n = reader.readLine()) >= 0) {
+                if (n >= 3) {
+                    int[] nodes = reader.getValues();
+                    sb.setLength(0);
+                    for (int i = 0; i < n; i++) {
+                        sb.append(nodes[i]).append(i < n - 1 ? ' ' : '\n');
+                    }
+                    f.append(sb);
                 }
             }
         } catch (IOException e) {
             e.printStackTrace();
+            return;
         }
-        try (BufferedWriter f = new BufferedWriter(new FileWriter(file))) {
-            for (String c : filteredCommunities) {
-                f.write(c + "\n");
-            }
+        try {
+            Files.move(Paths.get(filteredFile), Paths.get(file), StandardCopyOption.REPLACE_EXISTING);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -108,28 +174,13 @@ public class DataValidator {
     /**
      * Rescale node ids in the communities file.
      *
-     * @param dictionary the dictionary containing the mapping between new node ids and old ones.
-     * @param infile     communities file to rescale
-     * @param outfile    rescaled communities file
+     * @param rescaler the rescaler holding the mapping between old node ids and new ones
+     * @param infile   communities file to rescale
+     * @param outfile  rescaled communities file
      */
-
-    public static void rescaleCommunities(Map<Integer, Integer> dictionary, String infile, String outfile) {
-        try (BufferedReader inf = new BufferedReader(new FileReader(infile));
-             BufferedWriter outf = new BufferedWriter(new FileWriter(outfile))) {
-            String line;
-            while ((line = inf.readLine()) != null) {
-                String[] parts = line.strip().split("\\s+");
-                StringBuilder sb = new StringBuilder();
-                for (String part : parts) {
-                    try {
-                        int node = Integer.parseInt(part);
-                        sb.append(dictionary.get(node)).append(" ");
-                    } catch (NumberFormatException e) {
-                        //do nothing
-                    }
-                }
-                outf.write(sb.toString().trim() + "\n");
-            }
+    public static void rescaleCommunities(EdgeListRescaler rescaler, String infile, String outfile) {
+        try {
+            rescaler.rescaleCommunities(infile, outfile);
         } catch (IOException e) {
             e.printStackTrace();
         }
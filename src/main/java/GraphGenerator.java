@@ -0,0 +1,276 @@
+/*
+ * GraphGenerator
+ *
+ * @description: Generator of synthetic SNAP-formatted datasets with planted overlapping ground-truth communities, to
+ *               be validated and processed as the bundled ones. Community sizes follow a power-law (as in LFR), each
+ *               node belongs to at least one community and a fraction of them to a second one. Each edge connects
+ *               two members of the same community with probability (1 - mixing), two random nodes otherwise
+ *               (stochastic block model). Edges are sampled and written one at a time, so that the number of edges
+ *               is only bounded by the disk (10^9 edges are ~20 GB of text).
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class GraphGenerator {
+
+    private final int nNodes;
+    private final long nEdges;
+    private final double mixing;
+    private final double overlap;
+    private final int minCommunitySize;
+    private final int maxCommunitySize;
+    private final double communitySizeExponent;
+    private final long seed;
+
+    private int[][] communities;
+    private long[] cumulativeSizes; // cumulativeSizes[c] = sum of the sizes of communities [0, c]
+    private long[] hasEdges; // bitset of the nodes appearing in at least one edge
+
+    /**
+     * @param nNodes                the number of nodes
+     * @param nEdges                the number of edges
+     * @param mixing                the fraction of edges between random nodes
+     * @param overlap               the fraction of nodes belonging to a second community
+     * @param minCommunitySize      the minimum size of a community
+     * @param maxCommunitySize      the maximum size of a community
+     * @param communitySizeExponent the exponent of the power-law distribution of the community sizes
+     * @param seed                  the random seed
+     */
+    public GraphGenerator(int nNodes, long nEdges, double mixing, double overlap, int minCommunitySize,
+                          int maxCommunitySize, double communitySizeExponent, long seed) {
+        if (nNodes < 2 || nEdges < 0) {
+            throw new IllegalArgumentException("At least 2 nodes and a non-negative number of edges are required");
+        }
+        if (mixing < 0 || mixing > 1 || overlap < 0 || overlap > 1) {
+            throw new IllegalArgumentException("Mixing and overlap must be in [0, 1]");
+        }
+        if (minCommunitySize < 3 || maxCommunitySize < minCommunitySize || maxCommunitySize > nNodes) {
+            throw new IllegalArgumentException("Community sizes must satisfy 3 <= min <= max <= # nodes");
+        }
+        this.nNodes = nNodes;
+        this.nEdges = nEdges;
+        this.mixing = mixing;
+        this.overlap = overlap;
+        this.minCommunitySize = minCommunitySize;
+        this.maxCommunitySize = maxCommunitySize;
+        this.communitySizeExponent = communitySizeExponent;
+        this.seed = seed;
+    }
+
+    /**
+     * Generate a dataset in the layout expected by Main and DataValidator, i.e. <dir>/<dataset>/original/
+     * <dataset>.txt and <dataset>GTC.txt.
+     *
+     * @param dir     the directory where datasets are contained
+     * @param dataset the name of the dataset
+     * @throws IOException if the files cannot be written
+     */
+    public void generate(String dir, String dataset) throws IOException {
+        String originalDir = String.format("%s%s/original/", dir, dataset);
+        new File(originalDir).mkdirs();
+
+        SplittableRandom rand = new SplittableRandom(seed);
+        System.out.println("[INFO]: planting communities");
+        plantCommunities(rand);
+        System.out.println("[INFO]: planted " + communities.length + " communities");
+
+        System.out.println("[INFO]: writing " + nEdges + " edges");
+        writeEdges(String.format("%s%s.txt", originalDir, dataset), rand);
+        writeCommunities(String.format("%s%sGTC.txt", originalDir, dataset));
+        System.out.println("[INFO]: finished generating dataset");
+    }
+
+    /**
+     * Split a random permutation of the nodes into communities of power-law distributed sizes, then add a fraction of
+     * the nodes to a second, random, community.
+     *
+     * @param rand the random generator
+     */
+    private void plantCommunities(SplittableRandom rand) {
+        int[] nodes = new int[nNodes];
+        for (int i = 0; i < nNodes; i++) {
+            nodes[i] = i;
+        }
+        for (int i = nNodes - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            int tmp = nodes[i];
+            nodes[i] = nodes[j];
+            nodes[j] = tmp;
+        }
+
+        // Disjoint communities covering all the nodes, the last one takes the remainder
+        int[] sizes = new int[16];
+        int nCommunities = 0;
+        for (int assigned = 0; assigned < nNodes; ) {
+            int size = Math.min(communitySize(rand), nNodes - assigned);
+            if (nNodes - assigned - size < minCommunitySize) {
+                size = nNodes - assigned;
+            }
+            if (nCommunities == sizes.length) {
+                sizes = Arrays.copyOf(sizes, nCommunities << 1);
+            }
+            sizes[nCommunities++] = size;
+            assigned += size;
+        }
+
+        // Nodes belonging to a second community
+        int nOverlapping = (int) (overlap * nNodes);
+        int[] extraSizes = new int[nCommunities];
+        int[] extraCommunity = new int[nOverlapping];
+        for (int i = 0; i < nOverlapping; i++) {
+            extraCommunity[i] = rand.nextInt(nCommunities);
+            extraSizes[extraCommunity[i]]++;
+        }
+
+        communities = new int[nCommunities][];
+        int offset = 0;
+        for (int c = 0; c < nCommunities; c++) {
+            communities[c] = Arrays.copyOfRange(nodes, offset, offset + sizes[c] + extraSizes[c]);
+            Arrays.sort(communities[c], 0, sizes[c]);
+            offset += sizes[c];
+            extraSizes[c] = sizes[c];
+        }
+        for (int i = 0; i < nOverlapping; i++) {
+            int c = extraCommunity[i];
+            int node;
+            do {
+                node = nodes[rand.nextInt(nNodes)];
+            } while (Arrays.binarySearch(communities[c], 0, sizes[c], node) >= 0 && sizes[c] < nNodes);
+            communities[c][extraSizes[c]++] = node;
+        }
+        for (int c = 0; c < nCommunities; c++) {
+            communities[c] = Arrays.stream(communities[c]).sorted().distinct().toArray();
+        }
+
+        cumulativeSizes = new long[nCommunities];
+        long sum = 0;
+        for (int c = 0; c < nCommunities; c++) {
+            sum += communities[c].length;
+            cumulativeSizes[c] = sum;
+        }
+    }
+
+    /**
+     * Sample a community size from a power-law distribution in [minCommunitySize, maxCommunitySize], by inverse
+     * transform sampling.
+     *
+     * @param rand the random generator
+     * @return the community size
+     */
+    private int communitySize(SplittableRandom rand) {
+        if (communitySizeExponent == 1) {
+            double ratio = (double) maxCommunitySize / minCommunitySize;
+            return (int) Math.min(maxCommunitySize, minCommunitySize * Math.pow(ratio, rand.nextDouble()));
+        }
+        double e = 1 - communitySizeExponent;
+        double lo = Math.pow(minCommunitySize, e);
+        double hi = Math.pow(maxCommunitySize + 1, e);
+        int size = (int) Math.pow(lo + (hi - lo) * rand.nextDouble(), 1 / e);
+        return Math.max(minCommunitySize, Math.min(maxCommunitySize, size));
+    }
+
+    /**
+     * Sample and write the edges, tab separated as in SNAP. Intra-community edges pick the community proportionally
+     * to its size, so that every node has the same expected degree. Self-loops are discarded, multi-edges are not.
+     *
+     * @param file the edges file
+     * @param rand the random generator
+     * @throws IOException if the file cannot be written
+     */
+    private void writeEdges(String file, SplittableRandom rand) throws IOException {
+        hasEdges = new long[(nNodes + 63) >>> 6];
+        long totalSize = cumulativeSizes[cumulativeSizes.length - 1];
+        long logStep = Math.max(1, nEdges / 10);
+
+        try (BufferedWriter f = new BufferedWriter(new FileWriter(file), 1 << 16)) {
+            f.write("# Synthetic graph with planted overlapping communities\n");
+            f.write(String.format("# Nodes: %d Edges: %d Mixing: %s Overlap: %s Seed: %d\n",
+                    nNodes, nEdges, mixing, overlap, seed));
+            f.write("# FromNodeId\tToNodeId\n");
+
+            for (long e = 0; e < nEdges; e++) {
+                int u;
+                int v;
+                if (rand.nextDouble() >= mixing) {
+                    int c = Arrays.binarySearch(cumulativeSizes, rand.nextLong(totalSize) + 1);
+                    int[] community = communities[c >= 0 ? c : -c - 1];
+                    u = community[rand.nextInt(community.length)];
+                    do {
+                        v = community[rand.nextInt(community.length)];
+                    } while (u == v);
+                } else {
+                    u = rand.nextInt(nNodes);
+                    do {
+                        v = rand.nextInt(nNodes);
+                    } while (u == v);
+                }
+                hasEdges[u >>> 6] |= 1L << u;
+                hasEdges[v >>> 6] |= 1L << v;
+
+                f.write(Integer.toString(u));
+                f.write('\t');
+                f.write(Integer.toString(v));
+                f.write('\n');
+
+                if ((e + 1) % logStep == 0) {
+                    System.out.println("[INFO]: written " + (e + 1) + " edges");
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the ground-truth communities, one per line and tab separated as in SNAP. Nodes without edges are left
+     * out, as they would not be known to DataValidator.
+     *
+     * @param file the communities file
+     * @throws IOException if the file cannot be written
+     */
+    private void writeCommunities(String file) throws IOException {
+        try (BufferedWriter f = new BufferedWriter(new FileWriter(file), 1 << 16)) {
+            for (int[] community : communities) {
+                StringBuilder sb = new StringBuilder();
+                for (int node : community) {
+                    if ((hasEdges[node >>> 6] & (1L << node)) != 0) {
+                        sb.append(node).append('\t');
+                    }
+                }
+                if (!sb.isEmpty()) {
+                    sb.setLength(sb.length() - 1);
+                    f.write(sb.append('\n').toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * @param args <dataset> <# nodes> <# edges> [mixing] [overlap] [min size] [max size] [size exponent] [seed]
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.out.println("[USAGE]: GraphGenerator <dataset> <# nodes> <# edges> [mixing=0.2] [overlap=0.1] " +
+                    "[min community size=10] [max community size=100] [community size exponent=2] [seed=42]");
+            return;
+        }
+        String dataset = args[0];
+        int nNodes = Integer.parseInt(args[1]);
+        long nEdges = Long.parseLong(args[2]);
+        double mixing = args.length > 3 ? Double.parseDouble(args[3]) : 0.2;
+        double overlap = args.length > 4 ? Double.parseDouble(args[4]) : 0.1;
+        int minSize = args.length > 5 ? Integer.parseInt(args[5]) : 10;
+        int maxSize = args.length > 6 ? Integer.parseInt(args[6]) : 100;
+        double exponent = args.length > 7 ? Double.parseDouble(args[7]) : 2;
+        long seed = args.length > 8 ? Long.parseLong(args[8]) : 42;
+
+        try {
+            new GraphGenerator(nNodes, nEdges, mixing, overlap, minSize, maxSize, exponent, seed)
+                    .generate("./src/data/", dataset);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -3,10 +3,12 @@
  */
 
 import algorithms.CoEuS;
+import algorithms.CoEuSConfig;
 import algorithms.SCoDA;
 
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.Scanner;
 
 
@@ -29,15 +31,12 @@ public class Main {
         sCoDA.run();
         sCoDA.evaluate();
 
-        // CoEuS: default update rule
+        // CoEuS: default and edge quality update rules, over a single pass of the edges
         CoEuS coEuS = new CoEuS(dir, dataset, CoEuS.UpdateRule.DEFAULT);
-        coEuS.run();
-        coEuS.evaluate();
-
-        // CoEuS: edge quality update rule
-        //coEuS.setUpdateRule(CoEuS.UpdateRule.EDGE_QUALITY);
-        //coEuS.run();
-        //coEuS.evaluate();
+        List<CoEuSConfig> configs = List.of(CoEuSConfig.builder().updateRule(CoEuS.UpdateRule.DEFAULT).build(),
+                CoEuSConfig.builder().updateRule(CoEuS.UpdateRule.EDGE_QUALITY).build());
+        coEuS.run(configs);
+        coEuS.evaluate(configs);
     }
 
     /**
@@ -0,0 +1,151 @@
+/*
+ * algorithms.BinaryEdgeSource
+ *
+ * @description: Edge source streaming a binary edges file through memory-mapped windows. The file consists of a
+ *               fixed header (magic, version, # nodes, # edges) followed by the edges as little-endian int pairs.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class BinaryEdgeSource extends EdgeSource {
+
+    public static final int MAGIC = 0x45444745; // "EDGE"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 24; // magic, version, # nodes, padding, # edges
+    public static final int EDGE_SIZE = 2 * Integer.BYTES;
+    public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    // size of each mapped window, a multiple of the edge size
+    private static final long WINDOW_SIZE = (1L << 30);
+
+    private final FileChannel channel;
+    private final int nNodes;
+    private final long nEdges;
+    private final long end; // end of the edges to read (bytes)
+
+    private long position; // start of the current window (bytes)
+    private IntBuffer window;
+
+    public BinaryEdgeSource(String file) throws IOException {
+        this(file, 0, -1);
+    }
+
+    /**
+     * Open a binary edges file, restricted to a range of edges.
+     *
+     * @param file      the binary edges file
+     * @param fromEdge  the first edge to read
+     * @param toEdge    the edge after the last one to read, -1 for the end of the file
+     * @throws IOException if the file cannot be opened or is not a valid edges file
+     */
+    public BinaryEdgeSource(String file, long fromEdge, long toEdge) throws IOException {
+        this.channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+
+        long[] header = readHeader(channel);
+        this.nNodes = (int) header[0];
+        this.nEdges = header[1];
+        if (toEdge < 0 || toEdge > nEdges) {
+            toEdge = nEdges;
+        }
+        this.position = HEADER_SIZE + Math.min(fromEdge, toEdge) * EDGE_SIZE;
+        this.end = HEADER_SIZE + toEdge * EDGE_SIZE;
+        this.window = IntBuffer.allocate(0);
+    }
+
+    /**
+     * Check that a file exists and is a binary edges file of the current version.
+     *
+     * @param file the file to check
+     * @return true if the file can be opened as a binary edge source
+     */
+    public static boolean isValid(String file) {
+        Path path = Paths.get(file);
+        if (!Files.isRegularFile(path)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            readHeader(channel);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Read and check the header of a binary edges file.
+     *
+     * @param channel the channel of the file
+     * @return number of nodes and number of edges
+     * @throws IOException if the header is missing or invalid
+     */
+    static long[] readHeader(FileChannel channel) throws IOException {
+        if (channel.size() < HEADER_SIZE) {
+            throw new IOException("invalid binary edges file: missing header");
+        }
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        header.order(BYTE_ORDER);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("invalid binary edges file: unknown format");
+        }
+        int nNodes = header.getInt(8);
+        long nEdges = header.getLong(16);
+        if (channel.size() != HEADER_SIZE + nEdges * EDGE_SIZE) {
+            throw new IOException("invalid binary edges file: truncated");
+        }
+        return new long[]{nNodes, nEdges};
+    }
+
+    @Override
+    public int read(int[] batch) throws IOException {
+        if (!window.hasRemaining()) {
+            if (position >= end) {
+                return 0;
+            }
+            long size = Math.min(WINDOW_SIZE, end - position);
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            mapped.order(BYTE_ORDER);
+            window = mapped.asIntBuffer();
+            position += size;
+        }
+        int n = Math.min(batch.length & ~1, window.remaining());
+        window.get(batch, 0, n);
+        return n / 2;
+    }
+
+    @Override
+    public long skip(long nEdges) {
+        // Skip within the current window, then move the start of the next one
+        long inWindow = Math.min(window.remaining() / 2, nEdges);
+        window.position(window.position() + (int) (2 * inWindow));
+        long after = Math.min(nEdges - inWindow, (end - position) / EDGE_SIZE);
+        position += after * EDGE_SIZE;
+        return inWindow + after;
+    }
+
+    @Override
+    public int getNodes() {
+        return nNodes;
+    }
+
+    @Override
+    public long getEdges() {
+        return nEdges;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * algorithms.BinaryEdgeWriter
+ *
+ * @description: Writer for the binary edges file format read by BinaryEdgeSource. The header is written once all the
+ *               edges are known, when the writer is closed.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class BinaryEdgeWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private int nNodes = 0; // highest node id + 1, unless set explicitly
+    private long nEdges = 0;
+
+    public BinaryEdgeWriter(String file) throws IOException {
+        this.channel = FileChannel.open(Paths.get(file), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(BinaryEdgeSource.BYTE_ORDER);
+        // Reserve space for the header
+        channel.position(BinaryEdgeSource.HEADER_SIZE);
+    }
+
+    /**
+     * Append an edge to the file.
+     *
+     * @param u node 1
+     * @param v node 2
+     * @throws IOException if the file cannot be written
+     */
+    public void write(int u, int v) throws IOException {
+        if (buffer.remaining() < BinaryEdgeSource.EDGE_SIZE) {
+            flush();
+        }
+        buffer.putInt(u).putInt(v);
+        nNodes = Math.max(nNodes, Math.max(u, v) + 1);
+        nEdges++;
+    }
+
+    /**
+     * Append a batch of edges, stored as consecutive (u, v) pairs, to the file.
+     *
+     * @param batch  the batch of edges
+     * @param nEdges the number of edges in the batch
+     * @throws IOException if the file cannot be written
+     */
+    public void write(int[] batch, int nEdges) throws IOException {
+        for (int e = 0; e < 2 * nEdges; e += 2) {
+            write(batch[e], batch[e + 1]);
+        }
+    }
+
+    /**
+     * Override the number of nodes stored in the header.
+     *
+     * @param nNodes the number of nodes of the graph
+     */
+    public void setNodes(int nNodes) {
+        this.nNodes = nNodes;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+
+            ByteBuffer header = ByteBuffer.allocate(BinaryEdgeSource.HEADER_SIZE).order(BinaryEdgeSource.BYTE_ORDER);
+            header.putInt(BinaryEdgeSource.MAGIC)
+                    .putInt(BinaryEdgeSource.VERSION)
+                    .putInt(nNodes)
+                    .putInt(0)
+                    .putLong(nEdges)
+                    .flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * algorithms.CheckpointFile
+ *
+ * @description: Binary file holding the state of an algorithm at some position of the edge stream, so that a run can
+ *               resume from it. After a header (magic, version and a key identifying the run) the content is a
+ *               sequence of ints, longs, strings and length-prefixed primitive arrays, written in bulk through a
+ *               FileChannel. A checkpoint is written to a temporary file and atomically moved in place once committed,
+ *               so that the file is either the previous checkpoint or the new one; a checkpoint closed without being
+ *               committed, e.g. because writing its content failed, is discarded.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+public class CheckpointFile {
+
+    public static final int MAGIC = 0x434B5054; // "CKPT"
+    public static final int VERSION = 2;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private CheckpointFile() {
+    }
+
+    /**
+     * Start writing a checkpoint.
+     *
+     * @param file the checkpoint file
+     * @param key  the key identifying the run, checked when resuming
+     * @return the writer, committing it moves the checkpoint in place
+     * @throws IOException if the file cannot be written
+     */
+    public static Writer create(String file, String key) throws IOException {
+        Writer writer = new Writer(Paths.get(file));
+        writer.writeInt(MAGIC);
+        writer.writeInt(VERSION);
+        writer.writeString(key);
+        return writer;
+    }
+
+    /**
+     * Open a checkpoint if it exists and was written by a run with the same key.
+     *
+     * @param file the checkpoint file
+     * @param key  the key identifying the run
+     * @return the reader positioned after the header, null if no valid checkpoint is available
+     */
+    public static Reader openIfValid(String file, String key) {
+        Path path = Paths.get(file);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        Reader reader = null;
+        try {
+            reader = new Reader(path);
+            if (reader.readInt() == MAGIC && reader.readInt() == VERSION && key.equals(reader.readString())) {
+                return reader;
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not a checkpoint of this run
+        }
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                System.err.println("[ERROR]: " + e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Content of a checkpoint.
+     */
+    @FunctionalInterface
+    public interface Content {
+        void write(Writer writer) throws IOException;
+    }
+
+    public static class Writer implements Closeable {
+        private final Path file;
+        private final Path tmpFile;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private boolean committed = false;
+
+        private Writer(Path file) throws IOException {
+            this.file = file;
+            this.tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+            this.channel = FileChannel.open(tmpFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        public void writeInt(int value) throws IOException {
+            ensureRemaining(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        public void writeLong(long value) throws IOException {
+            ensureRemaining(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        public void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            ensureRemaining(bytes.length);
+            buffer.put(bytes);
+        }
+
+        /**
+         * Write the first values of an array, preceded by their number.
+         */
+        public void writeInts(int[] values, int n) throws IOException {
+            writeInt(n);
+            for (int from = 0; from < n; ) {
+                ensureRemaining(Integer.BYTES);
+                int count = Math.min(n - from, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().put(values, from, count);
+                buffer.position(buffer.position() + count * Integer.BYTES);
+                from += count;
+            }
+        }
+
+        /**
+         * Write the first values of an array, preceded by their number.
+         */
+        public void writeLongs(long[] values, int n) throws IOException {
+            writeInt(n);
+            for (int from = 0; from < n; ) {
+                ensureRemaining(Long.BYTES);
+                int count = Math.min(n - from, buffer.remaining() / Long.BYTES);
+                buffer.asLongBuffer().put(values, from, count);
+                buffer.position(buffer.position() + count * Long.BYTES);
+                from += count;
+            }
+        }
+
+        private void ensureRemaining(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        /**
+         * Flush the checkpoint to disk and move it in place of the previous one, once its content is entirely written.
+         */
+        public void commit() throws IOException {
+            try (channel) {
+                flush();
+                channel.force(true);
+            }
+            Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        /**
+         * Discard the checkpoint if it was not committed, leaving the previous one in place.
+         */
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                channel.close();
+                Files.deleteIfExists(tmpFile);
+            }
+        }
+    }
+
+    public static class Reader implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        private Reader(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            buffer.limit(0);
+        }
+
+        public int readInt() throws IOException {
+            ensureAvailable(Integer.BYTES);
+            return buffer.getInt();
+        }
+
+        public long readLong() throws IOException {
+            ensureAvailable(Long.BYTES);
+            return buffer.getLong();
+        }
+
+        public String readString() throws IOException {
+            int length = readLength();
+            byte[] bytes = new byte[length];
+            for (int from = 0; from < length; ) {
+                ensureAvailable(1);
+                int count = Math.min(length - from, buffer.remaining());
+                buffer.get(bytes, from, count);
+                from += count;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Read an array written with writeInts.
+         */
+        public int[] readInts() throws IOException {
+            int[] values = new int[readLength()];
+            for (int from = 0; from < values.length; ) {
+                ensureAvailable(Integer.BYTES);
+                int count = Math.min(values.length - from, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().get(values, from, count);
+                buffer.position(buffer.position() + count * Integer.BYTES);
+                from += count;
+            }
+            return values;
+        }
+
+        /**
+         * Read an array written with writeLongs.
+         */
+        public long[] readLongs() throws IOException {
+            long[] values = new long[readLength()];
+            for (int from = 0; from < values.length; ) {
+                ensureAvailable(Long.BYTES);
+                int count = Math.min(values.length - from, buffer.remaining() / Long.BYTES);
+                buffer.asLongBuffer().get(values, from, count);
+                buffer.position(buffer.position() + count * Long.BYTES);
+                from += count;
+            }
+            return values;
+        }
+
+        private int readLength() throws IOException {
+            int length = readInt();
+            if (length < 0 || length > channel.size()) {
+                throw new IOException("invalid checkpoint: corrupted length");
+            }
+            return length;
+        }
+
+        private void ensureAvailable(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("invalid checkpoint: truncated");
+                }
+            }
+            buffer.flip();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
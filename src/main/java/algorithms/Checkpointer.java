@@ -0,0 +1,109 @@
+/*
+ * algorithms.Checkpointer
+ *
+ * @description: Writer of the periodic checkpoints of a run, on a background thread. The algorithm hands over a copy
+ *               of its state, taken between two edges, and keeps processing the stream while the copy is written. A
+ *               checkpoint due while the previous one is still being written is skipped, so that the algorithm never
+ *               waits for the disk.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class Checkpointer implements Closeable {
+
+    private final String file;
+    private final String key;
+    private final long interval;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor();
+    private long lastPosition = 0; // position of the last checkpoint (edges)
+    private Future<?> pending = null;
+
+    /**
+     * @param file     the checkpoint file
+     * @param key      the key identifying the run, see CheckpointFile
+     * @param interval the number of edges between two checkpoints
+     */
+    public Checkpointer(String file, String key, long interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("[ERROR]: checkpoint interval must be positive!");
+        }
+        this.file = file;
+        this.key = key;
+        this.interval = interval;
+    }
+
+    /**
+     * Check whether a checkpoint is due after the given number of processed edges.
+     *
+     * @param processedEdges the number of edges processed
+     * @return true if at least interval edges were processed since the last checkpoint, and it is written
+     */
+    public boolean isDue(long processedEdges) {
+        return processedEdges - lastPosition >= interval && (pending == null || pending.isDone());
+    }
+
+    /**
+     * Write a checkpoint in background.
+     *
+     * @param processedEdges the number of edges processed at the checkpoint
+     * @param content        the copy of the state to write
+     */
+    public void write(long processedEdges, CheckpointFile.Content content) {
+        lastPosition = processedEdges;
+        pending = writer.submit(() -> {
+            try (CheckpointFile.Writer w = CheckpointFile.create(file, key)) {
+                content.write(w);
+                w.commit();
+            } catch (Throwable e) {
+                // The future is not inspected, report any failure here
+                System.err.println("[ERROR]: checkpoint not written: " + e);
+            }
+        });
+    }
+
+    /**
+     * Set the position of the checkpoint the run resumed from.
+     *
+     * @param processedEdges the number of edges processed at the checkpoint
+     */
+    public void resumedFrom(long processedEdges) {
+        lastPosition = processedEdges;
+    }
+
+    /**
+     * Wait for the pending checkpoint and delete the checkpoint file, once the run completed.
+     */
+    public void complete() {
+        close();
+        try {
+            Files.deleteIfExists(Paths.get(file));
+        } catch (IOException e) {
+            System.err.println("[ERROR]: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Wait for the pending checkpoint to be written.
+     */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("[ERROR]: interrupted while writing the checkpoint", e);
+        }
+    }
+}
@@ -8,35 +8,38 @@
 
 package algorithms;
 
-import community.CommunityNode;
-import community.CommunityScore;
+import community.IntSet;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.FileHandler;
 import java.util.logging.Logger;
 import java.util.logging.SimpleFormatter;
-import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 public class CoEuS extends CommunityDetectionAlgorithm {
 
-    // number of seeds for seed-set initialization
-    private final int NUM_SEEDS = 3;
-    // window size for the pruning
-    private final int WINDOW_SIZE = 10000;
-    // community size for the pruning
-    private final int COMMUNITY_SIZE_THRESHOLD = 50;
-    private final List<Set<Integer>> seedSets;
-    // update rule for community degrees (DEFAULT, EDGE_QUALITY)
-    private UpdateRule updateRule;
+    private List<int[]> seedSets = null; // selected at the first execution
+    // number of batches in flight for the parallel execution
+    private final int PARALLEL_BATCHES = 16;
+    // number of seeds, update rule (DEFAULT, EDGE_QUALITY), pruning policy and community size threshold
+    private CoEuSConfig config;
+    // source and subset of the seed-sets
+    private SeedSelector seedSelector = SeedSelector.builder().build();
+    // number of threads expanding the seed-sets
+    private int nThreads = 1;
 
     public CoEuS(String dir, String dataset, UpdateRule updateRule) {
+        this(dir, dataset, CoEuSConfig.builder().updateRule(updateRule).build());
+    }
+
+    public CoEuS(String dir, String dataset, CoEuSConfig config) {
         super(dir, dataset);
         this.detectedCommunitiesFile = String.format("%s%s_%s_detected_communities.txt", dir,
                 this.getClass().getSimpleName(), dataset);
-        this.updateRule = updateRule;
-        this.seedSets = initSeedSets();
+        this.config = config;
 
         try {
             FileHandler handler = new FileHandler("./src/logs/algorithms.CoEuS.log", true);
@@ -50,191 +53,320 @@ public class CoEuS extends CommunityDetectionAlgorithm {
     }
 
     /**
-     * Initialize seed-sets NUM_SEEDS from ground truth communities.
+     * Select the seed-sets of the configured number of seeds with the seed selector, drawn from the seeded random
+     * numbers of the runs.
      *
-     * @return the initialized seed-sets
+     * @return the selected seed-sets
      */
-    private List<Set<Integer>> initSeedSets() {
-        List<Set<Integer>> seedSets = new ArrayList<>();
-
-        try (BufferedReader br = new BufferedReader(new FileReader(gtcCommunitiesFile))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] community = line.split("\\s+");
-
-                // Check that there are enough node ids to choose from
-                if (community.length < NUM_SEEDS) {
-                    throw new IllegalArgumentException("[ERROR]: less nodes ids than number of seeds: "
-                            + "consider lowering number of seeds");
-                }
-                // Randomly select the node ids
-                Set<Integer> randomIndices = new HashSet<>(NUM_SEEDS);
-                while (randomIndices.size() < NUM_SEEDS) {
-                    randomIndices.add(new Random().nextInt(community.length));
-
-                }
-
-                // Populate the seed-sets
-                Set<Integer> seedSet = new HashSet<>();
-                for (int i : randomIndices) {
-                    seedSet.add(Integer.parseInt(community[i]));
-                }
-                seedSets.add(seedSet);
-            }
+    private List<int[]> selectSeedSets() {
+        SplittableRandom rand = random.stream("CoEuS.seeds");
+        Graph graph = seedSelector.getSource() == SeedSelector.Source.GROUND_TRUTH ? null : getGraph();
+        try {
+            List<int[]> seedSets = seedSelector.select(gtcCommunitiesFile, graph, config.getNumSeeds(), rand);
+            System.out.println("[INFO]: selected " + seedSets.size() + " seed-sets (" + seedSelector + ")");
+            return seedSets;
         } catch (IOException e) {
             System.err.println("[ERROR]: " + e.getMessage());
+            return new ArrayList<>();
         }
-        return seedSets;
     }
 
     /**
-     * Execute the algorithm and store the detected communities in a file.
+     * Execute the algorithm and store the detected communities in a file. With more than one thread, the seed-sets
+     * are partitioned among the threads and each batch of edges is broadcast to all of them.
      */
     @Override
     public void run() {
-        System.out.println("[INFO]: executing " + this.getClass().getSimpleName());
-
-        int[] degrees = new int[this.nNodes];
-        Map<CommunityNode, Integer> communityDegrees = new HashMap<>();
-        List<Set<Integer>> communities = new ArrayList<>(seedSets.size());
-        int processedElements = 0;
-
-        // Populate communities with seed-sets
-        for (int i = 0; i < seedSets.size(); i++) {
-            Set<Integer> community = new HashSet<>(seedSets.get(i));
-            communities.add(i, community);
-            for (Integer node : community) {
-                communityDegrees.merge(new CommunityNode(node, i), 1, Integer::sum);
+        System.out.println("[INFO]: executing " + this.getClass().getSimpleName() + " with seed " + random.getSeed());
+        if (checkpointFile != null && nThreads > 1) {
+            throw new IllegalStateException("[ERROR]: checkpoints require the sequential execution!");
+        }
+
+        List<IntSet> communities = nThreads > 1 ? runParallel() : runSequential();
+        if (metrics != null) {
+            metrics.finish();
+        }
+
+        // Filter communities with less than <filterCommunityThreshold> nodes
+        List<IntSet> filteredCommunities = filterCommunities(communities);
+
+        // Write out the detected (filtered) communities
+        writeDetectedCommunities(filteredCommunities, detectedCommunitiesFile);
+
+        System.out.println("[INFO]: finished " + this.getClass().getSimpleName());
+    }
+
+    /**
+     * Execute the algorithm for several configurations over a single pass of the edges, from the same seed-sets, and
+     * store the detected communities of each configuration in its own file. The seed-sets, and so the number of seeds,
+     * are the ones of this instance's configuration. Each edge batch is fanned out to the state
+     * of every configuration in turn, sharing the node degrees: each state but the last reverts its degrees updates
+     * after the batch, so that each configuration detects the same communities as a separate run.
+     *
+     * @param configs the configurations to execute
+     */
+    public void run(List<CoEuSConfig> configs) {
+        System.out.println("[INFO]: executing " + this.getClass().getSimpleName() + " for " + configs.size()
+                + " configurations with seed " + random.getSeed());
+        if (checkpointFile != null) {
+            throw new IllegalStateException("[ERROR]: checkpoints require the execution of a single configuration!");
+        }
+
+        List<int[]> seedSets = getSeedSets();
+        int[] degrees = new int[nNodes];
+        int[] communityIds = IntStream.range(0, seedSets.size()).toArray();
+        CoEuSState[] states = new CoEuSState[configs.size()];
+        for (int c = 0; c < states.length; c++) {
+            states[c] = new CoEuSState(seedSets, communityIds, degrees, configs.get(c));
+        }
+        if (metrics != null) {
+            // Pruning rounds of all the configurations are recorded together
+            metrics.setSeed(random.getSeed());
+            metrics.start(this.getClass().getSimpleName(), nEdges, null);
+            for (CoEuSState state : states) {
+                state.setMetrics(metrics);
             }
         }
 
         // Process the edges as a stream
-        try (BufferedReader br = new BufferedReader(new FileReader(edgesFile))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                processedElements++;
-
-                // Retrieve nodes
-                String[] nodes = line.split("\\s+");
-                int u = Integer.parseInt(nodes[0]);
-                int v = Integer.parseInt(nodes[1]);
-                if (u == v) { // no self-loops
-                    continue;
+        int[] batch = new int[2 * EdgeSource.BATCH_SIZE];
+        try (EdgeSource edges = openEdges(edgesFile)) {
+            int n;
+            while ((n = edges.read(batch)) > 0) {
+                for (int c = 0; c < states.length; c++) {
+                    states[c].process(batch, n);
+                    if (c < states.length - 1) {
+                        CoEuSState.revertDegrees(degrees, batch, n);
+                    }
+                }
+                if (metrics != null) {
+                    metrics.addEdges(n);
                 }
-                // Update edge's adjacent nodes degree
-                degrees[u] += 1;
-                degrees[v] += 1;
+            }
+        } catch (IOException e) {
+            System.err.println("[ERROR]: " + e.getMessage());
+        }
+
+        if (metrics != null) {
+            metrics.finish();
+        }
+        for (int c = 0; c < states.length; c++) {
+            states[c].finish();
+            List<IntSet> filteredCommunities = filterCommunities(states[c].getCommunities());
+            writeDetectedCommunities(filteredCommunities, getDetectedCommunitiesFile(configs.get(c)));
+        }
 
-                // Communities and community degrees update rule
-                for (int i = 0; i < communities.size(); i++) {
-                    Set<Integer> community = communities.get(i);
+        System.out.println("[INFO]: finished " + this.getClass().getSimpleName());
+    }
 
-                    performUpdateRule(degrees, communityDegrees, v, u, i, community);
-                    performUpdateRule(degrees, communityDegrees, u, v, i, community);
+    /**
+     * Expand all the seed-sets on the calling thread, writing checkpoints if enabled. When resuming, the seed-sets are
+     * replaced by the communities of the checkpoint and the edges processed before it are skipped.
+     *
+     * @return the expanded communities
+     */
+    private List<IntSet> runSequential() {
+        List<int[]> seedSets = getSeedSets();
+        CoEuSState state = new CoEuSState(seedSets, IntStream.range(0, seedSets.size()).toArray(), nNodes, config);
+        if (metrics != null) {
+            metrics.setSeed(random.getSeed());
+            metrics.start(this.getClass().getSimpleName(), nEdges, state::sample);
+            state.setMetrics(metrics);
+        }
+
+        // Process the edges as a stream
+        int[] batch = new int[2 * EdgeSource.BATCH_SIZE];
+        try (Checkpointer checkpointer = createCheckpointer(); EdgeSource edges = openEdges(edgesFile)) {
+            if (checkpointer != null) {
+                state.setCheckpointer(checkpointer);
+                long position = resume ? resume(state) : 0;
+                if (edges.skip(position) < position) {
+                    throw new IOException("edges list shorter than the checkpoint");
                 }
+            }
 
-                // Prune all communities when window is full
-                if (processedElements % WINDOW_SIZE == 0) {
-                    final List<Set<Integer>> communitiesCopy = new ArrayList<>(communities);
-                    communities = IntStream.range(0, communities.size())
-                            .mapToObj(i -> pruneCommunity(i, communitiesCopy.get(i), degrees, communityDegrees))
-                            .collect(Collectors.toList());
+            int n;
+            while ((n = edges.read(batch)) > 0) {
+                state.process(batch, n);
+                if (metrics != null) {
+                    metrics.addEdges(n);
                 }
             }
+            if (checkpointer != null) {
+                checkpointer.complete();
+            }
         } catch (IOException e) {
             System.err.println("[ERROR]: " + e.getMessage());
         }
+        state.finish();
+        return state.getCommunities();
+    }
 
-        // Filter communities with less than <FILTER_COMMUNITY_THRESHOLD> nodes
-        List<Set<Integer>> filteredCommunities = filterCommunities(communities);
-
-        // Write out the detected (filtered) communities
-        writeDetectedCommunities(filteredCommunities);
-
-        System.out.println("[INFO]: finished " + this.getClass().getSimpleName());
+    /**
+     * Create the checkpointer of the sequential execution. With the WINDOW pruning policy the interval is rounded up
+     * to a multiple of the window size, so that checkpoints are taken right after pruning all the communities.
+     *
+     * @return the checkpointer, null if checkpoints are disabled
+     */
+    private Checkpointer createCheckpointer() {
+        if (checkpointFile == null) {
+            return null;
+        }
+        long interval = checkpointInterval;
+        if (config.getPruning() == CoEuSConfig.Pruning.WINDOW) {
+            long windowSize = config.getWindowSize();
+            interval = (interval + windowSize - 1) / windowSize * windowSize;
+        }
+        return new Checkpointer(checkpointFile, checkpointKey(), interval);
     }
 
     /**
-     * Apply the update rule to the nodes connected by an edge, possibly updating
-     * the community degrees and communities.
+     * Restore the state from the checkpoint of an interrupted run, if valid.
      *
-     * @param degrees          the node's degrees
-     * @param communityDegrees the community degrees for each node
-     * @param u                node 1
-     * @param v                node 2
-     * @param i                the current community id
-     * @param community        the current community
+     * @param state the state of the sequential execution
+     * @return the number of edges processed at the checkpoint, 0 if no checkpoint was restored
      */
-    private void performUpdateRule(int[] degrees, Map<CommunityNode, Integer> communityDegrees, int u, int v, int i,
-                                   Set<Integer> community) {
-        if (community.contains(v)) {
-            if (updateRule == UpdateRule.DEFAULT) {
-                communityDegrees.merge(new CommunityNode(u, i), 1, Integer::sum);
-            } else if (updateRule == UpdateRule.EDGE_QUALITY) {
-                if (communityDegrees.containsKey(new CommunityNode(u, i))) {
-                    int currentDegree = communityDegrees.get(new CommunityNode(u, i));
-                    int edgeQuality = communityDegrees.get(new CommunityNode(v, i)) / degrees[v];
-                    communityDegrees.put(new CommunityNode(u, i), currentDegree + edgeQuality);
-                } else {
-                    communityDegrees.put(new CommunityNode(u, i), 1);
-                }
-            } else {
-                throw new IllegalArgumentException("[ERROR]: unknown update rule!");
+    private long resume(CoEuSState state) {
+        try (CheckpointFile.Reader reader = CheckpointFile.openIfValid(checkpointFile, checkpointKey())) {
+            if (reader == null) {
+                System.out.println("[INFO]: no checkpoint to resume from, starting from the beginning");
+                return 0;
             }
-            community.add(u);
+            long position = state.restore(reader);
+            System.out.println("[INFO]: resuming from the checkpoint at " + position + " edges");
+            return position;
+        } catch (IOException e) {
+            System.err.println("[ERROR]: checkpoint not restored: " + e.getMessage());
+            return 0;
         }
     }
 
     /**
-     * Prune a community according to MAX_COMMUNITY_SIZE.
+     * @return the key identifying the run in its checkpoints: dataset, graph size, configuration, seed-sets selection
+     * and number, and seed
+     */
+    private String checkpointKey() {
+        return String.format("%s %s %d %d %s %s %d %d", this.getClass().getSimpleName(), edgesFile, nNodes, nEdges,
+                config, seedSelector, getSeedSets().size(), random.getSeed());
+    }
+
+    /**
+     * Expand the seed-sets on nThreads worker threads, each owning the state of a round-robin partition of the
+     * seed-sets. The calling thread reads the edges and broadcasts each batch to all the workers. Since communities
+     * are independent and each worker keeps its own copy of the node degrees, the detected communities are the same
+     * as with the sequential execution.
      *
-     * @param communityId      the id of the community to be pruned
-     * @param community        the community to be pruned
-     * @param degrees          the nodes' degrees
-     * @param communityDegrees the community degrees for each node
-     * @return the pruned community
+     * @return the expanded communities
      */
-    private Set<Integer> pruneCommunity(int communityId, Set<Integer> community, int[] degrees,
-                                        Map<CommunityNode, Integer> communityDegrees) {
+    private List<IntSet> runParallel() {
+        List<int[]> seedSets = getSeedSets();
+        int nWorkers = Math.min(nThreads, Math.max(1, seedSets.size()));
+        List<CoEuSState> states = new ArrayList<>(nWorkers);
+        for (int w = 0; w < nWorkers; w++) {
+            int[] communityIds = IntStream.iterate(w, i -> i < seedSets.size(), i -> i + nWorkers).toArray();
+            states.add(new CoEuSState(seedSets, communityIds, nNodes, config));
+        }
+        if (metrics != null) {
+            // The states are owned by the workers, only the edges read are measured
+            metrics.setSeed(random.getSeed());
+            metrics.start(this.getClass().getSimpleName(), nEdges, null);
+        }
 
-        // Min-heap
-        PriorityQueue<CommunityScore> minHeap = new PriorityQueue<>(Comparator.comparing(CommunityScore::getCpScore));
+        // Batches are recycled once every worker has processed them
+        BlockingQueue<EdgeBatch> pool = new ArrayBlockingQueue<>(PARALLEL_BATCHES);
+        for (int b = 0; b < PARALLEL_BATCHES; b++) {
+            pool.add(new EdgeBatch(2 * EdgeSource.BATCH_SIZE));
+        }
+        List<BlockingQueue<EdgeBatch>> queues = new ArrayList<>(nWorkers);
+        for (int w = 0; w < nWorkers; w++) {
+            queues.add(new ArrayBlockingQueue<>(PARALLEL_BATCHES + 1));
+        }
 
-        for (int c : community) {
-            // compute community participation value
-            int cp = communityDegrees.get(new CommunityNode(c, communityId)) / Math.max(1,
-                    degrees[c]);
+        ExecutorService executor = Executors.newFixedThreadPool(nWorkers);
+        try {
+            List<Future<?>> workers = new ArrayList<>(nWorkers);
+            for (int w = 0; w < nWorkers; w++) {
+                CoEuSState state = states.get(w);
+                BlockingQueue<EdgeBatch> queue = queues.get(w);
+                workers.add(executor.submit(() -> {
+                    RuntimeException failure = null;
+                    EdgeBatch batch;
+                    while ((batch = queue.take()) != EdgeBatch.END) {
+                        // After a failure keep releasing the batches, so that the reader is not blocked
+                        if (failure == null) {
+                            try {
+                                state.process(batch.edges, batch.size);
+                            } catch (RuntimeException e) {
+                                failure = e;
+                            }
+                        }
+                        if (batch.pending.decrementAndGet() == 0) {
+                            pool.put(batch);
+                        }
+                    }
+                    if (failure != null) {
+                        throw failure;
+                    }
+                    state.finish();
+                    return null;
+                }));
+            }
 
-            // If heap not full -> push community score <node, cp>
-            if (minHeap.size() < COMMUNITY_SIZE_THRESHOLD) {
-                minHeap.add(new CommunityScore(c, cp));
+            // Process the edges as a stream
+            try (EdgeSource edges = openEdges(edgesFile)) {
+                while (true) {
+                    EdgeBatch batch = pool.take();
+                    batch.size = edges.read(batch.edges);
+                    if (batch.size == 0) {
+                        break;
+                    }
+                    batch.pending.set(nWorkers);
+                    for (BlockingQueue<EdgeBatch> queue : queues) {
+                        queue.put(batch);
+                    }
+                    if (metrics != null) {
+                        metrics.addEdges(batch.size);
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("[ERROR]: " + e.getMessage());
+            } finally {
+                for (BlockingQueue<EdgeBatch> queue : queues) {
+                    queue.put(EdgeBatch.END);
+                }
             }
-            // If heap full and better community score than minimum in heap -> replace
-            else if (cp > minHeap.peek().cpScore) {
-                int prunedNode = minHeap.poll().node;
-                minHeap.add(new CommunityScore(c, cp));
 
-                // Remove pruned node pair from community degrees
-                communityDegrees.remove(new CommunityNode(prunedNode, communityId));
+            for (Future<?> worker : workers) {
+                worker.get();
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("[ERROR]: interrupted while executing " + getClass().getSimpleName(), e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("[ERROR]: worker failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
         }
 
-        // Convert heap to community to be returned
-        Set<Integer> prunedCommunity = new HashSet<>();
-        while (!minHeap.isEmpty()) {
-            prunedCommunity.add(minHeap.poll().node);
+        // Gather the communities back in seed-set order
+        List<IntSet> communities = new ArrayList<>(Collections.nCopies(seedSets.size(), null));
+        for (CoEuSState state : states) {
+            int[] communityIds = state.getCommunityIds();
+            for (int i = 0; i < communityIds.length; i++) {
+                communities.set(communityIds[i], state.getCommunities().get(i));
+            }
         }
-        return prunedCommunity;
+        return communities;
     }
 
     /**
-     * Filter small communities with less than FILTER_COMMUNITY_THRESHOLD nodes
+     * Filter small communities with less than filterCommunityThreshold nodes
      *
      * @param communities the communities to filter.
      * @return the filtered communities.
      */
-    private List<Set<Integer>> filterCommunities(List<Set<Integer>> communities) {
-        communities.removeIf(community -> community.size() < FILTER_COMMUNITY_THRESHOLD);
+    private List<IntSet> filterCommunities(List<IntSet> communities) {
+        communities.removeIf(community -> community.size() < filterCommunityThreshold);
         return communities;
     }
 
@@ -242,11 +374,12 @@ public class CoEuS extends CommunityDetectionAlgorithm {
      * Write detected communities to file.
      *
      * @param communities the communities to write out
+     * @param file        the detected communities file
      */
-    private void writeDetectedCommunities(List<Set<Integer>> communities) {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(detectedCommunitiesFile))) {
-            for (Set<Integer> community : communities) {
-                for (Integer node : community) {
+    private void writeDetectedCommunities(List<IntSet> communities, String file) {
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(file))) {
+            for (IntSet community : communities) {
+                for (int node : community.toArray()) {
                     bw.write(node + " ");
                 }
                 bw.newLine();
@@ -263,18 +396,123 @@ public class CoEuS extends CommunityDetectionAlgorithm {
         System.out.println("[INFO]: evaluating " + this.getClass().getSimpleName());
 
         double score = CommunityDetectionAlgorithm.averageF1Score(gtcCommunitiesFile, detectedCommunitiesFile);
-        String msg = String.format("[%s] [%s] | [average-F1-score] | [%s]: %.5f", dataset,
-                updateRule.name(), this.getClass().getSimpleName(), score);
+        String msg = String.format("[%s] [%s] | [average-F1-score] | [%s] | [seed %d]: %.5f", dataset,
+                config.getUpdateRule().name(), this.getClass().getSimpleName(), random.getSeed(), score);
         logger.info(msg);
 
     }
 
-    public List<Set<Integer>> getSeedSets() {
+    /**
+     * Evaluate the detected communities of each configuration executed with run(List) with average F1 score.
+     *
+     * @param configs the executed configurations
+     */
+    public void evaluate(List<CoEuSConfig> configs) {
+        System.out.println("[INFO]: evaluating " + this.getClass().getSimpleName() + " for " + configs.size()
+                + " configurations");
+
+        for (CoEuSConfig config : configs) {
+            double score = CommunityDetectionAlgorithm.averageF1Score(gtcCommunitiesFile,
+                    getDetectedCommunitiesFile(config));
+            String msg = String.format("[%s] [%s] | [average-F1-score] | [%s] | [seed %d]: %.5f", dataset,
+                    config, this.getClass().getSimpleName(), random.getSeed(), score);
+            logger.info(msg);
+        }
+    }
+
+    /**
+     * Retrieve the detected communities file of a configuration executed with run(List).
+     *
+     * @param config the configuration
+     * @return the detected communities file
+     */
+    public String getDetectedCommunitiesFile(CoEuSConfig config) {
+        return String.format("%s%s_%s_%s_detected_communities.txt", dir, this.getClass().getSimpleName(), dataset,
+                config);
+    }
+
+    /**
+     * Retrieve the seed-sets, selected at the first call.
+     *
+     * @return the seed-sets, as sorted arrays of node ids
+     */
+    public synchronized List<int[]> getSeedSets() {
+        if (seedSets == null) {
+            seedSets = selectSeedSets();
+        }
         return seedSets;
     }
 
+    /**
+     * Select the seed-sets of the next executions with a seed selector: from the ground-truth communities, or around
+     * hub nodes when no ground truth is available, possibly keeping a subset of them.
+     *
+     * @param seedSelector the seed selector
+     */
+    public synchronized void setSeedSelector(SeedSelector seedSelector) {
+        this.seedSelector = seedSelector;
+        this.seedSets = null;
+    }
+
+    public SeedSelector getSeedSelector() {
+        return seedSelector;
+    }
+
+    /**
+     * Seed the random numbers of the next executions, the seed-sets being selected again from this seed.
+     *
+     * @param seed the seed
+     */
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        this.seedSets = null;
+    }
+
+    public CoEuSConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Set the configuration of the next executions. Seed-sets already selected are not selected again, so the number
+     * of seeds of the new configuration is then ignored.
+     *
+     * @param config the new configuration
+     */
+    public void setConfig(CoEuSConfig config) {
+        this.config = config;
+    }
+
     public void setUpdateRule(UpdateRule newUpdateRule) {
-        this.updateRule = newUpdateRule;
+        this.config = config.toBuilder().updateRule(newUpdateRule).build();
+    }
+
+    /**
+     * Set the number of threads used for expanding the seed-sets, 1 for sequential execution.
+     *
+     * @param nThreads the number of threads
+     */
+    public void setThreads(int nThreads) {
+        if (nThreads < 1) {
+            throw new IllegalArgumentException("[ERROR]: number of threads must be positive!");
+        }
+        this.nThreads = nThreads;
+    }
+
+    /**
+     * Batch of edges broadcast to the workers of the parallel execution.
+     */
+    private static class EdgeBatch {
+        // marks the end of the stream
+        static final EdgeBatch END = new EdgeBatch(0);
+
+        final int[] edges;
+        final AtomicInteger pending = new AtomicInteger();
+        int size;
+
+        EdgeBatch(int capacity) {
+            this.edges = new int[capacity];
+        }
     }
 
     /**
@@ -0,0 +1,175 @@
+/*
+ * algorithms.CoEuSConfig
+ *
+ * @description: Parameters of a CoEuS execution: number of seeds, update rule, pruning policy and community size
+ *               threshold. Instances are immutable and created with a Builder. Several configurations can be run over
+ *               a single pass of the edges, see CoEuS.run(List).
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+public class CoEuSConfig {
+
+    public static final int DEFAULT_NUM_SEEDS = 3;
+    public static final int DEFAULT_WINDOW_SIZE = 10000;
+    public static final int DEFAULT_COMMUNITY_SIZE_THRESHOLD = 50;
+
+    private final int numSeeds;
+    private final CoEuS.UpdateRule updateRule;
+    private final Pruning pruning;
+    private final int windowSize;
+    private final int communitySizeThreshold;
+    private final int highWaterMark;
+
+    private CoEuSConfig(Builder builder) {
+        this.numSeeds = builder.numSeeds;
+        this.updateRule = builder.updateRule;
+        this.pruning = builder.pruning;
+        this.windowSize = builder.windowSize;
+        this.communitySizeThreshold = builder.communitySizeThreshold;
+        this.highWaterMark = builder.highWaterMark > 0 ? builder.highWaterMark
+                : builder.communitySizeThreshold + builder.communitySizeThreshold / 5;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return a builder initialized with the parameters of this configuration
+     */
+    public Builder toBuilder() {
+        return new Builder()
+                .numSeeds(numSeeds)
+                .updateRule(updateRule)
+                .pruning(pruning)
+                .windowSize(windowSize)
+                .communitySizeThreshold(communitySizeThreshold)
+                .highWaterMark(highWaterMark);
+    }
+
+    public int getNumSeeds() {
+        return numSeeds;
+    }
+
+    public CoEuS.UpdateRule getUpdateRule() {
+        return updateRule;
+    }
+
+    public Pruning getPruning() {
+        return pruning;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public int getCommunitySizeThreshold() {
+        return communitySizeThreshold;
+    }
+
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     * @return a label identifying the configuration, used in file names and logs
+     */
+    @Override
+    public String toString() {
+        if (pruning == Pruning.ADAPTIVE) {
+            return String.format("%s_h%d_t%d", updateRule.name(), highWaterMark, communitySizeThreshold);
+        }
+        return String.format("%s_w%d_t%d", updateRule.name(), windowSize, communitySizeThreshold);
+    }
+
+    /**
+     * Enum containing available pruning policies.
+     */
+    public enum Pruning {
+        // prune every community larger than the community size threshold once every window of edges
+        WINDOW,
+        // prune a community as soon as it grows past the high-water mark, and once more at the end of the stream
+        ADAPTIVE,
+    }
+
+    /**
+     * Builder of CoEuS configurations, every parameter not set keeps its default value.
+     */
+    public static class Builder {
+        private int numSeeds = DEFAULT_NUM_SEEDS;
+        private CoEuS.UpdateRule updateRule = CoEuS.UpdateRule.DEFAULT;
+        private Pruning pruning = Pruning.WINDOW;
+        private int windowSize = DEFAULT_WINDOW_SIZE;
+        private int communitySizeThreshold = DEFAULT_COMMUNITY_SIZE_THRESHOLD;
+        private int highWaterMark = 0; // 0 for 1.2 times the community size threshold
+
+        private Builder() {
+        }
+
+        /**
+         * @param numSeeds the number of seeds of each seed-set
+         */
+        public Builder numSeeds(int numSeeds) {
+            this.numSeeds = numSeeds;
+            return this;
+        }
+
+        /**
+         * @param updateRule the update rule for community degrees
+         */
+        public Builder updateRule(CoEuS.UpdateRule updateRule) {
+            this.updateRule = updateRule;
+            return this;
+        }
+
+        /**
+         * @param pruning the pruning policy
+         */
+        public Builder pruning(Pruning pruning) {
+            this.pruning = pruning;
+            return this;
+        }
+
+        /**
+         * @param windowSize the number of edges between two prunings, for the WINDOW pruning policy
+         */
+        public Builder windowSize(int windowSize) {
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        /**
+         * @param communitySizeThreshold the maximum size of a community after pruning
+         */
+        public Builder communitySizeThreshold(int communitySizeThreshold) {
+            this.communitySizeThreshold = communitySizeThreshold;
+            return this;
+        }
+
+        /**
+         * @param highWaterMark the size triggering the pruning of a community, for the ADAPTIVE pruning policy
+         */
+        public Builder highWaterMark(int highWaterMark) {
+            this.highWaterMark = highWaterMark;
+            return this;
+        }
+
+        public CoEuSConfig build() {
+            if (numSeeds < 1 || windowSize < 1 || communitySizeThreshold < 1) {
+                throw new IllegalArgumentException("[ERROR]: number of seeds, window size and community size "
+                        + "threshold must be positive!");
+            }
+            if (highWaterMark != 0 && highWaterMark < communitySizeThreshold) {
+                throw new IllegalArgumentException("[ERROR]: high-water mark must not be lower than the community "
+                        + "size threshold!");
+            }
+            if (updateRule == null || pruning == null) {
+                throw new IllegalArgumentException("[ERROR]: update rule and pruning policy must be set!");
+            }
+            return new CoEuSConfig(this);
+        }
+    }
+}
@@ -0,0 +1,428 @@
+/*
+ * algorithms.CoEuSState
+ *
+ * @description: State of CoEuS for a subset of the seed-sets: the expanded communities, their community degrees and
+ *               the index of the communities containing each node. Communities are independent from each other, so
+ *               the seed-sets can be split among several states consuming the same edge stream.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import community.AdaptiveIntSet;
+import community.CommunityDegreeMap;
+import community.IntSet;
+import community.NodeCommunityIndex;
+import community.TopKSelector;
+
+import java.io.IOException;
+import java.util.*;
+
+class CoEuSState {
+
+    private final CoEuS.UpdateRule updateRule;
+    private final CoEuSConfig.Pruning pruning;
+    private final int windowSize;
+    private final int communitySizeThreshold;
+    private final int highWaterMark;
+
+    private final int[] communityIds; // global id of each community of the state
+    private final List<IntSet> communities; // communities, indexed by local id
+    private final int[] degrees;
+    private final CommunityDegreeMap communityDegrees; // keyed by local community id, floats for EDGE_QUALITY
+    private final NodeCommunityIndex index; // local community ids containing each node
+    private final boolean[] overHighWaterMark; // communities waiting for an adaptive pruning
+    private int[] toPrune = new int[16];
+    private int nToPrune = 0;
+    private final TopKSelector selector; // reused by every pruning
+    private int[] members = new int[64]; // members of the community being pruned
+    private long processedElements = 0;
+    private Checkpointer checkpointer = null;
+    private LogHistogram pruneTimes = null; // nanoseconds of each pruning round, null if not measured
+
+    /**
+     * Create the state for a subset of the seed-sets.
+     *
+     * @param seedSets     all the seed-sets
+     * @param communityIds the (global) ids of the seed-sets handled by this state
+     * @param nNodes       the number of nodes of the graph
+     * @param config       the update rule, pruning policy and community size threshold
+     */
+    CoEuSState(List<int[]> seedSets, int[] communityIds, int nNodes, CoEuSConfig config) {
+        this(seedSets, communityIds, new int[nNodes], config);
+    }
+
+    /**
+     * Create the state for a subset of the seed-sets, with node degrees shared with other states. The states process
+     * each batch in turn, all but the last one reverting their degrees updates with revertDegrees.
+     *
+     * @param seedSets     all the seed-sets
+     * @param communityIds the (global) ids of the seed-sets handled by this state
+     * @param degrees      the (shared) degree of each node
+     * @param config       the update rule, pruning policy and community size threshold
+     */
+    CoEuSState(List<int[]> seedSets, int[] communityIds, int[] degrees, CoEuSConfig config) {
+        int nNodes = degrees.length;
+        this.updateRule = config.getUpdateRule();
+        this.pruning = config.getPruning();
+        this.windowSize = config.getWindowSize();
+        this.communitySizeThreshold = config.getCommunitySizeThreshold();
+        this.highWaterMark = config.getHighWaterMark();
+        this.communityIds = communityIds;
+        this.communities = new ArrayList<>(communityIds.length);
+        this.degrees = degrees;
+        this.communityDegrees = new CommunityDegreeMap();
+        this.index = new NodeCommunityIndex(nNodes);
+        this.overHighWaterMark = new boolean[communityIds.length];
+        this.selector = new TopKSelector(communitySizeThreshold);
+
+        // Populate communities with seed-sets
+        for (int i = 0; i < communityIds.length; i++) {
+            IntSet community = new AdaptiveIntSet();
+            for (int node : seedSets.get(communityIds[i])) {
+                if (community.add(node)) {
+                    if (updateRule == CoEuS.UpdateRule.EDGE_QUALITY) {
+                        communityDegrees.putFloat(node, i, 1);
+                    } else {
+                        communityDegrees.put(node, i, 1);
+                    }
+                    index.add(node, i);
+                }
+            }
+            communities.add(i, community);
+        }
+    }
+
+    /**
+     * Process a batch of edges, pruning the communities according to the pruning policy: all the communities whenever
+     * the window is full (WINDOW), or each community as soon as it grows past the high-water mark (ADAPTIVE).
+     *
+     * @param batch  the edges, as consecutive (u, v) pairs
+     * @param nEdges the number of edges in the batch
+     */
+    void process(int[] batch, int nEdges) {
+        boolean window = pruning == CoEuSConfig.Pruning.WINDOW;
+        for (int e = 0; e < 2 * nEdges; e += 2) {
+            processedElements++;
+
+            // Retrieve nodes
+            int u = batch[e];
+            int v = batch[e + 1];
+            if (u == v) { // no self-loops
+                continue;
+            }
+            processEdge(u, v);
+
+            if (window) {
+                // Prune all communities when window is full
+                if (processedElements % windowSize == 0) {
+                    long start = pruneTimes != null ? System.nanoTime() : 0;
+                    pruneAll();
+                    if (pruneTimes != null) {
+                        pruneTimes.record(System.nanoTime() - start);
+                    }
+                }
+            } else if (nToPrune > 0) {
+                // Prune the communities grown past the high-water mark, once the index is no longer iterated
+                long start = pruneTimes != null ? System.nanoTime() : 0;
+                for (int k = 0; k < nToPrune; k++) {
+                    int i = toPrune[k];
+                    overHighWaterMark[i] = false;
+                    pruneCommunity(i, communities.get(i));
+                }
+                nToPrune = 0;
+                if (pruneTimes != null) {
+                    pruneTimes.record(System.nanoTime() - start);
+                }
+            }
+
+            // Checkpoint between two edges, once the pruning is done
+            if (checkpointer != null && checkpointer.isDue(processedElements)) {
+                checkpointer.write(processedElements, checkpoint());
+            }
+        }
+    }
+
+    /**
+     * Copy the state for a checkpoint: the number of processed edges, the node degrees, the members of each community
+     * and the community degrees. The copy is written by the checkpointer while the state keeps processing edges.
+     *
+     * @return the content of the checkpoint
+     */
+    private CheckpointFile.Content checkpoint() {
+        long position = processedElements;
+        int[] degreesCopy = degrees.clone();
+        int[][] membersCopy = new int[communities.size()][];
+        for (int i = 0; i < communities.size(); i++) {
+            membersCopy[i] = communities.get(i).toArray();
+        }
+        long[] keys = new long[communityDegrees.size()];
+        int[] values = new int[keys.length];
+        communityDegrees.toArrays(keys, values);
+
+        return writer -> {
+            writer.writeLong(position);
+            writer.writeInts(degreesCopy, degreesCopy.length);
+            writer.writeInt(membersCopy.length);
+            for (int[] community : membersCopy) {
+                writer.writeInts(community, community.length);
+            }
+            writer.writeLongs(keys, keys.length);
+            writer.writeInts(values, values.length);
+        };
+    }
+
+    /**
+     * Restore the state from a checkpoint, replacing the seed-sets. The checkpoint is read entirely before the state
+     * is modified, so that the state is left untouched if the checkpoint is invalid.
+     *
+     * @param reader the checkpoint, positioned after its header
+     * @return the number of edges processed at the checkpoint, to be skipped in the edge stream
+     * @throws IOException if the checkpoint cannot be read or does not match the state
+     */
+    long restore(CheckpointFile.Reader reader) throws IOException {
+        long position = reader.readLong();
+        int[] savedDegrees = reader.readInts();
+        if (savedDegrees.length != degrees.length) {
+            throw new IOException("invalid checkpoint: wrong number of nodes");
+        }
+        int nCommunities = reader.readInt();
+        if (nCommunities != communities.size()) {
+            throw new IOException("invalid checkpoint: wrong number of communities");
+        }
+        int[][] savedMembers = new int[nCommunities][];
+        for (int i = 0; i < nCommunities; i++) {
+            savedMembers[i] = reader.readInts();
+        }
+        long[] keys = reader.readLongs();
+        int[] values = reader.readInts();
+        if (keys.length != values.length) {
+            throw new IOException("invalid checkpoint: corrupted community degrees");
+        }
+
+        // Replace the seed-sets with the communities of the checkpoint
+        for (int i = 0; i < nCommunities; i++) {
+            for (int node : communities.get(i).toArray()) {
+                index.remove(node, i);
+            }
+            communities.set(i, AdaptiveIntSet.ofSorted(savedMembers[i], savedMembers[i].length));
+            for (int node : savedMembers[i]) {
+                index.add(node, i);
+            }
+        }
+        communityDegrees.clear();
+        for (int k = 0; k < keys.length; k++) {
+            communityDegrees.put(CommunityDegreeMap.nodeId(keys[k]),
+                    CommunityDegreeMap.communityId(keys[k]), values[k]);
+        }
+        System.arraycopy(savedDegrees, 0, degrees, 0, degrees.length);
+        processedElements = position;
+        if (checkpointer != null) {
+            checkpointer.resumedFrom(position);
+        }
+        return position;
+    }
+
+    /**
+     * Record the time of each pruning round (a window for WINDOW, the communities pruned after an edge for ADAPTIVE)
+     * in the "prune_ns" histogram of the metrics.
+     *
+     * @param metrics the metrics of the run, null to disable
+     */
+    void setMetrics(RunMetrics metrics) {
+        this.pruneTimes = metrics != null ? metrics.histogram("prune_ns") : null;
+    }
+
+    /**
+     * Sample the gauges of the state: number of non-empty communities, size of the community degrees map, and the
+     * distribution of the community sizes in the "community_size" histogram.
+     *
+     * @param metrics the metrics of the run
+     */
+    void sample(RunMetrics metrics) {
+        LogHistogram sizes = metrics.histogram("community_size");
+        sizes.reset();
+        int active = 0;
+        for (IntSet community : communities) {
+            sizes.record(community.size());
+            if (!community.isEmpty()) {
+                active++;
+            }
+        }
+        metrics.setGauge("communities", active);
+        metrics.setGauge("max_community_size", sizes.getMax());
+        metrics.setGauge("community_degrees", communityDegrees.size());
+        metrics.setGauge("community_degrees_bytes", 12L * communityDegrees.capacity());
+    }
+
+    /**
+     * Write a checkpoint of the state whenever the checkpointer is due. With the WINDOW pruning policy the interval
+     * should be a multiple of the window size, so that checkpoints are taken right after pruning all the communities.
+     *
+     * @param checkpointer the checkpointer, null to disable checkpoints
+     */
+    void setCheckpointer(Checkpointer checkpointer) {
+        this.checkpointer = checkpointer;
+    }
+
+    /**
+     * Complete the processing at the end of the stream. With the ADAPTIVE pruning policy, the communities grown past
+     * the community size threshold since their last pruning are pruned; the WINDOW policy leaves the communities as
+     * they are after the last window.
+     */
+    void finish() {
+        if (pruning == CoEuSConfig.Pruning.ADAPTIVE) {
+            pruneAll();
+        }
+    }
+
+    /**
+     * Revert the node degrees updates of a batch processed by a state sharing the degrees, so that the next state
+     * can process the same batch.
+     *
+     * @param degrees the shared degree of each node
+     * @param batch   the edges, as consecutive (u, v) pairs
+     * @param nEdges  the number of edges in the batch
+     */
+    static void revertDegrees(int[] degrees, int[] batch, int nEdges) {
+        for (int e = 0; e < 2 * nEdges; e += 2) {
+            int u = batch[e];
+            int v = batch[e + 1];
+            if (u != v) {
+                degrees[u] -= 1;
+                degrees[v] -= 1;
+            }
+        }
+    }
+
+    /**
+     * Prune all the communities of the state. Communities not larger than the community size threshold are skipped,
+     * since pruning would leave them unchanged.
+     */
+    void pruneAll() {
+        for (int i = 0; i < communities.size(); i++) {
+            IntSet community = communities.get(i);
+            if (community.size() > communitySizeThreshold) {
+                pruneCommunity(i, community);
+            }
+        }
+    }
+
+    /**
+     * Update the degrees, communities and community degrees for an edge.
+     *
+     * @param u node 1
+     * @param v node 2
+     */
+    private void processEdge(int u, int v) {
+        // Update edge's adjacent nodes degree
+        degrees[u] += 1;
+        degrees[v] += 1;
+
+        // Communities and community degrees update rule, only the communities containing u or v are
+        // affected. Memberships added while processing the edge are appended after nu and nv.
+        int nu = index.size(u);
+        int nv = index.size(v);
+        for (int k = 0; k < nu; k++) {
+            int i = index.get(u, k);
+            IntSet community = communities.get(i);
+
+            performUpdateRule(v, u, i, community);
+            performUpdateRule(u, v, i, community);
+        }
+        for (int k = 0; k < nv; k++) {
+            int i = index.get(v, k);
+            IntSet community = communities.get(i);
+            if (community.contains(u)) { // already updated through u
+                continue;
+            }
+
+            performUpdateRule(u, v, i, community);
+        }
+    }
+
+    /**
+     * Apply the update rule to the nodes connected by an edge, possibly updating
+     * the community degrees and communities.
+     *
+     * @param u         node 1
+     * @param v         node 2
+     * @param i         the current (local) community id
+     * @param community the current community
+     */
+    private void performUpdateRule(int u, int v, int i, IntSet community) {
+        if (community.contains(v)) {
+            if (updateRule == CoEuS.UpdateRule.DEFAULT) {
+                communityDegrees.merge(u, i, 1);
+            } else if (updateRule == CoEuS.UpdateRule.EDGE_QUALITY) {
+                if (communityDegrees.containsKey(u, i)) {
+                    float edgeQuality = communityDegrees.getFloat(v, i, 0) / degrees[v];
+                    communityDegrees.mergeFloat(u, i, edgeQuality);
+                } else {
+                    communityDegrees.putFloat(u, i, 1);
+                }
+            } else {
+                throw new IllegalArgumentException("[ERROR]: unknown update rule!");
+            }
+            if (community.add(u)) {
+                index.add(u, i);
+                if (community.size() > highWaterMark && pruning == CoEuSConfig.Pruning.ADAPTIVE
+                        && !overHighWaterMark[i]) {
+                    overHighWaterMark[i] = true;
+                    if (nToPrune == toPrune.length) {
+                        toPrune = Arrays.copyOf(toPrune, nToPrune << 1);
+                    }
+                    toPrune[nToPrune++] = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Prune a community in place according to the community size threshold, keeping the nodes with the highest
+     * community participation, i.e. community degree over degree. The nodes left out are removed from the community
+     * degrees and the index.
+     *
+     * @param communityId the (local) id of the community to be pruned
+     * @param community   the community to be pruned
+     */
+    private void pruneCommunity(int communityId, IntSet community) {
+        // Copy the members, so that the community can be modified while selecting
+        if (members.length < community.size()) {
+            members = new int[Math.max(community.size(), members.length << 1)];
+        }
+        int n = community.toArray(members);
+
+        selector.reset();
+        for (int k = 0; k < n; k++) {
+            int c = members[k];
+            // compute community participation value
+            float communityDegree = updateRule == CoEuS.UpdateRule.EDGE_QUALITY
+                    ? communityDegrees.getFloat(c, communityId, 0) : communityDegrees.get(c, communityId, 0);
+            float cp = communityDegree / Math.max(1, degrees[c]);
+
+            // Either the node, the replaced node with the minimum score, or none is left out
+            int prunedNode = selector.offer(c, cp);
+            if (prunedNode >= 0) {
+                community.remove(prunedNode);
+                communityDegrees.remove(prunedNode, communityId);
+                index.remove(prunedNode, communityId);
+            }
+        }
+    }
+
+    /**
+     * @return the (global) ids of the communities of the state
+     */
+    int[] getCommunityIds() {
+        return communityIds;
+    }
+
+    /**
+     * @return the communities of the state, indexed by local id
+     */
+    List<IntSet> getCommunities() {
+        return communities;
+    }
+}
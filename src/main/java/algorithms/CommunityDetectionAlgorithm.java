@@ -8,64 +8,90 @@
 
 package algorithms;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import community.AdaptiveIntSet;
+import community.IntSet;
+
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Logger;
 
 public abstract class CommunityDetectionAlgorithm {
 
-    protected final int FILTER_COMMUNITY_THRESHOLD = 3;
+    public static final int DEFAULT_FILTER_COMMUNITY_THRESHOLD = 3;
+
+    protected int filterCommunityThreshold = DEFAULT_FILTER_COMMUNITY_THRESHOLD; // minimum size of a detected community
     protected String dir;
     protected String dataset;
     protected String gtcCommunitiesFile; // ground-truth communities
     protected String detectedCommunitiesFile;
     protected String edgesFile;
+    protected String degreesFile; // cached degree distribution
+    protected String graphFile; // adjacency (CSR) index
 
     protected int nNodes;
-    protected int nEdges;
+    protected long nEdges;
+
+    protected String checkpointFile = null; // checkpoints of the run, null to disable
+    protected long checkpointInterval = 0; // edges between two checkpoints
+    protected boolean resume = false; // resume from the checkpoint of an interrupted run
+    protected RunMetrics metrics = null; // metrics of the runs, null to disable
+    protected RandomSource random = new RandomSource(RandomSource.DEFAULT_SEED); // random numbers of the runs
+    protected int nParsers = 0; // parser threads reading the edges stream, 0 to read on the processing thread
 
     protected Logger logger = null;
+    private Graph graph = null; // mapped from the graph file at its first use
 
     public CommunityDetectionAlgorithm(String dir, String dataset) {
         this.dir = dir;
         this.dataset = dataset;
         this.edgesFile = dir + dataset + "_edges.txt";
         this.gtcCommunitiesFile = dir + dataset + "GTC.txt";
+        this.degreesFile = dir + dataset + "_degrees.bin";
+        this.graphFile = dir + dataset + "_graph.bin";
 
-        int[] graphSize = getGraphSize(edgesFile);
-        this.nNodes = graphSize[0];
-        this.nEdges = graphSize[1];
+        // Graph size and degree distribution recorded at validation, if still valid
+        ValidationManifest manifest = ValidationManifest.readIfValid(ValidationManifest.fileFor(dir, dataset));
+        if (manifest != null && manifest.hasValidOutputs()) {
+            this.nNodes = manifest.getNodes();
+            this.nEdges = manifest.getEdges();
+            this.degreesFile = manifest.getOutput(ValidationManifest.DEGREES);
+            this.graphFile = manifest.getOutput(ValidationManifest.GRAPH);
+        } else {
+            long[] graphSize = getGraphSize(edgesFile);
+            this.nNodes = (int) graphSize[0];
+            this.nEdges = graphSize[1];
+        }
     }
 
     /**
-     * Retrieve graph size (# nodes, # edges) and store it.
+     * Retrieve graph size (# nodes, # edges) when the dataset has no valid manifest. The sizes are read from the
+     * header of the binary edges file when available, otherwise the edges list is scanned.
      *
      * @param inputFile the input edges list file
      * @return numbers of nodes and number of edges
      */
-    private int[] getGraphSize(String inputFile) {
-        Set<Integer> nodes = new HashSet<>();
-        int nEdges = 0;
-
-        try (BufferedReader br = new BufferedReader(new FileReader(inputFile))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split("\\s+");
-                int u = Integer.parseInt(parts[0]);
-                int v = Integer.parseInt(parts[1]);
-                nodes.add(u);
-                nodes.add(v);
-                nEdges++;
+    private long[] getGraphSize(String inputFile) {
+        IntSet nodes = new AdaptiveIntSet();
+        long nEdges = 0;
+
+        int[] batch = new int[2 * EdgeSource.BATCH_SIZE];
+        try (EdgeSource edges = EdgeSource.open(inputFile)) {
+            if (edges.getNodes() >= 0) {
+                return new long[]{edges.getNodes(), edges.getEdges()};
+            }
+            int n;
+            while ((n = edges.read(batch)) > 0) {
+                for (int e = 0; e < 2 * n; e++) {
+                    nodes.add(batch[e]);
+                }
+                nEdges += n;
             }
         } catch (IOException e) {
             System.err.println("[ERROR]: " + e.getMessage());
         }
-        return new int[]{nodes.size(), nEdges};
+        return new long[]{nodes.size(), nEdges};
     }
 
     /**
@@ -76,101 +102,186 @@ public abstract class CommunityDetectionAlgorithm {
      * @return the average F1 score
      */
     protected static double averageF1Score(String gtcCommunitiesFile, String detectedCommunitiesFile) {
-        List<Set<Integer>> gtcCommunities = loadCommunities(gtcCommunitiesFile);
-        List<Set<Integer>> detectedCommunities = loadCommunities(detectedCommunitiesFile);
-
-        // Create matrix with pair-wise F1 scores
-        double[][] f1Matrix = new double[detectedCommunities.size()][gtcCommunities.size()];
-        for (int i = 0; i < detectedCommunities.size(); i++) {
-            for (int j = 0; j < gtcCommunities.size(); j++) {
-                f1Matrix[i][j] = F1Score(detectedCommunities.get(i), gtcCommunities.get(j));
+        List<int[]> gtcCommunities = F1Evaluator.loadCommunities(gtcCommunitiesFile);
+        List<int[]> detectedCommunities = F1Evaluator.loadCommunities(detectedCommunitiesFile);
+
+        return new F1Evaluator(gtcCommunities).averageF1Score(detectedCommunities);
+    }
+
+    /**
+     * Evaluate the detected communities with the selected quality metrics, each score being logged like the average
+     * F1 score. Only the inputs needed by the selected metrics are read: the ground-truth communities, the edges
+     * (conductance, modularity) or the graph index (triangle participation).
+     *
+     * @param metrics the metrics to compute
+     * @return the score of each metric
+     */
+    public Map<QualityEvaluator.Metric, Double> evaluate(Set<QualityEvaluator.Metric> metrics) {
+        System.out.println("[INFO]: evaluating " + this.getClass().getSimpleName() + " " + metrics);
+
+        List<int[]> detectedCommunities = F1Evaluator.loadCommunities(detectedCommunitiesFile);
+        boolean needsGroundTruth = metrics.stream().anyMatch(QualityEvaluator.Metric::needsGroundTruth);
+        List<int[]> gtcCommunities = needsGroundTruth ? F1Evaluator.loadCommunities(gtcCommunitiesFile) : List.of();
+        Graph graph = metrics.contains(QualityEvaluator.Metric.TRIANGLE_PARTICIPATION) ? getGraph() : null;
+
+        Map<QualityEvaluator.Metric, Double> scores;
+        try {
+            scores = new QualityEvaluator(detectedCommunities, nNodes).evaluate(metrics, gtcCommunities, edgesFile,
+                    graph);
+        } catch (IOException e) {
+            throw new IllegalStateException("[ERROR]: evaluation failed: " + e.getMessage(), e);
+        }
+        if (logger != null) {
+            for (Map.Entry<QualityEvaluator.Metric, Double> score : scores.entrySet()) {
+                logger.info(String.format("[%s] | [%s] | [%s] | [seed %d]: %.5f", dataset,
+                        score.getKey().name().toLowerCase().replace('_', '-'), this.getClass().getSimpleName(),
+                        random.getSeed(), score.getValue()));
             }
         }
+        return scores;
+    }
 
-        // Compute F1score(detectedCommunities, gtcCommunities)
-        double f1AverageDetectedToGtc = 0;
-        for (double[] matrix : f1Matrix) {
-            double max = Double.MIN_VALUE;
-            for (double v : matrix) {
-                max = Math.max(max, v);
-            }
-            f1AverageDetectedToGtc += max;
+    abstract void run();
+
+    public int getNodes() {
+        return nNodes;
+    }
+
+    /**
+     * Retrieve the adjacency of the graph, memory-mapped from the CSR index built at validation. If the index is
+     * missing or does not match the graph, it is built again from the edges, and stored for later runs.
+     *
+     * @return the graph
+     */
+    public synchronized Graph getGraph() {
+        if (graph == null) {
+            graph = Graph.openIfValid(graphFile, nNodes, nEdges);
         }
-        f1AverageDetectedToGtc = f1AverageDetectedToGtc / detectedCommunities.size();
-
-        // Compute F1score(gtcCommunities, detectedCommunities)
-        double f1AverageGtcToDetected = 0;
-        for (int j = 0; j < f1Matrix[0].length; j++) {
-            double max = Double.MIN_VALUE;
-            for (double[] matrix : f1Matrix) {
-                max = Math.max(max, matrix[j]);
+        if (graph == null) {
+            System.out.println("[INFO]: building graph index");
+            try {
+                graph = Graph.build(edgesFile, getDegrees(), graphFile);
+            } catch (IOException e) {
+                throw new IllegalStateException("[ERROR]: graph index not built: " + e.getMessage(), e);
             }
-            f1AverageGtcToDetected += max;
         }
-        f1AverageGtcToDetected = f1AverageGtcToDetected / gtcCommunities.size();
-
-        // Compute and return average F1 score
-        return (f1AverageDetectedToGtc + f1AverageGtcToDetected) / 2;
+        return graph;
     }
 
     /**
-     * Load communities into memory from corresponding file.
+     * Retrieve the degree of each node from the cached degree distribution, or with a pass over the edges.
      *
-     * @param communitiesFile the file containing the communities.
-     * @return a list of sets containing the communities (node ids)
+     * @return the degree of each node
+     * @throws IOException if the edges cannot be read
      */
-    private static List<Set<Integer>> loadCommunities(String communitiesFile) {
-        List<Set<Integer>> communities = new ArrayList<>();
-
-        try (BufferedReader br = new BufferedReader(new FileReader(communitiesFile))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] nodes = line.split("\\s+");
-                Set<Integer> community = new HashSet<>();
-                for (String node : nodes) {
-                    community.add(Integer.parseInt(node));
+    private int[] getDegrees() throws IOException {
+        DegreeDistribution distribution = DegreeDistribution.readIfValid(degreesFile);
+        if (distribution != null && distribution.getNodes() == nNodes) {
+            return distribution.getDegrees();
+        }
+        int[] degrees = new int[nNodes];
+        int[] batch = new int[2 * EdgeSource.BATCH_SIZE];
+        try (EdgeSource edges = EdgeSource.open(edgesFile)) {
+            int n;
+            while ((n = edges.read(batch)) > 0) {
+                for (int e = 0; e < 2 * n; e++) {
+                    degrees[batch[e]] += 1;
                 }
-                communities.add(community);
             }
-        } catch (IOException e) {
-            System.err.println("[ERROR]: " + e.getMessage());
         }
-        return communities;
+        return degrees;
+    }
+
+    public long getEdges() {
+        return nEdges;
     }
 
     /**
-     * Compute F1 score between two communities.
+     * Set the minimum size of the detected communities, smaller ones are filtered out before being stored.
      *
-     * @param gtcCommunity      the ground-truth community
-     * @param detectedCommunity the detected community
-     * @return the f1 score between the two communities
+     * @param filterCommunityThreshold the minimum size of a detected community
      */
-    protected static double F1Score(Set<Integer> gtcCommunity, Set<Integer> detectedCommunity) {
-        // Compute intersection between the two sets
-        Set<Integer> intersection = new HashSet<>(detectedCommunity);
-        intersection.retainAll(gtcCommunity);
-
-        // Compute precision
-        double precision = (double) intersection.size() / detectedCommunity.size();
-        // Compute recall
-        double recall = (double) intersection.size() / gtcCommunity.size();
-
-        // Avoid division by 0
-        if (precision + recall == 0) {
-            return 0;
+    public void setFilterCommunityThreshold(int filterCommunityThreshold) {
+        if (filterCommunityThreshold < 0) {
+            throw new IllegalArgumentException("[ERROR]: filter community threshold must not be negative!");
         }
+        this.filterCommunityThreshold = filterCommunityThreshold;
+    }
 
-        // Compute and return F1 score
-        return 2 * (precision * recall) / (precision + recall);
+    /**
+     * Measure the next executions: processed edges, throughput, and the histograms and gauges of the algorithm. The
+     * metrics are cleared at the start of each execution.
+     *
+     * @param metrics the metrics, null to disable
+     */
+    public void setMetrics(RunMetrics metrics) {
+        this.metrics = metrics;
     }
 
-    abstract void run();
+    public RunMetrics getMetrics() {
+        return metrics;
+    }
 
-    public int getNodes() {
-        return nNodes;
+    /**
+     * Seed the random numbers of the next executions, so that two executions with the same seed draw the same
+     * numbers. The seed is recorded in the checkpoints and in the metrics of the runs.
+     *
+     * @param seed the seed
+     */
+    public void setSeed(long seed) {
+        this.random = new RandomSource(seed);
     }
 
-    public int getEdges() {
-        return nEdges;
+    public long getSeed() {
+        return random.getSeed();
+    }
+
+    /**
+     * Read and parse the edges stream of the next executions on background threads: an I/O thread and nParsers parser
+     * threads, overlapping with the processing of the edges. The edges are processed in the same order.
+     *
+     * @param nParsers the number of parser threads, 0 to read the edges on the processing thread
+     */
+    public void setPipeline(int nParsers) {
+        if (nParsers < 0) {
+            throw new IllegalArgumentException("[ERROR]: number of parser threads must not be negative!");
+        }
+        this.nParsers = nParsers;
+    }
+
+    /**
+     * Open an edges stream of an execution, pipelined if enabled.
+     *
+     * @param file the (text) edges list file
+     * @return the edge source
+     * @throws IOException if the edges list cannot be opened
+     */
+    protected EdgeSource openEdges(String file) throws IOException {
+        return EdgeSource.open(file, nParsers);
+    }
+
+    /**
+     * Write a checkpoint of the run every given number of edges, so that an interrupted run can resume from it. The
+     * checkpoint file is deleted once the run completes.
+     *
+     * @param checkpointFile     the checkpoint file, null to disable checkpoints
+     * @param checkpointInterval the number of edges between two checkpoints
+     */
+    public void setCheckpoint(String checkpointFile, long checkpointInterval) {
+        if (checkpointFile != null && checkpointInterval < 1) {
+            throw new IllegalArgumentException("[ERROR]: checkpoint interval must be positive!");
+        }
+        this.checkpointFile = checkpointFile;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Resume the next execution from the checkpoint file, if it holds a checkpoint of the same run (algorithm,
+     * dataset and configuration). Otherwise the execution starts from the beginning of the stream.
+     *
+     * @param resume whether to resume from the checkpoint
+     */
+    public void setResume(boolean resume) {
+        this.resume = resume;
     }
 }
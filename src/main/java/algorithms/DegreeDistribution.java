@@ -0,0 +1,176 @@
+/*
+ * algorithms.DegreeDistribution
+ *
+ * @description: Degree of each node of a graph together with the degree histogram (number of nodes per degree). It is
+ *               computed while validating a dataset and cached in a binary file next to it, so that the degree
+ *               distribution (e.g. SCoDA's threshold) is known without reading the edges again.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class DegreeDistribution {
+
+    private static final int MAGIC = 0x44454752; // "DEGR"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16; // magic, version, # nodes, max degree
+
+    private final int[] degrees;
+    private final int[] histogram;
+
+    /**
+     * Build the degree distribution from the node degrees.
+     *
+     * @param degrees the degree of each node
+     */
+    public DegreeDistribution(int[] degrees) {
+        this.degrees = degrees;
+        this.histogram = histogram(degrees, degrees.length);
+    }
+
+    private DegreeDistribution(int[] degrees, int[] histogram) {
+        this.degrees = degrees;
+        this.histogram = histogram;
+    }
+
+    /**
+     * Compute the degree histogram of the first nNodes nodes.
+     *
+     * @param degrees the node degrees
+     * @param nNodes  the number of nodes to consider
+     * @return the number of nodes for each degree
+     */
+    public static int[] histogram(int[] degrees, int nNodes) {
+        int maxDegree = 0;
+        for (int i = 0; i < nNodes; i++) {
+            maxDegree = Math.max(maxDegree, degrees[i]);
+        }
+        int[] histogram = new int[maxDegree + 1];
+        for (int i = 0; i < nNodes; i++) {
+            histogram[degrees[i]]++;
+        }
+        return histogram;
+    }
+
+    /**
+     * Compute the mode of a degree histogram, ignoring leaf nodes (i.e. degree equal to 1). Ties are broken in favor
+     * of the lowest degree.
+     *
+     * @param histogram the number of nodes for each degree
+     * @return the mode of the degree distribution
+     */
+    public static int mode(int[] histogram) {
+        int maxDegree = 0;
+        int maxCount = 0;
+        for (int degree = 0; degree < histogram.length; degree++) {
+            if (degree != 1 && histogram[degree] > maxCount) {
+                maxDegree = degree;
+                maxCount = histogram[degree];
+            }
+        }
+        return maxDegree;
+    }
+
+    /**
+     * @return the mode of the degree distribution, ignoring leaf nodes
+     */
+    public int mode() {
+        return mode(histogram);
+    }
+
+    public int[] getDegrees() {
+        return degrees;
+    }
+
+    public int[] getHistogram() {
+        return histogram;
+    }
+
+    public int getNodes() {
+        return degrees.length;
+    }
+
+    /**
+     * Store the degree distribution: header, node degrees and histogram.
+     *
+     * @param file the output file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(String file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + Integer.BYTES * (degrees.length + histogram.length))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(degrees.length).putInt(histogram.length - 1);
+        buffer.asIntBuffer().put(degrees).put(histogram);
+        buffer.position(buffer.capacity()).flip();
+
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Load a degree distribution stored with write.
+     *
+     * @param file the degree distribution file
+     * @return the degree distribution
+     * @throws IOException if the file cannot be read or is not a valid degree distribution file
+     */
+    public static DegreeDistribution read(String file) throws IOException {
+        Path path = Paths.get(file);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("invalid degree distribution file");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // read the whole file
+            }
+            buffer.flip();
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("invalid degree distribution file: unknown format");
+            }
+            int nNodes = buffer.getInt();
+            int maxDegree = buffer.getInt();
+            if (buffer.remaining() != Integer.BYTES * ((long) nNodes + maxDegree + 1)) {
+                throw new IOException("invalid degree distribution file: truncated");
+            }
+            IntBuffer ints = buffer.asIntBuffer();
+            int[] degrees = new int[nNodes];
+            int[] histogram = new int[maxDegree + 1];
+            ints.get(degrees).get(histogram);
+            return new DegreeDistribution(degrees, histogram);
+        }
+    }
+
+    /**
+     * Load a degree distribution if its file exists and is valid.
+     *
+     * @param file the degree distribution file
+     * @return the degree distribution, null if not available
+     */
+    public static DegreeDistribution readIfValid(String file) {
+        if (!Files.isRegularFile(Paths.get(file))) {
+            return null;
+        }
+        try {
+            return read(file);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
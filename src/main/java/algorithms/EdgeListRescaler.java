@@ -0,0 +1,381 @@
+/*
+ * algorithms.EdgeListRescaler
+ *
+ * @description: Parallel rescaling of the node ids of a SNAP dataset. The input files are split into chunks aligned
+ *               to line boundaries, which are memory-mapped and parsed byte by byte on several threads. Node ids are
+ *               mapped to dense ids in order of first appearance in the edges file, exactly as a sequential scan
+ *               would: each chunk collects its first-seen ids, which are merged in chunk order. Chunks are then
+ *               remapped in parallel and written in order, so the outputs do not depend on the number of threads.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.*;
+
+public class EdgeListRescaler {
+
+    private static final int CHUNK_SIZE = 1 << 26; // 64 MB, bounds the memory of each in-flight chunk
+
+    private final int nThreads;
+
+    private NodeIdMap nodeIds;
+    private int[] degrees;
+
+    /**
+     * @param nThreads the number of threads parsing the chunks
+     */
+    public EdgeListRescaler(int nThreads) {
+        if (nThreads < 1) {
+            throw new IllegalArgumentException("[ERROR]: number of threads must be positive!");
+        }
+        this.nThreads = nThreads;
+    }
+
+    /**
+     * Rescale the node ids of an edges file, writing both the text and the binary edges files. Lines that are not two
+     * non-negative integers separated by whitespace (comments, headers) are skipped.
+     *
+     * @param infile  the edges file to rescale
+     * @param outfile the rescaled edges file
+     * @throws IOException if the files cannot be read or written
+     */
+    public void rescaleEdges(String infile, String outfile) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        try (FileChannel channel = FileChannel.open(Paths.get(infile), StandardOpenOption.READ)) {
+            long[] bounds = splitLines(channel);
+            int nChunks = bounds.length - 1;
+
+            // Dense ids in order of first appearance: chunk-local first-seen ids, merged in chunk order
+            NodeIdMap ids = new NodeIdMap();
+            forEachChunk(executor, nChunks, c -> {
+                NodeIdMap local = new NodeIdMap();
+                parseEdges(map(channel, bounds, c), (u, v) -> {
+                    local.getOrAssign(u);
+                    local.getOrAssign(v);
+                });
+                return local;
+            }, local -> {
+                for (int i = 0; i < local.size(); i++) {
+                    ids.getOrAssign(local.originalId(i));
+                }
+            });
+            nodeIds = ids;
+            degrees = new int[ids.size()];
+
+            // Remap the chunks in parallel (read-only lookups), write them in order
+            try (OutputStream text = new BufferedOutputStream(new FileOutputStream(outfile), 1 << 20);
+                 BinaryEdgeWriter binary = new BinaryEdgeWriter(EdgeSource.binaryFileFor(outfile))) {
+                binary.setNodes(ids.size());
+                forEachChunk(executor, nChunks, c -> remapChunk(map(channel, bounds, c)), chunk -> {
+                    text.write(chunk.text, 0, chunk.textLength);
+                    binary.write(chunk.edges, chunk.nEdges);
+                    for (int i = 0; i < 2 * chunk.nEdges; i++) {
+                        degrees[chunk.edges[i]]++;
+                    }
+                });
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Rescale the node ids of a communities file, one community per line, with the mapping built by rescaleEdges.
+     * Nodes that do not appear in any edge are dropped.
+     *
+     * @param infile  the communities file to rescale
+     * @param outfile the rescaled communities file
+     * @throws IOException if the files cannot be read or written
+     */
+    public void rescaleCommunities(String infile, String outfile) throws IOException {
+        if (nodeIds == null) {
+            throw new IllegalStateException("[ERROR]: edges must be rescaled before communities!");
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        try (FileChannel channel = FileChannel.open(Paths.get(infile), StandardOpenOption.READ);
+             OutputStream out = new BufferedOutputStream(new FileOutputStream(outfile), 1 << 20)) {
+            long[] bounds = splitLines(channel);
+            forEachChunk(executor, bounds.length - 1, c -> remapCommunities(map(channel, bounds, c)),
+                    chunk -> out.write(chunk.text, 0, chunk.textLength));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the mapping from original to dense node ids
+     */
+    public NodeIdMap getNodeIds() {
+        return nodeIds;
+    }
+
+    /**
+     * @return the degree of each (rescaled) node
+     */
+    public int[] getDegrees() {
+        return degrees;
+    }
+
+    /**
+     * Parse and remap the edges of a chunk, formatting them as text as well.
+     */
+    private RemappedChunk remapChunk(ByteBuffer buffer) {
+        RemappedChunk chunk = new RemappedChunk(buffer.limit());
+        parseEdges(buffer, (u, v) -> chunk.addEdge(nodeIds.get(u), nodeIds.get(v)));
+        return chunk;
+    }
+
+    /**
+     * Remap the communities of a chunk: whitespace separated tokens, non-numeric ones are skipped.
+     */
+    private RemappedChunk remapCommunities(ByteBuffer buffer) {
+        RemappedChunk chunk = new RemappedChunk(buffer.limit());
+        int n = buffer.limit();
+        int p = 0;
+        while (p < n) {
+            int lineEnd = lineEnd(buffer, p);
+            boolean first = true;
+            while (p < lineEnd) {
+                while (p < lineEnd && isSpace(buffer.get(p))) p++;
+                int tokenStart = p;
+                while (p < lineEnd && !isSpace(buffer.get(p))) p++;
+                long node = parseInt(buffer, tokenStart, p);
+                int id = node >= 0 ? nodeIds.get((int) node) : -1;
+                if (id >= 0) {
+                    if (!first) {
+                        chunk.addByte(' ');
+                    }
+                    chunk.addInt(id);
+                    first = false;
+                }
+            }
+            chunk.addByte('\n');
+            p = nextLine(buffer, lineEnd);
+        }
+        return chunk;
+    }
+
+    /**
+     * Split a file into chunks, the boundaries are right after a newline.
+     *
+     * @return the chunk boundaries, chunk c spans [bounds[c], bounds[c + 1])
+     */
+    private long[] splitLines(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int nChunks = (int) Math.max(nThreads, (size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        long[] bounds = new long[nChunks + 1];
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+
+        int n = 1;
+        for (int c = 1; c < nChunks; c++) {
+            long pos = Math.max(size * c / nChunks, bounds[n - 1]);
+            // Move the boundary after the next newline
+            boolean found = false;
+            while (!found && pos < size) {
+                probe.clear();
+                int read = channel.read(probe, pos);
+                for (int i = 0; i < read && !found; i++) {
+                    pos++;
+                    found = probe.get(i) == '\n';
+                }
+            }
+            if (pos > bounds[n - 1] && pos < size) {
+                bounds[n++] = pos;
+            }
+        }
+        bounds[n++] = size;
+        return Arrays.copyOf(bounds, n);
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long[] bounds, int chunk) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, bounds[chunk], bounds[chunk + 1] - bounds[chunk]);
+    }
+
+    /**
+     * Run a task on each chunk in parallel and consume the results in chunk order. At most 2 * nThreads chunks are in
+     * flight, so that the results waiting to be consumed are bounded.
+     */
+    private <T> void forEachChunk(ExecutorService executor, int nChunks, ChunkTask<T> task,
+                                  ChunkConsumer<T> consumer) throws IOException {
+        Deque<Future<T>> inFlight = new ArrayDeque<>();
+        try {
+            int next = 0;
+            while (next < nChunks || !inFlight.isEmpty()) {
+                while (next < nChunks && inFlight.size() < 2 * nThreads) {
+                    int chunk = next++;
+                    inFlight.add(executor.submit(() -> task.apply(chunk)));
+                }
+                consumer.accept(inFlight.poll().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("[ERROR]: interrupted while rescaling node ids", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("[ERROR]: worker failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            for (Future<T> future : inFlight) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Parse the edges of a chunk. A line is an edge if it matches ^\d+\s+\d+$ and both ids fit in an int.
+     */
+    private static void parseEdges(ByteBuffer buffer, EdgeConsumer consumer) {
+        int n = buffer.limit();
+        int p = 0;
+        while (p < n) {
+            int lineEnd = lineEnd(buffer, p);
+            int sep = p;
+            while (sep < lineEnd && isDigit(buffer.get(sep))) sep++;
+            int second = sep;
+            while (second < lineEnd && isSpace(buffer.get(second))) second++;
+            if (sep > p && second > sep) {
+                long u = parseInt(buffer, p, sep);
+                long v = parseInt(buffer, second, lineEnd);
+                if (u >= 0 && v >= 0) {
+                    consumer.accept((int) u, (int) v);
+                }
+            }
+            p = nextLine(buffer, lineEnd);
+        }
+    }
+
+    /**
+     * Parse a non-negative int from the bytes in [from, to).
+     *
+     * @return the value, or -1 if the bytes are not all digits or the value does not fit in an int
+     */
+    private static long parseInt(ByteBuffer buffer, int from, int to) {
+        if (from == to) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            byte b = buffer.get(i);
+            if (!isDigit(b)) {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+            if (value > Integer.MAX_VALUE) {
+                return -1;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @return the position of the line terminator (\n or \r) ending the line starting at p, or the limit
+     */
+    private static int lineEnd(ByteBuffer buffer, int p) {
+        int n = buffer.limit();
+        while (p < n) {
+            byte b = buffer.get(p);
+            if (b == '\n' || b == '\r') {
+                break;
+            }
+            p++;
+        }
+        return p;
+    }
+
+    /**
+     * @return the start of the line following the terminator at lineEnd, \r\n counts as a single terminator
+     */
+    private static int nextLine(ByteBuffer buffer, int lineEnd) {
+        if (lineEnd + 1 < buffer.limit() && buffer.get(lineEnd) == '\r' && buffer.get(lineEnd + 1) == '\n') {
+            return lineEnd + 2;
+        }
+        return lineEnd + 1;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == 0x0B || b == '\f';
+    }
+
+    /**
+     * Remapped edges of a chunk, as (u, v) pairs and as text.
+     */
+    private static class RemappedChunk {
+        int[] edges = new int[1024];
+        int nEdges = 0;
+        byte[] text;
+        int textLength = 0;
+
+        RemappedChunk(int expectedTextLength) {
+            text = new byte[Math.max(1024, expectedTextLength)];
+        }
+
+        void addEdge(int u, int v) {
+            if (2 * nEdges + 2 > edges.length) {
+                edges = Arrays.copyOf(edges, edges.length << 1);
+            }
+            edges[2 * nEdges] = u;
+            edges[2 * nEdges + 1] = v;
+            nEdges++;
+            addInt(u);
+            addByte(' ');
+            addInt(v);
+            addByte('\n');
+        }
+
+        void addByte(char c) {
+            if (textLength == text.length) {
+                text = Arrays.copyOf(text, text.length << 1);
+            }
+            text[textLength++] = (byte) c;
+        }
+
+        void addInt(int value) {
+            if (textLength + 10 > text.length) {
+                text = Arrays.copyOf(text, text.length << 1);
+            }
+            int nDigits = 1;
+            for (int v = value; v >= 10; v /= 10) {
+                nDigits++;
+            }
+            for (int i = textLength + nDigits - 1; i >= textLength; i--) {
+                text[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            textLength += nDigits;
+        }
+    }
+
+    @FunctionalInterface
+    private interface EdgeConsumer {
+        void accept(int u, int v);
+    }
+
+    @FunctionalInterface
+    private interface ChunkTask<T> {
+        T apply(int chunk) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ChunkConsumer<T> {
+        void accept(T result) throws IOException;
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * algorithms.EdgeShuffler
+ *
+ * @description: External-memory random permutation of an edges list. Edges are scattered into temporary bucket files
+ *               by a uniformly random key, each bucket is then shuffled in memory as packed longs (Fisher Yates) and
+ *               the buckets are concatenated into a binary edges file. The result is a uniform permutation of the
+ *               edges, computed with a bounded heap and sequential disk accesses only, and is determined by the
+ *               random generator given to the shuffler.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+public class EdgeShuffler {
+
+    // size of the write buffer of each bucket
+    private static final int BUCKET_BUFFER_SIZE = 64 * 1024;
+    // expected fill ratio of a bucket w.r.t. the memory budget, leaves room for the random variance of bucket sizes
+    private static final double BUCKET_FILL_RATIO = 0.8;
+    // maximum number of edges of a bucket, bounded by the maximum array length
+    private static final long MAX_BUCKET_EDGES = 1L << 30;
+
+    private final long memoryBudget;
+    private final Path tmpDir;
+    private final SplittableRandom rand;
+
+    /**
+     * @param memoryBudget the heap (bytes) available for shuffling a bucket in memory
+     * @param tmpDir       the directory for the temporary bucket files
+     * @param rand         the random generator of the permutations
+     */
+    public EdgeShuffler(long memoryBudget, String tmpDir, SplittableRandom rand) {
+        if (memoryBudget < Long.BYTES) {
+            throw new IllegalArgumentException("[ERROR]: shuffle memory budget too small!");
+        }
+        this.memoryBudget = memoryBudget;
+        this.tmpDir = Paths.get(tmpDir);
+        this.rand = rand;
+    }
+
+    /**
+     * Randomly permute the edges of an edges list into a binary edges file.
+     *
+     * @param edgesFile the edges list to shuffle
+     * @param outFile   the binary file for the shuffled edges
+     * @param nNodes    the number of nodes of the graph
+     * @param nEdges    the (expected) number of edges of the graph
+     * @throws IOException if the files cannot be read or written
+     */
+    public void shuffle(String edgesFile, String outFile, int nNodes, long nEdges) throws IOException {
+        long bucketCapacity = Math.max(1, (long) (memoryBudget / Long.BYTES * BUCKET_FILL_RATIO));
+        bucketCapacity = Math.min(bucketCapacity, MAX_BUCKET_EDGES);
+        int nBuckets = (int) Math.max(1, (nEdges + bucketCapacity - 1) / bucketCapacity);
+
+        try (BinaryEdgeWriter writer = new BinaryEdgeWriter(outFile)) {
+            writer.setNodes(nNodes);
+            if (nBuckets == 1) {
+                shuffleInMemory(edgesFile, writer, nEdges);
+            } else {
+                shuffleExternal(edgesFile, writer, nBuckets);
+            }
+        }
+    }
+
+    /**
+     * Shuffle the whole edges list in memory, when it fits the memory budget.
+     */
+    private void shuffleInMemory(String edgesFile, BinaryEdgeWriter writer, long nEdges) throws IOException {
+        long[] edges = new long[(int) Math.max(16, nEdges)];
+        int size = 0;
+
+        int[] batch = new int[2 * EdgeSource.BATCH_SIZE];
+        try (EdgeSource source = EdgeSource.open(edgesFile)) {
+            int n;
+            while ((n = source.read(batch)) > 0) {
+                for (int e = 0; e < 2 * n; e += 2) {
+                    if (size == edges.length) { // more edges than expected
+                        long[] grown = new long[edges.length << 1];
+                        System.arraycopy(edges, 0, grown, 0, size);
+                        edges = grown;
+                    }
+                    edges[size++] = pack(batch[e], batch[e + 1]);
+                }
+            }
+        }
+
+        shuffle(edges, size);
+        write(writer, edges, size);
+    }
+
+    /**
+     * Scatter the edges into nBuckets temporary files, then shuffle and append each bucket to the output.
+     */
+    private void shuffleExternal(String edgesFile, BinaryEdgeWriter writer, int nBuckets) throws IOException {
+        Path[] bucketFiles = new Path[nBuckets];
+        try {
+            // Scatter the edges into the buckets by random key
+            FileChannel[] buckets = new FileChannel[nBuckets];
+            ByteBuffer[] buffers = new ByteBuffer[nBuckets];
+            try {
+                for (int b = 0; b < nBuckets; b++) {
+                    bucketFiles[b] = Files.createTempFile(tmpDir, "shuffle_bucket_", ".tmp");
+                    buckets[b] = FileChannel.open(bucketFiles[b], StandardOpenOption.WRITE);
+                    buffers[b] = ByteBuffer.allocateDirect(BUCKET_BUFFER_SIZE).order(ByteOrder.nativeOrder());
+                }
+
+                int[] batch = new int[2 * EdgeSource.BATCH_SIZE];
+                try (EdgeSource source = EdgeSource.open(edgesFile)) {
+                    int n;
+                    while ((n = source.read(batch)) > 0) {
+                        for (int e = 0; e < 2 * n; e += 2) {
+                            int b = rand.nextInt(nBuckets);
+                            if (!buffers[b].hasRemaining()) {
+                                flush(buckets[b], buffers[b]);
+                            }
+                            buffers[b].putLong(pack(batch[e], batch[e + 1]));
+                        }
+                    }
+                }
+                for (int b = 0; b < nBuckets; b++) {
+                    flush(buckets[b], buffers[b]);
+                }
+            } finally {
+                for (FileChannel bucket : buckets) {
+                    if (bucket != null) {
+                        bucket.close();
+                    }
+                }
+            }
+
+            // Shuffle each bucket in memory and concatenate them
+            long[] edges = new long[0];
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUCKET_BUFFER_SIZE).order(ByteOrder.nativeOrder());
+            for (Path bucketFile : bucketFiles) {
+                try (FileChannel bucket = FileChannel.open(bucketFile, StandardOpenOption.READ)) {
+                    int size = (int) (bucket.size() / Long.BYTES);
+                    if (size > edges.length) {
+                        edges = new long[size];
+                    }
+                    int read = 0;
+                    while (read < size) {
+                        buffer.clear();
+                        while (buffer.hasRemaining() && bucket.read(buffer) >= 0) {
+                            // fill the buffer
+                        }
+                        buffer.flip();
+                        int n = buffer.remaining() / Long.BYTES;
+                        if (n == 0) {
+                            throw new IOException("unexpected end of shuffle bucket " + bucketFile);
+                        }
+                        buffer.asLongBuffer().get(edges, read, n);
+                        read += n;
+                    }
+                    shuffle(edges, size);
+                    write(writer, edges, size);
+                }
+                Files.delete(bucketFile);
+            }
+        } finally {
+            for (Path bucketFile : bucketFiles) {
+                if (bucketFile != null) {
+                    Files.deleteIfExists(bucketFile);
+                }
+            }
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Randomly shuffle packed edges using Fisher Yates algorithm.
+     *
+     * @param edges the packed edges to be shuffled
+     * @param size  the number of edges
+     */
+    private void shuffle(long[] edges, int size) {
+        for (int i = size - 1; i > 0; i--) {
+            int j = rand.nextInt(0, i + 1);
+            long temp = edges[i];
+            edges[i] = edges[j];
+            edges[j] = temp;
+        }
+    }
+
+    private static void write(BinaryEdgeWriter writer, long[] edges, int size) throws IOException {
+        for (int i = 0; i < size; i++) {
+            writer.write((int) (edges[i] >>> 32), (int) edges[i]);
+        }
+    }
+
+    private static long pack(int u, int v) {
+        return ((long) u << 32) | (v & 0xFFFFFFFFL);
+    }
+}
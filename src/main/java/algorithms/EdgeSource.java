@@ -0,0 +1,113 @@
+/*
+ * algorithms.EdgeSource
+ *
+ * @description: Abstraction over an edges list that is consumed as a stream of (u, v) int pairs. The compact binary
+ *               format written by the validation step is preferred, the text edges list is kept as a fallback.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+public abstract class EdgeSource implements Closeable {
+
+    // number of edges read at once by the algorithms
+    public static final int BATCH_SIZE = 8192;
+
+    /**
+     * Open the edges list, using its binary counterpart if available, otherwise falling back to the text file.
+     *
+     * @param edgesFile the (text) edges list file
+     * @return the edge source for the edges list
+     * @throws IOException if neither the binary nor the text file can be opened
+     */
+    public static EdgeSource open(String edgesFile) throws IOException {
+        String binaryFile = binaryFileFor(edgesFile);
+        if (BinaryEdgeSource.isValid(binaryFile)) {
+            return new BinaryEdgeSource(binaryFile);
+        }
+        return new TextEdgeSource(edgesFile);
+    }
+
+    /**
+     * Open the edges list as EdgeSource.open does, reading and parsing it on background threads if requested.
+     *
+     * @param edgesFile the (text) edges list file
+     * @param nParsers  the number of parser threads of the pipeline, 0 to read on the calling thread
+     * @return the edge source for the edges list
+     * @throws IOException if neither the binary nor the text file can be opened
+     */
+    public static EdgeSource open(String edgesFile, int nParsers) throws IOException {
+        return nParsers > 0 ? new PipelinedEdgeSource(edgesFile, nParsers) : open(edgesFile);
+    }
+
+    /**
+     * Retrieve the binary edges file corresponding to a text edges file.
+     *
+     * @param edgesFile the text edges file
+     * @return the binary edges file
+     */
+    public static String binaryFileFor(String edgesFile) {
+        if (edgesFile.endsWith(".bin")) {
+            return edgesFile;
+        }
+        if (edgesFile.endsWith(".txt")) {
+            return edgesFile.substring(0, edgesFile.length() - ".txt".length()) + ".bin";
+        }
+        return edgesFile + ".bin";
+    }
+
+    /**
+     * Check whether a binary edges file exists for the given edges file.
+     *
+     * @param edgesFile the text edges file
+     * @return true if the binary edges file exists
+     */
+    public static boolean hasBinary(String edgesFile) {
+        return Files.exists(Paths.get(binaryFileFor(edgesFile)));
+    }
+
+    /**
+     * Read the next edges into the batch, as consecutive (u, v) pairs.
+     *
+     * @param batch the batch to fill, its length must be even
+     * @return the number of edges read, 0 when the stream is exhausted
+     * @throws IOException if the underlying file cannot be read
+     */
+    public abstract int read(int[] batch) throws IOException;
+
+    /**
+     * Skip the next edges of the stream, e.g. the edges already processed before a checkpoint.
+     *
+     * @param nEdges the number of edges to skip
+     * @return the number of edges skipped, less than nEdges if the stream is exhausted
+     * @throws IOException if the underlying file cannot be read
+     */
+    public long skip(long nEdges) throws IOException {
+        int[] batch = new int[2 * BATCH_SIZE];
+        long skipped = 0;
+        while (skipped < nEdges) {
+            int n = read(nEdges - skipped >= BATCH_SIZE ? batch : new int[(int) (2 * (nEdges - skipped))]);
+            if (n == 0) {
+                break;
+            }
+            skipped += n;
+        }
+        return skipped;
+    }
+
+    /**
+     * @return the number of nodes of the graph, -1 if unknown
+     */
+    public abstract int getNodes();
+
+    /**
+     * @return the number of edges of the graph, -1 if unknown
+     */
+    public abstract long getEdges();
+}
@@ -0,0 +1,176 @@
+/*
+ * algorithms.F1Evaluator
+ *
+ * @description: Average F1 score between detected and ground-truth communities. Instead of scoring every pair of
+ *               communities, the intersections are counted through an inverted index from each node to the
+ *               ground-truth communities containing it, so only the pairs sharing at least one node are scored. The
+ *               best score of each detected (row) and ground-truth (column) community is kept without storing the
+ *               score matrix, and the detected communities are scored in parallel.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+public class F1Evaluator {
+
+    // number of chunks of detected communities per available processor
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final List<int[]> gtcCommunities;
+    private final MembershipIndex index; // ground-truth communities of each node
+
+    /**
+     * Build the inverted index of the ground-truth communities.
+     *
+     * @param gtcCommunities the ground-truth communities, as arrays of distinct node ids
+     */
+    public F1Evaluator(List<int[]> gtcCommunities) {
+        this.gtcCommunities = gtcCommunities;
+        this.index = new MembershipIndex(gtcCommunities, 0);
+    }
+
+    /**
+     * Compute average F1 score between the detected communities and the ground-truth communities.
+     *
+     * @param detectedCommunities the detected communities, as arrays of distinct node ids
+     * @return the average F1 score
+     */
+    public double averageF1Score(List<int[]> detectedCommunities) {
+        int nDetected = detectedCommunities.size();
+        int nGtc = gtcCommunities.size();
+        if (nDetected == 0 || nGtc == 0) {
+            return 0;
+        }
+
+        int nChunks = Math.min(nDetected, CHUNKS_PER_THREAD * Runtime.getRuntime().availableProcessors());
+        PartialScore total = IntStream.range(0, nChunks).parallel()
+                .mapToObj(chunk -> score(detectedCommunities, (int) ((long) nDetected * chunk / nChunks),
+                        (int) ((long) nDetected * (chunk + 1) / nChunks)))
+                .reduce(PartialScore::merge)
+                .orElseThrow();
+
+        // Compute F1score(detectedCommunities, gtcCommunities)
+        double f1AverageDetectedToGtc = total.rowMaxSum / nDetected;
+
+        // Compute F1score(gtcCommunities, detectedCommunities)
+        double f1AverageGtcToDetected = 0;
+        for (double max : total.columnMax) {
+            f1AverageGtcToDetected += max;
+        }
+        f1AverageGtcToDetected = f1AverageGtcToDetected / nGtc;
+
+        // Compute and return average F1 score
+        return (f1AverageDetectedToGtc + f1AverageGtcToDetected) / 2;
+    }
+
+    /**
+     * Score a range of detected communities against all the ground-truth communities sharing nodes with them.
+     *
+     * @param detectedCommunities the detected communities
+     * @param from                the first detected community of the range
+     * @param to                  the detected community after the last one of the range
+     * @return the sum of the row maxima and the column maxima of the range
+     */
+    private PartialScore score(List<int[]> detectedCommunities, int from, int to) {
+        int nGtc = gtcCommunities.size();
+        PartialScore partial = new PartialScore(nGtc);
+        int[] intersections = new int[nGtc];
+        int[] touched = new int[nGtc];
+
+        for (int i = from; i < to; i++) {
+            int[] detected = detectedCommunities.get(i);
+
+            // Count the intersection with each ground-truth community sharing nodes with the detected one
+            int nTouched = 0;
+            for (int node : detected) {
+                if (!index.isCovered(node)) {
+                    continue;
+                }
+                for (int k = index.from(node); k < index.to(node); k++) {
+                    int g = index.community(k);
+                    if (intersections[g]++ == 0) {
+                        touched[nTouched++] = g;
+                    }
+                }
+            }
+
+            // Score the pairs, F1 = 2 * precision * recall / (precision + recall) = 2 |D n G| / (|D| + |G|)
+            double rowMax = 0;
+            for (int t = 0; t < nTouched; t++) {
+                int g = touched[t];
+                double f1 = 2.0 * intersections[g] / (detected.length + gtcCommunities.get(g).length);
+                rowMax = Math.max(rowMax, f1);
+                partial.columnMax[g] = Math.max(partial.columnMax[g], f1);
+                intersections[g] = 0;
+            }
+            partial.rowMaxSum += rowMax;
+        }
+        return partial;
+    }
+
+    /**
+     * Load communities from file, one community per line, as arrays of sorted distinct node ids.
+     *
+     * @param communitiesFile the file containing the communities
+     * @return the communities
+     */
+    public static List<int[]> loadCommunities(String communitiesFile) {
+        List<int[]> communities = new ArrayList<>();
+
+        try (IntLineReader reader = new IntLineReader(communitiesFile)) {
+            int n;
+            while ((n = reader.readLine()) >= 0) {
+                if (n > 0) {
+                    communities.add(distinct(Arrays.copyOf(reader.getValues(), n)));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[ERROR]: " + e.getMessage());
+        }
+        return communities;
+    }
+
+    /**
+     * Sort an array of node ids and remove the duplicates.
+     *
+     * @param nodes the node ids
+     * @return the sorted distinct node ids
+     */
+    static int[] distinct(int[] nodes) {
+        Arrays.sort(nodes);
+        int size = 0;
+        for (int i = 0; i < nodes.length; i++) {
+            if (i == 0 || nodes[i] != nodes[i - 1]) {
+                nodes[size++] = nodes[i];
+            }
+        }
+        return size == nodes.length ? nodes : Arrays.copyOf(nodes, size);
+    }
+
+    /**
+     * Row and column maxima of a range of detected communities.
+     */
+    private static class PartialScore {
+        final double[] columnMax;
+        double rowMaxSum = 0;
+
+        PartialScore(int nGtc) {
+            this.columnMax = new double[nGtc];
+        }
+
+        PartialScore merge(PartialScore other) {
+            for (int g = 0; g < columnMax.length; g++) {
+                columnMax[g] = Math.max(columnMax[g], other.columnMax[g]);
+            }
+            rowMaxSum += other.rowMaxSum;
+            return this;
+        }
+    }
+}
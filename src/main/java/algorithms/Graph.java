@@ -0,0 +1,293 @@
+/*
+ * algorithms.Graph
+ *
+ * @description: Read-only adjacency of an undirected graph in compressed sparse row (CSR) form: the neighbors of node
+ *               i are targets[offsets[i]] .. targets[offsets[i + 1] - 1], each edge being stored in both directions.
+ *               The index is built with a single pass over the edges, the offsets following from the node degrees
+ *               computed at validation, and persisted in a binary file (header, long offsets, int targets) which is
+ *               memory-mapped, so that later runs open it without reading it. Offsets are longs and both arrays are
+ *               mapped in chunks, so that graphs with more than 2^31 adjacency entries are supported.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class Graph {
+
+    public static final int MAGIC = 0x43535247; // "CSRG"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 24; // magic, version, # nodes, padding, # edges
+    public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    // entries of each mapped chunk, 1 GB of offsets or targets
+    private static final int OFFSETS_SHIFT = 27;
+    private static final int TARGETS_SHIFT = 28;
+
+    private final int nNodes;
+    private final long nEdges;
+    private final LongBuffer[] offsets;
+    private final IntBuffer[] targets;
+
+    private Graph(int nNodes, long nEdges, LongBuffer[] offsets, IntBuffer[] targets) {
+        this.nNodes = nNodes;
+        this.nEdges = nEdges;
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    /**
+     * Build the CSR index of a graph with a single pass over its edges, and store it.
+     *
+     * @param edgesFile the (validated) edges list
+     * @param degrees   the degree of each node, as counted at validation (a self-loop counts twice)
+     * @param file      the CSR file
+     * @return the graph, mapped from the CSR file
+     * @throws IOException if the edges cannot be read or the CSR file cannot be written
+     */
+    public static Graph build(String edgesFile, int[] degrees, String file) throws IOException {
+        int nNodes = degrees.length;
+        long nTargets = 0;
+        for (int degree : degrees) {
+            nTargets += degree;
+        }
+
+        Path path = Paths.get(file);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long targetsStart = HEADER_SIZE + Long.BYTES * (nNodes + 1L);
+            MappedByteBuffer[] offsetChunks = map(channel, FileChannel.MapMode.READ_WRITE, HEADER_SIZE,
+                    nNodes + 1L, Long.BYTES, OFFSETS_SHIFT);
+            MappedByteBuffer[] targetChunks = map(channel, FileChannel.MapMode.READ_WRITE, targetsStart, nTargets,
+                    Integer.BYTES, TARGETS_SHIFT);
+            LongBuffer[] offsets = asLongBuffers(offsetChunks);
+            IntBuffer[] targets = asIntBuffers(targetChunks);
+
+            // Offsets are the prefix sums of the degrees, the next free entry of each node starts at its offset
+            long[] next = new long[nNodes];
+            long offset = 0;
+            for (int node = 0; node < nNodes; node++) {
+                next[node] = offset;
+                putOffset(offsets, node, offset);
+                offset += degrees[node];
+            }
+            putOffset(offsets, nNodes, offset);
+
+            // Fill the neighbors of both endpoints of each edge
+            long nEdges = 0;
+            int[] batch = new int[2 * EdgeSource.BATCH_SIZE];
+            try (EdgeSource edges = EdgeSource.open(edgesFile)) {
+                int n;
+                while ((n = edges.read(batch)) > 0) {
+                    for (int e = 0; e < 2 * n; e += 2) {
+                        int u = batch[e];
+                        int v = batch[e + 1];
+                        if (u >= nNodes || v >= nNodes) {
+                            throw new IOException("edges do not match the number of nodes");
+                        }
+                        putTarget(targets, next[u]++, v);
+                        putTarget(targets, next[v]++, u);
+                    }
+                    nEdges += n;
+                }
+            } catch (IndexOutOfBoundsException e) {
+                throw new IOException("edges do not match the node degrees");
+            }
+            // Each node must have filled its neighbors exactly
+            for (int node = 0; node < nNodes; node++) {
+                if (next[node] != offsetOf(offsets, node + 1)) {
+                    throw new IOException("edges do not match the node degrees");
+                }
+            }
+            for (MappedByteBuffer chunk : offsetChunks) {
+                chunk.force();
+            }
+            for (MappedByteBuffer chunk : targetChunks) {
+                chunk.force();
+            }
+
+            // The header is written last, so that an incomplete file is never opened
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.order(BYTE_ORDER).putInt(MAGIC).putInt(VERSION).putInt(nNodes).putInt(0).putLong(nEdges);
+            header.force();
+            return new Graph(nNodes, nEdges, offsets, targets);
+        }
+    }
+
+    /**
+     * Open a CSR file, if it exists and matches the size of the graph.
+     *
+     * @param file   the CSR file
+     * @param nNodes the number of nodes of the graph
+     * @param nEdges the number of edges of the graph
+     * @return the graph, null if not available
+     */
+    public static Graph openIfValid(String file, int nNodes, long nEdges) {
+        Path path = Paths.get(file);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try {
+            Graph graph = open(file);
+            return graph.nNodes == nNodes && graph.nEdges == nEdges ? graph : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Open a CSR file written by build, mapping it read-only.
+     *
+     * @param file the CSR file
+     * @return the graph
+     * @throws IOException if the file cannot be read or is not a valid CSR file
+     */
+    public static Graph open(String file) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("invalid graph file: truncated");
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            header.order(BYTE_ORDER);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("invalid graph file: unknown format");
+            }
+            int nNodes = header.getInt();
+            header.getInt(); // padding
+            long nEdges = header.getLong();
+            long targetsStart = HEADER_SIZE + Long.BYTES * (nNodes + 1L);
+            if (nNodes < 0 || nEdges < 0 || channel.size() != targetsStart + Integer.BYTES * 2 * nEdges) {
+                throw new IOException("invalid graph file: truncated");
+            }
+
+            // Mappings stay valid once the channel is closed
+            LongBuffer[] offsets = asLongBuffers(map(channel, FileChannel.MapMode.READ_ONLY, HEADER_SIZE,
+                    nNodes + 1L, Long.BYTES, OFFSETS_SHIFT));
+            IntBuffer[] targets = asIntBuffers(map(channel, FileChannel.MapMode.READ_ONLY, targetsStart,
+                    2 * nEdges, Integer.BYTES, TARGETS_SHIFT));
+            return new Graph(nNodes, nEdges, offsets, targets);
+        }
+    }
+
+    /**
+     * @return the number of nodes
+     */
+    public int getNodes() {
+        return nNodes;
+    }
+
+    /**
+     * @return the number of (undirected) edges
+     */
+    public long getEdges() {
+        return nEdges;
+    }
+
+    /**
+     * @param node the node
+     * @return the degree of the node, a self-loop counting twice
+     */
+    public int degree(int node) {
+        return (int) (offsetOf(offsets, node + 1) - offsetOf(offsets, node));
+    }
+
+    /**
+     * @param node the node, or the number of nodes for the end of the last node
+     * @return the position of the first neighbor of the node in the targets
+     */
+    public long offset(int node) {
+        return offsetOf(offsets, node);
+    }
+
+    /**
+     * @param position a position in the targets, in [0, 2 * edges)
+     * @return the neighbor at the position
+     */
+    public int target(long position) {
+        return targets[(int) (position >>> TARGETS_SHIFT)].get((int) (position & ((1 << TARGETS_SHIFT) - 1)));
+    }
+
+    /**
+     * Copy the neighbors of a node.
+     *
+     * @param node the node
+     * @param dst  the destination, at least as long as the degree of the node
+     * @return the number of neighbors copied, i.e. the degree of the node
+     */
+    public int neighbors(int node, int[] dst) {
+        long from = offsetOf(offsets, node);
+        long to = offsetOf(offsets, node + 1);
+        int n = 0;
+        while (from < to) {
+            int index = (int) (from & ((1 << TARGETS_SHIFT) - 1));
+            int count = (int) Math.min(to - from, (1 << TARGETS_SHIFT) - index);
+            targets[(int) (from >>> TARGETS_SHIFT)].get(index, dst, n, count);
+            n += count;
+            from += count;
+        }
+        return n;
+    }
+
+    /**
+     * @param node the node
+     * @return the neighbors of the node
+     */
+    public int[] neighbors(int node) {
+        int[] neighbors = new int[degree(node)];
+        neighbors(node, neighbors);
+        return neighbors;
+    }
+
+    private static long offsetOf(LongBuffer[] offsets, int node) {
+        return offsets[node >>> OFFSETS_SHIFT].get(node & ((1 << OFFSETS_SHIFT) - 1));
+    }
+
+    private static void putOffset(LongBuffer[] offsets, int node, long offset) {
+        offsets[node >>> OFFSETS_SHIFT].put(node & ((1 << OFFSETS_SHIFT) - 1), offset);
+    }
+
+    private static void putTarget(IntBuffer[] targets, long position, int target) {
+        targets[(int) (position >>> TARGETS_SHIFT)].put((int) (position & ((1 << TARGETS_SHIFT) - 1)), target);
+    }
+
+    /**
+     * Map an array stored in a file in chunks of 2^shift entries.
+     */
+    private static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long start, long length,
+                                          int entrySize, int shift) throws IOException {
+        MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((length + (1L << shift) - 1) >>> shift)];
+        for (int c = 0; c < chunks.length; c++) {
+            long entries = Math.min(1L << shift, length - ((long) c << shift));
+            chunks[c] = channel.map(mode, start + ((long) c << shift) * entrySize, entries * entrySize);
+            chunks[c].order(BYTE_ORDER);
+        }
+        return chunks;
+    }
+
+    private static LongBuffer[] asLongBuffers(MappedByteBuffer[] chunks) {
+        LongBuffer[] buffers = new LongBuffer[chunks.length];
+        for (int c = 0; c < chunks.length; c++) {
+            buffers[c] = chunks[c].asLongBuffer();
+        }
+        return buffers;
+    }
+
+    private static IntBuffer[] asIntBuffers(MappedByteBuffer[] chunks) {
+        IntBuffer[] buffers = new IntBuffer[chunks.length];
+        for (int c = 0; c < chunks.length; c++) {
+            buffers[c] = chunks[c].asIntBuffer();
+        }
+        return buffers;
+    }
+}
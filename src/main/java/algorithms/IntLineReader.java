@@ -0,0 +1,209 @@
+/*
+ * algorithms.IntLineReader
+ *
+ * @description: Reader of text files made of lines of whitespace (space or tab) separated ints, such as edges lists
+ *               and communities files. The file is read in large blocks from a FileChannel and the ints are parsed
+ *               directly from the bytes into int arrays, without allocating a String per line or per token. Lines are
+ *               terminated by \n, \r or \r\n, as with BufferedReader.readLine. In follow mode the file is tailed: the
+ *               end of the file is not final, and a last line without terminator is read once completed.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class IntLineReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final boolean follow; // the file may still grow
+    private byte[] bytes = new byte[BUFFER_SIZE]; // grown if a line does not fit
+    private int position = 0;
+    private int limit = 0;
+    private boolean eof = false;
+    private long line = 0; // number of lines read, for error messages
+
+    private int[] values = new int[64];
+
+    public IntLineReader(String file) throws IOException {
+        this(file, false);
+    }
+
+    /**
+     * @param file   the file to read
+     * @param follow true to tail a growing file: readLine returns -1 at the current end of the file, and later calls
+     *               read the lines appended meanwhile
+     * @throws IOException if the file cannot be opened
+     */
+    public IntLineReader(String file, boolean follow) throws IOException {
+        this.channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+        this.follow = follow;
+    }
+
+    /**
+     * Parse the next line. The parsed ints are stored in the array returned by getValues, which is reused (and grown)
+     * by the following calls.
+     *
+     * @return the number of ints in the line, -1 at the end of the file (in follow mode, if no complete line is
+     *         available yet)
+     * @throws IOException           if the file cannot be read
+     * @throws NumberFormatException if the line contains a token that is not an int
+     */
+    public int readLine() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        line++;
+
+        int n;
+        while ((n = parseLine()) < 0) {
+            // The line continues after the buffer, parse it again once read
+            if (!fill() && follow) {
+                // Not completely written yet
+                line--;
+                return -1;
+            }
+        }
+
+        if (position < limit && bytes[position] == '\r') {
+            // \r\n is a single terminator
+            if (++position == limit) {
+                fill();
+            }
+            if (position < limit && bytes[position] == '\n') {
+                position++;
+            }
+        } else if (position < limit) {
+            position++;
+        }
+        return n;
+    }
+
+    /**
+     * Parse the ints of the line starting at position into values, moving position to the line terminator.
+     *
+     * @return the number of ints, -1 if the line is not entirely in the buffer
+     */
+    private int parseLine() {
+        byte[] bytes = this.bytes;
+        int limit = this.limit;
+        int n = 0;
+        int p = position;
+        byte c = 0;
+        while (p < limit && (c = bytes[p]) != '\n' && c != '\r') {
+            if (isSpace(c)) {
+                p++;
+                continue;
+            }
+
+            // Parse a token
+            boolean negative = c == '-';
+            if (c == '-' || c == '+') {
+                p++;
+            }
+            int tokenStart = p;
+            while (p < limit && bytes[p] == '0') {
+                p++; // leading zeros, which Integer.parseInt accepts
+            }
+            int digitsStart = p;
+            long value = 0;
+            while (p < limit && (c = bytes[p]) >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                p++;
+            }
+            if (p == limit && !eof) {
+                return -1;
+            }
+            if (p == tokenStart || p - digitsStart > 10 || (p < limit && !isSpace(c) && c != '\n' && c != '\r')
+                    || value > (negative ? (long) Integer.MAX_VALUE + 1 : Integer.MAX_VALUE)) {
+                throw invalidToken();
+            }
+            if (n == values.length) {
+                values = Arrays.copyOf(values, n << 1);
+            }
+            values[n++] = (int) (negative ? -value : value);
+        }
+        if (p == limit && !eof) {
+            return -1;
+        }
+        position = p;
+        return n;
+    }
+
+    /**
+     * @return the ints parsed by the last call to readLine
+     */
+    public int[] getValues() {
+        return values;
+    }
+
+    /**
+     * Read the next edges, i.e. the first two ints of each line, into the batch. Lines with less than two ints are
+     * skipped.
+     *
+     * @param batch the batch to fill with consecutive (u, v) pairs, its length must be even
+     * @return the number of edges read, 0 at the end of the file (in follow mode, if no complete line is available)
+     * @throws IOException if the file cannot be read
+     */
+    public int readEdges(int[] batch) throws IOException {
+        int n = 0;
+        int nValues;
+        while (n + 1 < batch.length && (nValues = readLine()) >= 0) {
+            if (nValues < 2) {
+                continue;
+            }
+            batch[n++] = values[0];
+            batch[n++] = values[1];
+        }
+        return n / 2;
+    }
+
+    /**
+     * Move the unread bytes to the start of the buffer, growing it if full, and read more bytes after them.
+     *
+     * @return false if no more bytes can be read
+     */
+    private boolean fill() throws IOException {
+        int remaining = limit - position;
+        if (remaining == bytes.length) {
+            bytes = Arrays.copyOf(bytes, bytes.length << 1);
+        } else {
+            System.arraycopy(bytes, position, bytes, 0, remaining);
+        }
+        position = 0;
+        limit = remaining;
+        if (eof) {
+            return false;
+        }
+        int read = channel.read(ByteBuffer.wrap(bytes, limit, bytes.length - limit));
+        if (read <= 0) {
+            // In follow mode the end of the file is not final
+            eof = !follow;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    private NumberFormatException invalidToken() {
+        return new NumberFormatException("invalid int at line " + line);
+    }
+
+    private static boolean isSpace(byte c) {
+        return c == ' ' || c == '\t' || c == 0x0B || c == '\f';
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * algorithms.LogHistogram
+ *
+ * @description: Histogram of non-negative long values with power-of-two buckets: bucket b counts the values of b
+ *               significant bits, i.e. in [2^(b-1), 2^b). Recording a value costs a few instructions and no
+ *               allocation, and percentiles are approximated by the upper bound of their bucket. Not thread-safe.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import java.util.Arrays;
+
+public class LogHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count = 0;
+    private long sum = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    /**
+     * Record a value, negative values are recorded as 0.
+     *
+     * @param value the value
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        counts[bucket(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Remove all the recorded values, e.g. before sampling a distribution again.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = Long.MIN_VALUE;
+    }
+
+    /**
+     * Approximate a percentile of the recorded values.
+     *
+     * @param percentile the percentile, in [0, 100]
+     * @return the upper bound of the bucket holding the percentile, capped to the maximum; 0 if no value is recorded
+     */
+    public long percentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile / 100 * count);
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts[b];
+            if (seen >= rank && counts[b] > 0) {
+                return Math.min(upperBound(b), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return the bucket of a value, the number of its significant bits
+     */
+    static int bucket(long value) {
+        return Long.SIZE - Long.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * @return the largest value of a bucket
+     */
+    static long upperBound(int bucket) {
+        return bucket == 0 ? 0 : (bucket == Long.SIZE - 1 ? Long.MAX_VALUE : (1L << bucket) - 1);
+    }
+
+    /**
+     * @param bucket the bucket, in [0, 64)
+     * @return the number of values recorded in a bucket
+     */
+    public long getCount(int bucket) {
+        return counts[bucket];
+    }
+
+    public int getBuckets() {
+        return BUCKETS;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return count == 0 ? 0 : max;
+    }
+}
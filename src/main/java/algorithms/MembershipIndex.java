@@ -0,0 +1,95 @@
+/*
+ * algorithms.MembershipIndex
+ *
+ * @description: Inverted index from each node to the communities containing it, in compressed sparse rows: the
+ *               communities of node i are communities[offsets[i]] .. communities[offsets[i + 1] - 1], in ascending
+ *               order. It is built once for a set of communities and only read afterwards, possibly by several
+ *               threads.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import java.util.Arrays;
+import java.util.List;
+
+class MembershipIndex {
+
+    private final int[] offsets; // node -> range in communities
+    private final int[] communities; // communities of each node
+
+    /**
+     * Build the index of a set of communities.
+     *
+     * @param communities the communities, as arrays of distinct node ids
+     * @param nNodes      the minimum number of nodes to index, e.g. the number of nodes of the graph
+     */
+    MembershipIndex(List<int[]> communities, int nNodes) {
+        int maxNode = nNodes - 1;
+        long nMemberships = 0;
+        for (int[] community : communities) {
+            for (int node : community) {
+                maxNode = Math.max(maxNode, node);
+            }
+            nMemberships += community.length;
+        }
+
+        // Count the memberships of each node, then fill them in community order
+        this.offsets = new int[maxNode + 2];
+        this.communities = new int[Math.toIntExact(nMemberships)];
+        for (int[] community : communities) {
+            for (int node : community) {
+                offsets[node + 1]++;
+            }
+        }
+        for (int node = 0; node <= maxNode; node++) {
+            offsets[node + 1] += offsets[node];
+        }
+        int[] next = Arrays.copyOf(offsets, maxNode + 1);
+        for (int c = 0; c < communities.size(); c++) {
+            for (int node : communities.get(c)) {
+                this.communities[next[node]++] = c;
+            }
+        }
+    }
+
+    /**
+     * @return the number of indexed nodes
+     */
+    int getNodes() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * @param node the node, in [0, getNodes())
+     * @return the position of the first community of the node
+     */
+    int from(int node) {
+        return offsets[node];
+    }
+
+    /**
+     * @param node the node, in [0, getNodes())
+     * @return the position after the last community of the node
+     */
+    int to(int node) {
+        return offsets[node + 1];
+    }
+
+    /**
+     * @param position a position in [from(node), to(node))
+     * @return the community at the position
+     */
+    int community(int position) {
+        return communities[position];
+    }
+
+    /**
+     * @param node the node
+     * @return true if the node is indexed and belongs to at least one community
+     */
+    boolean isCovered(int node) {
+        return node >= 0 && node < offsets.length - 1 && offsets[node] < offsets[node + 1];
+    }
+}
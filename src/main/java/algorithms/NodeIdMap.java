@@ -0,0 +1,143 @@
+/*
+ * algorithms.NodeIdMap
+ *
+ * @description: Open-addressing hash map from the (non-negative) node ids of a dataset to dense ids 0, 1, ..., n - 1,
+ *               assigned in order of first insertion. Keys and values are stored in parallel primitive arrays, and the
+ *               original id of each dense id is kept as well, so that the mapping can be iterated in insertion order.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import java.util.Arrays;
+
+public class NodeIdMap {
+
+    private static final int EMPTY = -1; // node ids are non-negative
+    private static final float LOAD_FACTOR = 0.6f;
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private int[] keys;
+    private int[] values;
+    private int[] originalIds; // originalIds[denseId] = node id
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    public NodeIdMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public NodeIdMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+        originalIds = new int[Math.max(16, expectedSize)];
+    }
+
+    /**
+     * Retrieve the dense id of a node.
+     *
+     * @param nodeId the node id
+     * @return the dense id, or -1 if the node is not in the map
+     */
+    public int get(int nodeId) {
+        int slot = hash(nodeId) & mask;
+        int k;
+        while ((k = keys[slot]) != EMPTY) {
+            if (k == nodeId) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Retrieve the dense id of a node, assigning the next one if the node is not in the map.
+     *
+     * @param nodeId the node id
+     * @return the dense id
+     */
+    public int getOrAssign(int nodeId) {
+        int slot = hash(nodeId) & mask;
+        int k;
+        while ((k = keys[slot]) != EMPTY) {
+            if (k == nodeId) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size >= resizeThreshold) {
+            rehash(keys.length << 1);
+            slot = hash(nodeId) & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+        }
+        if (size == originalIds.length) {
+            originalIds = Arrays.copyOf(originalIds, size << 1);
+        }
+        keys[slot] = nodeId;
+        values[slot] = size;
+        originalIds[size] = nodeId;
+        return size++;
+    }
+
+    /**
+     * Retrieve the node id of a dense id.
+     *
+     * @param denseId the dense id, in [0, size)
+     * @return the node id
+     */
+    public int originalId(int denseId) {
+        return originalIds[denseId];
+    }
+
+    /**
+     * @return a copy of the node ids, indexed by dense id
+     */
+    public int[] originalIds() {
+        return Arrays.copyOf(originalIds, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Mix the bits of a key (MurmurHash3 finalizer).
+     */
+    private static int hash(int key) {
+        key ^= key >>> 16;
+        key *= 0x85ebca6b;
+        key ^= key >>> 13;
+        key *= 0xc2b2ae35;
+        key ^= key >>> 16;
+        return key;
+    }
+}
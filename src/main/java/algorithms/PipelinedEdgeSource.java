@@ -0,0 +1,394 @@
+/*
+ * algorithms.PipelinedEdgeSource
+ *
+ * @description: Edge source reading and parsing the edges list on background threads, so that I/O and parsing overlap
+ *               with the algorithm consuming the edges. An I/O thread fills direct buffers with chunks of the file (cut
+ *               at line boundaries for a text edges list), parser threads turn each chunk into a batch of (u, v) int
+ *               pairs, and the consumer reads the batches in file order. Chunks and batches live in a fixed ring of
+ *               slots: the I/O thread reserves a slot before reading into it, so that a slow consumer holds back the
+ *               reading (backpressure) and the memory is bounded by the ring. The stream is the same as the one of
+ *               EdgeSource.open, edge for edge.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+public class PipelinedEdgeSource extends EdgeSource {
+
+    // bytes read at once by the I/O thread, a multiple of the binary edge size
+    private static final int CHUNK_SIZE = 1 << 20;
+    // slots of the ring for each parser thread, plus the ones being read and consumed
+    private static final int SLOTS_PER_PARSER = 2;
+
+    private final FileChannel channel;
+    private final boolean binary;
+    private final int nNodes;
+    private final long nEdges;
+    private final long end; // end of the edges (bytes)
+    private long start; // first byte to read, moved by skip until the pipeline starts
+    private final int nParsers;
+
+    private final Slot[] slots;
+    private final Semaphore freeSlots; // reserved by the I/O thread, released by the consumer
+    private final BlockingQueue<Slot> filledSlots; // read chunks, to be parsed
+    private ExecutorService executor = null; // started at the first read
+    private volatile Throwable failure = null;
+
+    private long next = 0; // sequence number of the slot being consumed
+    private Slot current = null;
+    private int consumed = 0; // edges of the current slot already read
+
+    /**
+     * Open an edges list, using its binary counterpart if available, otherwise the text file.
+     *
+     * @param edgesFile the (text) edges list file
+     * @param nParsers  the number of parser threads, at least 1
+     * @throws IOException if neither the binary nor the text file can be opened
+     */
+    public PipelinedEdgeSource(String edgesFile, int nParsers) throws IOException {
+        if (nParsers < 1) {
+            throw new IllegalArgumentException("[ERROR]: number of parser threads must be positive!");
+        }
+        String binaryFile = binaryFileFor(edgesFile);
+        this.binary = BinaryEdgeSource.isValid(binaryFile);
+        this.channel = FileChannel.open(Paths.get(binary ? binaryFile : edgesFile), StandardOpenOption.READ);
+        if (binary) {
+            long[] header = BinaryEdgeSource.readHeader(channel);
+            this.nNodes = (int) header[0];
+            this.nEdges = header[1];
+            this.start = BinaryEdgeSource.HEADER_SIZE;
+            this.end = BinaryEdgeSource.HEADER_SIZE + nEdges * BinaryEdgeSource.EDGE_SIZE;
+        } else {
+            this.nNodes = -1;
+            this.nEdges = -1;
+            this.start = 0;
+            this.end = Long.MAX_VALUE;
+        }
+        this.nParsers = nParsers;
+
+        int nSlots = SLOTS_PER_PARSER * nParsers + 2;
+        this.slots = new Slot[nSlots];
+        for (int s = 0; s < nSlots; s++) {
+            slots[s] = new Slot(CHUNK_SIZE, binary);
+        }
+        this.freeSlots = new Semaphore(nSlots);
+        this.filledSlots = new ArrayBlockingQueue<>(nSlots);
+    }
+
+    @Override
+    public int read(int[] batch) throws IOException {
+        if (executor == null) {
+            startPipeline();
+        }
+        while (true) {
+            if (current == null) {
+                current = slots[(int) (next % slots.length)];
+                current.ready.acquireUninterruptibly();
+                checkFailure();
+                consumed = 0;
+            }
+            if (current.last) {
+                current.ready.release(); // stay at the end of the stream
+                return 0;
+            }
+            int n = Math.min(batch.length / 2, current.nEdges - consumed);
+            if (n > 0) {
+                System.arraycopy(current.edges, 2 * consumed, batch, 0, 2 * n);
+                consumed += n;
+                return n;
+            }
+            // Slot drained, hand it back to the I/O thread
+            current = null;
+            next++;
+            freeSlots.release();
+        }
+    }
+
+    @Override
+    public long skip(long nEdges) throws IOException {
+        if (executor != null || !binary) {
+            return super.skip(nEdges);
+        }
+        // Nothing was read yet, start reading after the skipped edges
+        long skipped = Math.min(nEdges, (end - start) / BinaryEdgeSource.EDGE_SIZE);
+        start += skipped * BinaryEdgeSource.EDGE_SIZE;
+        return skipped;
+    }
+
+    private void checkFailure() throws IOException {
+        Throwable cause = failure;
+        if (cause instanceof IOException) {
+            throw new IOException(cause.getMessage(), cause);
+        } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else if (cause != null) {
+            throw new IllegalStateException("[ERROR]: edges pipeline failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Start the I/O thread and the parser threads.
+     */
+    private void startPipeline() {
+        executor = Executors.newFixedThreadPool(1 + nParsers);
+        executor.execute(this::readChunks);
+        for (int p = 0; p < nParsers; p++) {
+            executor.execute(this::parseChunks);
+        }
+    }
+
+    /**
+     * Read the file chunk by chunk into the slots, in sequence. A text chunk ends after its last line terminator, the
+     * rest of the line being moved to the next chunk.
+     */
+    private void readChunks() {
+        byte[] carry = new byte[0]; // start of a line cut by the previous chunk
+        int carryLength = 0;
+        long position = start;
+        long sequence = 0;
+        try {
+            while (true) {
+                freeSlots.acquire();
+                Slot slot = slots[(int) (sequence % slots.length)];
+                slot.buffer.clear();
+                while (slot.buffer.capacity() < carryLength) {
+                    slot.grow(); // the cut line is longer than the chunk
+                }
+                ByteBuffer buffer = slot.buffer;
+                buffer.put(carry, 0, carryLength);
+                slot.offset = position - carryLength;
+
+                // Fill the chunk, growing it if a single line does not fit
+                boolean eof;
+                int cut;
+                while (true) {
+                    while (buffer.hasRemaining() && position < end) {
+                        if (binary) {
+                            buffer.limit((int) Math.min(buffer.capacity(), buffer.position() + end - position));
+                        }
+                        int read = channel.read(buffer, position);
+                        if (read < 0) {
+                            break;
+                        }
+                        position += read;
+                    }
+                    eof = position >= end || buffer.hasRemaining();
+                    cut = eof || binary ? buffer.position() : lastTerminator(buffer);
+                    if (cut >= 0) {
+                        break;
+                    }
+                    slot.grow();
+                    buffer = slot.buffer;
+                }
+
+                // Keep the cut line for the next chunk
+                carryLength = buffer.position() - cut;
+                if (carry.length < carryLength) {
+                    carry = new byte[carryLength];
+                }
+                buffer.get(cut, carry, 0, carryLength);
+                slot.length = cut;
+                sequence++;
+                slot.last = false;
+                if (cut > 0) {
+                    filledSlots.put(slot);
+                } else {
+                    slot.nEdges = 0;
+                    slot.ready.release();
+                }
+
+                if (eof && carryLength == 0) {
+                    // Mark the end of the stream in the next slot
+                    freeSlots.acquire();
+                    Slot last = slots[(int) (sequence % slots.length)];
+                    last.last = true;
+                    last.ready.release();
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            // closed
+        } catch (Throwable e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * @return the position after the last line terminator of the buffer, -1 if none
+     */
+    private static int lastTerminator(ByteBuffer buffer) {
+        for (int p = buffer.position() - 1; p >= 0; p--) {
+            byte c = buffer.get(p);
+            if (c == '\n' || c == '\r') {
+                return p + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parse the read chunks, in any order, into the edges of their slots.
+     */
+    private void parseChunks() {
+        try {
+            while (true) {
+                Slot slot = filledSlots.take();
+                slot.nEdges = binary ? parseBinary(slot) : parseText(slot);
+                slot.ready.release();
+            }
+        } catch (InterruptedException e) {
+            // closed
+        } catch (Throwable e) {
+            fail(e);
+        }
+    }
+
+    private static int parseBinary(Slot slot) {
+        ByteBuffer buffer = slot.buffer;
+        buffer.position(0).limit(slot.length);
+        int nInts = slot.length / Integer.BYTES;
+        buffer.asIntBuffer().get(slot.edges, 0, nInts);
+        return nInts / 2;
+    }
+
+    /**
+     * Parse the first two ints of each line of a text chunk, as IntLineReader.readEdges does: lines with less than two
+     * ints are skipped, and every token must be an int.
+     *
+     * @return the number of edges
+     */
+    private static int parseText(Slot slot) {
+        ByteBuffer buffer = slot.buffer;
+        int[] edges = slot.edges;
+        int length = slot.length;
+        int n = 0;
+        int p = 0;
+        while (p < length) {
+            int nValues = 0;
+            int u = 0;
+            int v = 0;
+            byte c;
+            while (p < length && (c = buffer.get(p)) != '\n' && c != '\r') {
+                if (c == ' ' || c == '\t' || c == 0x0B || c == '\f') {
+                    p++;
+                    continue;
+                }
+
+                // Parse a token
+                boolean negative = c == '-';
+                if (c == '-' || c == '+') {
+                    p++;
+                }
+                int tokenStart = p;
+                while (p < length && buffer.get(p) == '0') {
+                    p++;
+                }
+                int digitsStart = p;
+                long value = 0;
+                while (p < length && (c = buffer.get(p)) >= '0' && c <= '9') {
+                    value = value * 10 + (c - '0');
+                    p++;
+                }
+                if (p == tokenStart || p - digitsStart > 10
+                        || (p < length && c != ' ' && c != '\t' && c != 0x0B && c != '\f' && c != '\n' && c != '\r')
+                        || value > (negative ? (long) Integer.MAX_VALUE + 1 : Integer.MAX_VALUE)) {
+                    throw new NumberFormatException("invalid int at byte " + (slot.offset + p));
+                }
+                if (nValues == 0) {
+                    u = (int) (negative ? -value : value);
+                } else if (nValues == 1) {
+                    v = (int) (negative ? -value : value);
+                }
+                nValues++;
+            }
+            if (nValues >= 2) {
+                edges[2 * n] = u;
+                edges[2 * n + 1] = v;
+                n++;
+            }
+            p++; // line terminator, \r\n being read as a line and an empty one
+        }
+        return n;
+    }
+
+    /**
+     * Record the failure of a stage and wake the consumer, which throws it.
+     */
+    private void fail(Throwable e) {
+        failure = e;
+        for (Slot slot : slots) {
+            slot.ready.release();
+        }
+    }
+
+    @Override
+    public int getNodes() {
+        return nNodes;
+    }
+
+    @Override
+    public long getEdges() {
+        return nEdges;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (executor != null) {
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        channel.close();
+    }
+
+    /**
+     * Chunk of the file and its parsed edges.
+     */
+    private static class Slot {
+        final Semaphore ready = new Semaphore(0); // released once the edges are parsed
+        final boolean binary;
+        ByteBuffer buffer;
+        int[] edges;
+        int length; // bytes of the chunk to parse
+        long offset; // position of the chunk in the file, for error messages
+        int nEdges;
+        boolean last; // end of the stream
+
+        Slot(int size, boolean binary) {
+            this.binary = binary;
+            allocate(size);
+        }
+
+        /**
+         * Double the size of the chunk, keeping its content.
+         */
+        void grow() {
+            ByteBuffer previous = buffer;
+            allocate(previous.capacity() << 1);
+            previous.flip();
+            buffer.put(previous);
+        }
+
+        private void allocate(int size) {
+            buffer = ByteBuffer.allocateDirect(size).order(BinaryEdgeSource.BYTE_ORDER);
+            // A text line holds at least 3 bytes and a terminator, except the last line of the file
+            edges = new int[binary ? size / Integer.BYTES : 2 * (size / 4 + 1)];
+        }
+    }
+}
@@ -0,0 +1,440 @@
+/*
+ * algorithms.QualityEvaluator
+ *
+ * @description: Quality metrics of the detected communities, computed only for the selected ones. The structural
+ *               metrics need no ground truth: conductance and modularity come from cut, volume and internal edges
+ *               counters per community, accumulated in a single pass over the edges through an inverted index from
+ *               each node to its (possibly overlapping) communities, while the triangle participation ratio reads
+ *               the neighborhoods from the graph index. The metrics against the ground truth (average F1, NMI and
+ *               overlapping NMI) only score the pairs of communities sharing nodes, the detected communities being
+ *               scored in parallel.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import community.CommunityDegreeMap;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.IntStream;
+
+public class QualityEvaluator {
+
+    // number of chunks of communities per available processor
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final List<int[]> detectedCommunities;
+    private final int nNodes;
+    private final MembershipIndex index; // detected communities of each node
+
+    /**
+     * Quality metrics of the detected communities.
+     */
+    public enum Metric {
+        // average F1 score against the ground-truth communities
+        AVERAGE_F1,
+        // average over the communities of cut / min(volume, 2m - volume), lower is better
+        CONDUCTANCE,
+        // sum over the communities of internal / m - (volume / 2m)^2, Newman's modularity for disjoint communities
+        MODULARITY,
+        // average over the communities of the fraction of members in a triangle within the community
+        TRIANGLE_PARTICIPATION,
+        // normalized mutual information against the ground truth, on the nodes covered by both (first community)
+        NMI,
+        // overlapping normalized mutual information (McDaid et al., max normalization) against the ground truth
+        ONMI;
+
+        /**
+         * @return true if the metric needs the ground-truth communities
+         */
+        public boolean needsGroundTruth() {
+            return this == AVERAGE_F1 || this == NMI || this == ONMI;
+        }
+    }
+
+    /**
+     * Build the index of the detected communities.
+     *
+     * @param detectedCommunities the detected communities, as arrays of sorted distinct node ids
+     * @param nNodes              the number of nodes of the graph
+     */
+    public QualityEvaluator(List<int[]> detectedCommunities, int nNodes) {
+        this.detectedCommunities = detectedCommunities;
+        this.nNodes = nNodes;
+        this.index = new MembershipIndex(detectedCommunities, nNodes);
+    }
+
+    /**
+     * Compute the selected metrics.
+     *
+     * @param metrics        the metrics to compute
+     * @param gtcCommunities the ground-truth communities, only read by the metrics needing them
+     * @param edgesFile      the edges list, only read for conductance and modularity
+     * @param graph          the graph index, only read for the triangle participation ratio
+     * @return the score of each selected metric, in the order of the Metric enum
+     * @throws IOException if the edges cannot be read
+     */
+    public Map<Metric, Double> evaluate(Set<Metric> metrics, List<int[]> gtcCommunities, String edgesFile,
+                                        Graph graph) throws IOException {
+        Map<Metric, Double> scores = new EnumMap<>(Metric.class);
+        if (metrics.contains(Metric.CONDUCTANCE) || metrics.contains(Metric.MODULARITY)) {
+            EdgeCounters counters = countEdges(edgesFile);
+            if (metrics.contains(Metric.CONDUCTANCE)) {
+                scores.put(Metric.CONDUCTANCE, counters.conductance());
+            }
+            if (metrics.contains(Metric.MODULARITY)) {
+                scores.put(Metric.MODULARITY, counters.modularity());
+            }
+        }
+        if (metrics.contains(Metric.TRIANGLE_PARTICIPATION)) {
+            scores.put(Metric.TRIANGLE_PARTICIPATION, triangleParticipation(graph));
+        }
+        if (metrics.contains(Metric.AVERAGE_F1)) {
+            scores.put(Metric.AVERAGE_F1, new F1Evaluator(gtcCommunities).averageF1Score(detectedCommunities));
+        }
+        if (metrics.contains(Metric.NMI)) {
+            scores.put(Metric.NMI, nmi(gtcCommunities));
+        }
+        if (metrics.contains(Metric.ONMI)) {
+            scores.put(Metric.ONMI, overlappingNmi(gtcCommunities));
+        }
+        return scores;
+    }
+
+    /**
+     * Count the volume, cut and internal edges of each detected community with a single pass over the edges. The
+     * communities of both endpoints of an edge are merged in ascending order: an edge is internal to the communities
+     * of both endpoints, and cut for the communities of only one of them.
+     *
+     * @param edgesFile the edges list
+     * @return the counters
+     * @throws IOException if the edges cannot be read
+     */
+    private EdgeCounters countEdges(String edgesFile) throws IOException {
+        EdgeCounters counters = new EdgeCounters(detectedCommunities.size());
+        long[] volumes = counters.volumes;
+        long[] cuts = counters.cuts;
+        long[] internals = counters.internals;
+
+        int[] batch = new int[2 * EdgeSource.BATCH_SIZE];
+        try (EdgeSource edges = EdgeSource.open(edgesFile)) {
+            int n;
+            while ((n = edges.read(batch)) > 0) {
+                for (int e = 0; e < 2 * n; e += 2) {
+                    int u = batch[e];
+                    int v = batch[e + 1];
+                    int i = index.isCovered(u) ? index.from(u) : 0;
+                    int iEnd = index.isCovered(u) ? index.to(u) : 0;
+                    int j = index.isCovered(v) ? index.from(v) : 0;
+                    int jEnd = index.isCovered(v) ? index.to(v) : 0;
+                    while (i < iEnd || j < jEnd) {
+                        int cu = i < iEnd ? index.community(i) : Integer.MAX_VALUE;
+                        int cv = j < jEnd ? index.community(j) : Integer.MAX_VALUE;
+                        if (cu == cv) {
+                            volumes[cu] += 2;
+                            internals[cu]++;
+                            i++;
+                            j++;
+                        } else if (cu < cv) {
+                            volumes[cu]++;
+                            cuts[cu]++;
+                            i++;
+                        } else {
+                            volumes[cv]++;
+                            cuts[cv]++;
+                            j++;
+                        }
+                    }
+                }
+                counters.nEdges += n;
+            }
+        }
+        return counters;
+    }
+
+    /**
+     * Compute the average triangle participation ratio of the detected communities, i.e. the fraction of the members
+     * of a community having two neighbors in the community which are neighbors of each other. Communities are scored
+     * in parallel.
+     *
+     * @param graph the graph index
+     * @return the average triangle participation ratio
+     */
+    private double triangleParticipation(Graph graph) {
+        int nCommunities = detectedCommunities.size();
+        if (nCommunities == 0) {
+            return 0;
+        }
+        int nChunks = Math.min(nCommunities, CHUNKS_PER_THREAD * Runtime.getRuntime().availableProcessors());
+        double sum = IntStream.range(0, nChunks).parallel()
+                .mapToDouble(chunk -> triangleParticipation(graph, (int) ((long) nCommunities * chunk / nChunks),
+                        (int) ((long) nCommunities * (chunk + 1) / nChunks)))
+                .sum();
+        return sum / nCommunities;
+    }
+
+    /**
+     * Sum the triangle participation ratios of a range of detected communities.
+     */
+    private double triangleParticipation(Graph graph, int from, int to) {
+        int n = Math.max(graph.getNodes(), index.getNodes());
+        int[] member = new int[n]; // stamp of the community containing each node
+        int[] adjacent = new int[n]; // stamp of the member adjacent to each node
+        int adjacentStamp = 0;
+        int[] neighbors = new int[16];
+        int[] inner = new int[16]; // neighbors of a member within the community
+
+        double sum = 0;
+        for (int c = from; c < to; c++) {
+            int[] community = detectedCommunities.get(c);
+            for (int node : community) {
+                member[node] = c + 1;
+            }
+
+            int inTriangle = 0;
+            for (int u : community) {
+                if (u >= graph.getNodes()) {
+                    continue;
+                }
+                // Mark the neighbors of u within the community
+                adjacentStamp++;
+                if (neighbors.length < graph.degree(u)) {
+                    neighbors = new int[graph.degree(u)];
+                    inner = new int[graph.degree(u)];
+                }
+                int nInner = 0;
+                int degree = graph.neighbors(u, neighbors);
+                for (int k = 0; k < degree; k++) {
+                    int v = neighbors[k];
+                    if (v != u && member[v] == c + 1 && adjacent[v] != adjacentStamp) {
+                        adjacent[v] = adjacentStamp;
+                        inner[nInner++] = v;
+                    }
+                }
+
+                // Look for a neighbor of a marked neighbor which is marked as well
+                boolean found = false;
+                for (int k = 0; k < nInner && !found; k++) {
+                    int v = inner[k];
+                    long end = graph.offset(v + 1);
+                    for (long p = graph.offset(v); p < end; p++) {
+                        int w = graph.target(p);
+                        if (w != v && adjacent[w] == adjacentStamp) {
+                            found = true;
+                            break;
+                        }
+                    }
+                }
+                if (found) {
+                    inTriangle++;
+                }
+            }
+            sum += (double) inTriangle / community.length;
+        }
+        return sum;
+    }
+
+    /**
+     * Compute the normalized mutual information between the detected and the ground-truth communities, as
+     * partitions of the nodes covered by both: each node is labelled with the first community containing it.
+     *
+     * @param gtcCommunities the ground-truth communities
+     * @return the NMI, 2 I(X:Y) / (H(X) + H(Y))
+     */
+    private double nmi(List<int[]> gtcCommunities) {
+        MembershipIndex gtcIndex = new MembershipIndex(gtcCommunities, nNodes);
+
+        // Contingency table of the labels, keyed by (detected, ground-truth) community
+        CommunityDegreeMap contingency = new CommunityDegreeMap();
+        long[] detectedSizes = new long[detectedCommunities.size()];
+        long[] gtcSizes = new long[gtcCommunities.size()];
+        long n = 0;
+        int maxNode = Math.min(index.getNodes(), gtcIndex.getNodes());
+        for (int node = 0; node < maxNode; node++) {
+            if (index.isCovered(node) && gtcIndex.isCovered(node)) {
+                int x = index.community(index.from(node));
+                int y = gtcIndex.community(gtcIndex.from(node));
+                contingency.merge(x, y, 1);
+                detectedSizes[x]++;
+                gtcSizes[y]++;
+                n++;
+            }
+        }
+        if (n == 0) {
+            return 0;
+        }
+
+        double hx = entropy(detectedSizes, n);
+        double hy = entropy(gtcSizes, n);
+        double[] mutualInformation = {0};
+        long total = n;
+        contingency.forEach((x, y, count) -> mutualInformation[0] += (double) count / total
+                * Math.log((double) count * total / (detectedSizes[x] * gtcSizes[y])));
+        return hx + hy > 0 ? 2 * mutualInformation[0] / (hx + hy) : 1;
+    }
+
+    /**
+     * Compute the overlapping normalized mutual information between the detected and the ground-truth communities,
+     * as defined by McDaid, Greene and Hurley with the max normalization: I(X:Y) / max(H(X), H(Y)), where each
+     * community is a binary variable over all the nodes of the graph, and I(X:Y) = (H(X) - H(X|Y) + H(Y) - H(Y|X)) / 2.
+     *
+     * @param gtcCommunities the ground-truth communities
+     * @return the overlapping NMI
+     */
+    private double overlappingNmi(List<int[]> gtcCommunities) {
+        MembershipIndex gtcIndex = new MembershipIndex(gtcCommunities, nNodes);
+        int n = Math.max(index.getNodes(), gtcIndex.getNodes());
+
+        double[] hxGivenY = conditionalEntropy(detectedCommunities, gtcCommunities, gtcIndex, n);
+        double[] hyGivenX = conditionalEntropy(gtcCommunities, detectedCommunities, index, n);
+        double hx = hxGivenY[0];
+        double hy = hyGivenX[0];
+        double mutualInformation = (hx - hxGivenY[1] + hy - hyGivenX[1]) / 2;
+        double normalization = Math.max(hx, hy);
+        return normalization > 0 ? mutualInformation / normalization : 1;
+    }
+
+    /**
+     * Compute the entropy of a cover X and its conditional entropy given a cover Y. H(X_k | Y) is the minimum of
+     * H(X_k | Y_l) over the communities Y_l sharing nodes with X_k, unless no pair satisfies the constraint
+     * h(a) + h(d) >= h(b) + h(c), in which case it is H(X_k): pairs sharing no node never satisfy it. The
+     * communities of X are scored in parallel.
+     *
+     * @param x      the cover X
+     * @param y      the cover Y
+     * @param yIndex the index of Y
+     * @param n      the number of nodes
+     * @return H(X) and H(X|Y), summed over the communities of X
+     */
+    private static double[] conditionalEntropy(List<int[]> x, List<int[]> y, MembershipIndex yIndex, int n) {
+        int nx = x.size();
+        if (nx == 0) {
+            return new double[2];
+        }
+        int nChunks = Math.min(nx, CHUNKS_PER_THREAD * Runtime.getRuntime().availableProcessors());
+        return IntStream.range(0, nChunks).parallel()
+                .mapToObj(chunk -> conditionalEntropy(x, y, yIndex, n, (int) ((long) nx * chunk / nChunks),
+                        (int) ((long) nx * (chunk + 1) / nChunks)))
+                .reduce((a, b) -> new double[]{a[0] + b[0], a[1] + b[1]})
+                .orElseThrow();
+    }
+
+    /**
+     * Compute H(X_k) and H(X_k | Y) for a range of communities of X.
+     */
+    private static double[] conditionalEntropy(List<int[]> x, List<int[]> y, MembershipIndex yIndex, int n,
+                                               int from, int to) {
+        int[] intersections = new int[y.size()];
+        int[] touched = new int[y.size()];
+        double hx = 0;
+        double hxGivenY = 0;
+
+        for (int k = from; k < to; k++) {
+            int[] community = x.get(k);
+            int nTouched = 0;
+            for (int node : community) {
+                if (!yIndex.isCovered(node)) {
+                    continue;
+                }
+                for (int p = yIndex.from(node); p < yIndex.to(node); p++) {
+                    int l = yIndex.community(p);
+                    if (intersections[l]++ == 0) {
+                        touched[nTouched++] = l;
+                    }
+                }
+            }
+
+            double hk = h(community.length, n) + h(n - community.length, n);
+            double hkGivenY = hk;
+            for (int t = 0; t < nTouched; t++) {
+                int l = touched[t];
+                long d = intersections[l]; // in both
+                long b = community.length - d; // in X_k only
+                long c = y.get(l).length - d; // in Y_l only
+                long a = n - b - c - d; // in none
+                intersections[l] = 0;
+                if (h(a, n) + h(d, n) >= h(b, n) + h(c, n)) {
+                    double joint = h(a, n) + h(b, n) + h(c, n) + h(d, n);
+                    hkGivenY = Math.min(hkGivenY, joint - h(c + d, n) - h(a + b, n));
+                }
+            }
+            hx += hk;
+            hxGivenY += hkGivenY;
+        }
+        return new double[]{hx, hxGivenY};
+    }
+
+    /**
+     * @return -p log2(p) for p = w / n, 0 for w = 0
+     */
+    private static double h(long w, long n) {
+        if (w <= 0) {
+            return 0;
+        }
+        double p = (double) w / n;
+        return -p * Math.log(p) / Math.log(2);
+    }
+
+    /**
+     * @return the entropy (nats) of a partition from the sizes of its parts
+     */
+    private static double entropy(long[] sizes, long n) {
+        double entropy = 0;
+        for (long size : sizes) {
+            if (size > 0) {
+                double p = (double) size / n;
+                entropy -= p * Math.log(p);
+            }
+        }
+        return entropy;
+    }
+
+    /**
+     * Volume, cut and internal edges of each detected community.
+     */
+    private static class EdgeCounters {
+        final long[] volumes;
+        final long[] cuts;
+        final long[] internals;
+        long nEdges = 0;
+
+        EdgeCounters(int nCommunities) {
+            this.volumes = new long[nCommunities];
+            this.cuts = new long[nCommunities];
+            this.internals = new long[nCommunities];
+        }
+
+        /**
+         * @return the average conductance of the communities with a non-empty cut denominator
+         */
+        double conductance() {
+            double sum = 0;
+            int counted = 0;
+            for (int c = 0; c < volumes.length; c++) {
+                long denominator = Math.min(volumes[c], 2 * nEdges - volumes[c]);
+                if (denominator > 0) {
+                    sum += (double) cuts[c] / denominator;
+                    counted++;
+                }
+            }
+            return counted > 0 ? sum / counted : 0;
+        }
+
+        /**
+         * @return the sum of the modularity contributions of the communities
+         */
+        double modularity() {
+            if (nEdges == 0) {
+                return 0;
+            }
+            double modularity = 0;
+            for (int c = 0; c < volumes.length; c++) {
+                double fraction = (double) volumes[c] / (2.0 * nEdges);
+                modularity += (double) internals[c] / nEdges - fraction * fraction;
+            }
+            return modularity;
+        }
+    }
+}
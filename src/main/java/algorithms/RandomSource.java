@@ -0,0 +1,45 @@
+/*
+ * algorithms.RandomSource
+ *
+ * @description: Seeded source of the random numbers of a run. Each component (seed selection, edges shuffle,
+ *               equality cases) draws from its own stream, derived from the run seed and the component name only, so
+ *               that the numbers drawn by a component do not depend on what the other components drew. Streams are
+ *               SplittableRandom instances: parallel executions split one independent stream per thread, in a fixed
+ *               order, so that the numbers drawn by each thread are reproducible too.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import java.util.SplittableRandom;
+
+public class RandomSource {
+
+    public static final long DEFAULT_SEED = 42;
+
+    private final long seed;
+
+    /**
+     * @param seed the seed of the run
+     */
+    public RandomSource(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Create the stream of a component. The same seed and component always give the same stream.
+     *
+     * @param component the name of the component, e.g. "SCoDA.shuffle"
+     * @return a new generator, owned by the caller
+     */
+    public SplittableRandom stream(String component) {
+        // Splitting derives both the seed and the gamma of the stream, so that the streams of two components do not
+        // overlap even if their initial seeds are close
+        return new SplittableRandom(seed ^ ((long) component.hashCode() << 32 | component.length())).split();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+}
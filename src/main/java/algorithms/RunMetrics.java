@@ -0,0 +1,285 @@
+/*
+ * algorithms.RunMetrics
+ *
+ * @description: Metrics of an algorithm run: processed edges and throughput, named histograms recorded on the hot
+ *               path (e.g. the time of each pruning round) and gauges of the algorithm state (e.g. the number of
+ *               communities or the size of the community degrees map). Edges are counted once per batch, and the
+ *               gauges are sampled at batch boundaries on the processing thread whenever the report interval elapsed,
+ *               printing a progress line; the samples and the histograms can be written as JSON or CSV at the end of
+ *               the run.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RunMetrics {
+
+    private final AtomicLong edges = new AtomicLong(); // updated by the processing threads, once per batch
+    private final Map<String, LogHistogram> histograms = new LinkedHashMap<>();
+    private final Map<String, Long> gauges = new LinkedHashMap<>();
+    private final List<Sample> samples = new ArrayList<>();
+    private Gauges source = null;
+
+    private String name = "run";
+    private Long seed = null; // seed of the random numbers of the run, null if unknown
+    private long totalEdges = -1;
+    private long reportInterval = 0; // nanoseconds between two progress reports, 0 to disable
+    private volatile long nextReport = Long.MAX_VALUE;
+    private long startTime = System.nanoTime();
+    private long endTime = -1;
+
+    /**
+     * Source of the gauges of a run, sampled on the processing thread.
+     */
+    @FunctionalInterface
+    public interface Gauges {
+        void sample(RunMetrics metrics);
+    }
+
+    /**
+     * Start measuring a run, clearing the metrics of the previous one.
+     *
+     * @param name       the name of the run, e.g. the algorithm
+     * @param totalEdges the number of edges of the stream, -1 if unknown
+     * @param source     the gauges of the run, null if none can be sampled safely (e.g. by a parallel execution)
+     */
+    public synchronized void start(String name, long totalEdges, Gauges source) {
+        this.name = name;
+        this.totalEdges = totalEdges;
+        this.source = source;
+        edges.set(0);
+        histograms.clear();
+        gauges.clear();
+        samples.clear();
+        startTime = System.nanoTime();
+        endTime = -1;
+        nextReport = reportInterval > 0 ? startTime + reportInterval : Long.MAX_VALUE;
+    }
+
+    /**
+     * Record the seed of the random numbers of the runs in the JSON summary.
+     *
+     * @param seed the seed
+     */
+    public synchronized void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Count the edges of a processed batch, reporting the progress if the report interval elapsed. Can be called from
+     * several threads, but the gauges are then sampled by any of them.
+     *
+     * @param nEdges the number of edges in the batch
+     */
+    public void addEdges(int nEdges) {
+        edges.addAndGet(nEdges);
+        if (System.nanoTime() >= nextReport) {
+            report();
+        }
+    }
+
+    /**
+     * Sample the gauges and print a progress line.
+     */
+    private synchronized void report() {
+        long now = System.nanoTime();
+        if (now < nextReport) { // reported by another thread
+            return;
+        }
+        nextReport = now + reportInterval;
+        System.out.println("[INFO]: " + sample(now).toString(totalEdges));
+    }
+
+    /**
+     * Complete the run, sampling the gauges a last time.
+     */
+    public synchronized void finish() {
+        endTime = System.nanoTime();
+        nextReport = Long.MAX_VALUE;
+        System.out.println("[INFO]: " + sample(endTime).toString(totalEdges));
+    }
+
+    private Sample sample(long now) {
+        if (source != null) {
+            source.sample(this);
+        }
+        gauges.put("heap_used_bytes", Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory());
+        Sample sample = new Sample(name, (now - startTime) / 1_000_000, edges.get(), new LinkedHashMap<>(gauges));
+        samples.add(sample);
+        return sample;
+    }
+
+    /**
+     * Retrieve a histogram, created at its first use. Histograms are not thread-safe, a histogram must be recorded by
+     * a single thread.
+     *
+     * @param name the name of the histogram
+     * @return the histogram
+     */
+    public synchronized LogHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new LogHistogram());
+    }
+
+    /**
+     * Set a gauge, called by the gauges source when sampled.
+     *
+     * @param name  the name of the gauge
+     * @param value the current value
+     */
+    public void setGauge(String name, long value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Write the summary of the run, its histograms and its samples as a JSON object.
+     *
+     * @param file the output file
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void writeJson(String file) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            writer.write(String.format(Locale.ROOT, "{\"name\": \"%s\", %s\"edges\": %d, \"elapsed_ms\": %d, "
+                            + "\"edges_per_sec\": %.1f,%n", name, seed != null ? "\"seed\": " + seed + ", " : "",
+                    edges.get(), getElapsedMillis(), getThroughput()));
+
+            writer.write("\"histograms\": {");
+            String separator = "\n";
+            for (Map.Entry<String, LogHistogram> entry : histograms.entrySet()) {
+                LogHistogram h = entry.getValue();
+                writer.write(String.format(Locale.ROOT, "%s  \"%s\": {\"count\": %d, \"mean\": %.1f, \"min\": %d, "
+                                + "\"p50\": %d, \"p90\": %d, \"p99\": %d, \"max\": %d, \"buckets\": [", separator,
+                        entry.getKey(),
+                        h.getCount(), h.getMean(), h.getMin(), h.percentile(50), h.percentile(90), h.percentile(99),
+                        h.getMax()));
+                // Up to the last non-empty bucket, bucket b holding the values of b significant bits
+                int last = h.getBuckets() - 1;
+                while (last > 0 && h.getCount(last) == 0) {
+                    last--;
+                }
+                for (int b = 0; b <= last; b++) {
+                    writer.write((b > 0 ? ", " : "") + h.getCount(b));
+                }
+                writer.write("]}");
+                separator = ",\n";
+            }
+            writer.write("\n},\n\"samples\": [");
+            separator = "\n";
+            for (Sample sample : samples) {
+                writer.write(separator + "  " + sample.toJson());
+                separator = ",\n";
+            }
+            writer.write("\n]}\n");
+        }
+    }
+
+    /**
+     * Write the samples of the run as CSV, one row per sample with the elapsed time, the processed edges, the
+     * throughput since the previous sample and the gauges.
+     *
+     * @param file the output file
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void writeCsv(String file) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            List<String> names = samples.isEmpty() ? List.of() : new ArrayList<>(samples.get(samples.size() - 1)
+                    .gauges.keySet());
+            writer.write("name,elapsed_ms,edges,edges_per_sec");
+            for (String gauge : names) {
+                writer.write("," + gauge);
+            }
+            writer.newLine();
+
+            long previousMillis = 0;
+            long previousEdges = 0;
+            for (Sample sample : samples) {
+                long millis = sample.elapsedMillis - previousMillis;
+                writer.write(String.format(Locale.ROOT, "%s,%d,%d,%.1f", sample.name, sample.elapsedMillis,
+                        sample.edges, millis > 0 ? (sample.edges - previousEdges) * 1000.0 / millis : 0.0));
+                for (String gauge : names) {
+                    Long value = sample.gauges.get(gauge);
+                    writer.write("," + (value != null ? value : ""));
+                }
+                writer.newLine();
+                previousMillis = sample.elapsedMillis;
+                previousEdges = sample.edges;
+            }
+        }
+    }
+
+    /**
+     * Print a progress line every given interval while the run is in progress.
+     *
+     * @param reportInterval the milliseconds between two progress lines, 0 to disable
+     */
+    public void setReportInterval(long reportInterval) {
+        if (reportInterval < 0) {
+            throw new IllegalArgumentException("[ERROR]: report interval must not be negative!");
+        }
+        this.reportInterval = reportInterval * 1_000_000;
+    }
+
+    public long getEdges() {
+        return edges.get();
+    }
+
+    public long getElapsedMillis() {
+        return ((endTime >= 0 ? endTime : System.nanoTime()) - startTime) / 1_000_000;
+    }
+
+    /**
+     * @return the processed edges per second since the start of the run
+     */
+    public double getThroughput() {
+        long millis = getElapsedMillis();
+        return millis > 0 ? edges.get() * 1000.0 / millis : 0;
+    }
+
+    /**
+     * Gauges of the run at some point in time.
+     */
+    private static class Sample {
+        final String name;
+        final long elapsedMillis;
+        final long edges;
+        final Map<String, Long> gauges;
+
+        Sample(String name, long elapsedMillis, long edges, Map<String, Long> gauges) {
+            this.name = name;
+            this.elapsedMillis = elapsedMillis;
+            this.edges = edges;
+            this.gauges = gauges;
+        }
+
+        String toString(long totalEdges) {
+            StringBuilder sb = new StringBuilder(name).append(": ").append(edges).append(" edges");
+            if (totalEdges > 0) {
+                sb.append(String.format(" (%.1f%%)", 100.0 * edges / totalEdges));
+            }
+            sb.append(String.format(", %.0f edges/s", elapsedMillis > 0 ? edges * 1000.0 / elapsedMillis : 0.0));
+            for (Map.Entry<String, Long> gauge : gauges.entrySet()) {
+                sb.append(", ").append(gauge.getKey()).append(" ").append(gauge.getValue());
+            }
+            return sb.toString();
+        }
+
+        String toJson() {
+            StringBuilder sb = new StringBuilder("{\"elapsed_ms\": ").append(elapsedMillis)
+                    .append(", \"edges\": ").append(edges);
+            for (Map.Entry<String, Long> gauge : gauges.entrySet()) {
+                sb.append(", \"").append(gauge.getKey()).append("\": ").append(gauge.getValue());
+            }
+            return sb.append("}").toString();
+        }
+    }
+}
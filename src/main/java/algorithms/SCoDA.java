@@ -8,28 +8,35 @@
 
 package algorithms;
 
+import community.AdaptiveIntSet;
+import community.IntSet;
+
 import java.io.*;
 import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.logging.FileHandler;
 import java.util.logging.Logger;
 import java.util.logging.SimpleFormatter;
+import java.util.stream.IntStream;
 
 public class SCoDA extends CommunityDetectionAlgorithm {
 
-    private final int SHUFFLE_BLOCK_SIZE = 1024 * 1024; // block size for shuffling edges in chunks
     private final double P = 0.5; // probability for deciding in degree equality cases
-    private final int D; // threshold for edges arrival
+    private int D; // threshold for edges arrival, -1 until known
     private final String shuffledEdgesFile;
+    private int nThreads = 1; // number of threads processing the shuffled edges
+    private long shuffleMemoryBudget = 256L * 1024 * 1024; // heap (bytes) available for shuffling the edges
+    private long thresholdSampleSize = 0; // stream prefix (edges) for estimating D online, 0 for the exact mode
 
     public SCoDA(String dir, String dataset) {
         super(dir, dataset);
 
-        this.shuffledEdgesFile = String.format("%s%s_shuffled_edges.txt", dir, dataset);
+        this.shuffledEdgesFile = String.format("%s%s_shuffled_edges.bin", dir, dataset);
         this.detectedCommunitiesFile = String.format("%s%s_%s_detected_communities.txt", dir,
                 this.getClass().getSimpleName(), dataset);
 
-        this.D = computeThreshold();
+        this.D = loadThreshold();
 
         try {
             FileHandler handler = new FileHandler("./src/logs/algorithms.SCoDA.log", true);
@@ -42,9 +49,22 @@ public class SCoDA extends CommunityDetectionAlgorithm {
         }
     }
 
+    /**
+     * Retrieve the threshold from the degree distribution cached during validation.
+     *
+     * @return the mode of the degree distribution of the graph, -1 if no valid cache is available
+     */
+    private int loadThreshold() {
+        DegreeDistribution distribution = DegreeDistribution.readIfValid(degreesFile);
+        if (distribution == null || distribution.getNodes() != nNodes) {
+            return -1;
+        }
+        return distribution.mode();
+    }
+
     /**
      * Compute the threshold as the mode of the degree distribution
-     * of the graph.
+     * of the graph, with a full pass over the edges. The degree distribution is cached for later runs.
      *
      * @return the mode of the degree distribution of the graph
      */
@@ -52,40 +72,79 @@ public class SCoDA extends CommunityDetectionAlgorithm {
         System.out.println("[INFO]: computing threshold " + this.getClass().getSimpleName());
 
         int[] degrees = new int[this.nNodes];
-        Map<Integer, Integer> degreeDistribution = new HashMap<>();
 
         // Store degree of each node
-        try (BufferedReader br = new BufferedReader(new FileReader(edgesFile))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] nodes = line.split(" ");
-                int u = Integer.parseInt(nodes[0]);
-                int v = Integer.parseInt(nodes[1]);
-                degrees[u] += 1;
-                degrees[v] += 1;
+        int[] batch = new int[2 * EdgeSource.BATCH_SIZE];
+        try (EdgeSource edges = openEdges(edgesFile)) {
+            int n;
+            while ((n = edges.read(batch)) > 0) {
+                for (int e = 0; e < 2 * n; e++) {
+                    degrees[batch[e]] += 1;
+                }
             }
         } catch (IOException e) {
             System.err.println("[ERROR]: " + e.getMessage());
         }
 
-        // Populate the degree distribution map
-        for (Integer degree : degrees) {
-            degreeDistribution.put(degree, degreeDistribution.getOrDefault(degree, 0) + 1);
+        DegreeDistribution distribution = new DegreeDistribution(degrees);
+        try {
+            distribution.write(degreesFile);
+        } catch (IOException e) {
+            System.err.println("[ERROR]: " + e.getMessage());
+        }
+        return distribution.mode();
+    }
+
+    /**
+     * Estimate the threshold from a prefix of the (shuffled) stream. Each node degree is extrapolated from its degree
+     * in the prefix, scaled by the fraction of the stream covered by the prefix, and the threshold is the mode of the
+     * extrapolated degrees. The estimate is exact when the prefix is the whole stream.
+     *
+     * @param prefix       the edges of the prefix, as consecutive (u, v) pairs
+     * @param nPrefixEdges the number of edges in the prefix
+     * @param nStreamEdges the number of edges of the whole stream, -1 if unknown
+     * @return the estimated mode of the degree distribution of the graph
+     */
+    private int estimateThreshold(int[] prefix, int nPrefixEdges, long nStreamEdges) {
+        int[] sampleDegrees = new int[nNodes];
+        for (int e = 0; e < 2 * nPrefixEdges; e++) {
+            sampleDegrees[prefix[e]] += 1;
         }
 
-        // Remove leaf nodes (i.e. degree equal to 1)
-        degreeDistribution.remove(1);
+        double scale = nStreamEdges > nPrefixEdges ? (double) nStreamEdges / nPrefixEdges : 1;
+        int[] sampleHistogram = DegreeDistribution.histogram(sampleDegrees, nNodes);
+        int[] histogram = new int[(int) Math.ceil((sampleHistogram.length - 1) * scale) + 1];
+        for (int degree = 1; degree < sampleHistogram.length; degree++) { // unseen nodes are ignored
+            histogram[(int) Math.round(degree * scale)] += sampleHistogram[degree];
+        }
+        return DegreeDistribution.mode(histogram);
+    }
 
-        // Compute the mode of the degree distribution
-        int maxDegree = 0;
-        int maxCount = 0;
-        for (Map.Entry<Integer, Integer> entry : degreeDistribution.entrySet()) {
-            if (entry.getValue() > maxCount) {
-                maxDegree = entry.getKey();
-                maxCount = entry.getValue();
+    /**
+     * Read the first edges of the stream, up to the threshold sample size.
+     *
+     * @param edges the stream
+     * @return the prefix, as consecutive (u, v) pairs
+     * @throws IOException if the stream cannot be read
+     */
+    private int[] readPrefix(EdgeSource edges) throws IOException {
+        long capacity = Math.min(thresholdSampleSize, Integer.MAX_VALUE / 2 - 8);
+        if (edges.getEdges() >= 0) {
+            capacity = Math.min(capacity, edges.getEdges());
+        }
+        int[] prefix = new int[(int) (2 * capacity)];
+        int[] batch = new int[2 * EdgeSource.BATCH_SIZE];
+        int size = 0;
+        while (size < prefix.length) {
+            int[] target = prefix.length - size >= batch.length ? batch : new int[prefix.length - size];
+            int n = edges.read(target);
+            if (n == 0) {
+                break;
             }
+            System.arraycopy(target, 0, prefix, size, 2 * n);
+            size += 2 * n;
         }
-        return maxDegree;
+        return size < prefix.length ? Arrays.copyOf(prefix, size) : prefix;
     }
 
     /**
@@ -93,127 +152,391 @@ public class SCoDA extends CommunityDetectionAlgorithm {
      */
     @Override
     public void run() {
-        System.out.println("[INFO]: executing " + this.getClass().getSimpleName());
+        System.out.println("[INFO]: executing " + this.getClass().getSimpleName() + " with seed " + random.getSeed());
+        if (checkpointFile != null && nThreads > 1) {
+            throw new IllegalStateException("[ERROR]: checkpoints require the sequential execution!");
+        }
+
+        // Resume from the checkpoint of an interrupted run, reusing its shuffled edges and threshold
+        Checkpoint checkpoint = checkpointFile != null && resume ? readCheckpoint() : null;
+        if (checkpoint == null) {
+            // Shuffle the edges list
+            shuffleStream();
+
+            // Compute the threshold with a full pass, unless cached or estimated online from the stream
+            if (D < 0 && thresholdSampleSize <= 0) {
+                D = computeThreshold();
+            }
+        }
+
+        int[] communities = nThreads > 1 ? detectParallel() : detectSequential(checkpoint);
+        if (metrics != null) {
+            metrics.finish();
+        }
+
+        // Filter communities with less than <filterCommunityThreshold> nodes
+        List<IntSet> filteredCommunities = filterCommunities(communities);
+        // Write out the detected (filtered) communities
+        writeDetectedCommunities(filteredCommunities);
+
+        System.out.println("[INFO]: finished " + this.getClass().getSimpleName());
+    }
 
-        Random rand = new Random();
+    /**
+     * Process the shuffled edges as a single stream, writing checkpoints if enabled. Checkpoints are taken between
+     * two batches, once at least the checkpoint interval of edges was processed since the previous one.
+     *
+     * @param checkpoint the checkpoint to resume from, null to start from the beginning of the stream
+     * @return the community of each node
+     */
+    private int[] detectSequential(Checkpoint checkpoint) {
+        SplittableRandom rand = random.stream("SCoDA.ties");
         // Keep track of node degrees and communities
-        int[] degrees = new int[nNodes];
-        int[] communities = new int[nNodes];
+        int[] degrees;
+        int[] communities;
+        long position = 0; // number of processed edges
+        long draws = 0; // number of random numbers drawn
+
+        if (checkpoint != null) {
+            degrees = checkpoint.degrees;
+            communities = checkpoint.communities;
+            D = checkpoint.D;
+            position = checkpoint.position;
+            // Draw the random numbers of the checkpointed edges again, so that the rest of the stream sees the same
+            // numbers as an uninterrupted run
+            for (draws = 0; draws < checkpoint.draws; draws++) {
+                rand.nextDouble();
+            }
+        } else {
+            degrees = new int[nNodes];
+            communities = new int[nNodes];
 
-        // Shuffle the edges list
-        shuffleStream(SHUFFLE_BLOCK_SIZE);
+            // Initialize communities
+            for (int i = 0; i < nNodes; i++) {
+                communities[i] = i;
+            }
+        }
 
-        // Initialize communities
-        for (int i = 0; i < nNodes; i++) {
-            communities[i] = i;
+        if (metrics != null) {
+            metrics.setSeed(random.getSeed());
+            metrics.start(this.getClass().getSimpleName(), nEdges, m -> m.setGauge("threshold", D));
         }
 
         // Process the edges as a stream
-        try (BufferedReader br = new BufferedReader(new FileReader(shuffledEdgesFile))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] nodes = line.split("\\s+");
-                int u = Integer.parseInt(nodes[0]);
-                int v = Integer.parseInt(nodes[1]);
-
-                // Update edge's adjacent nodes degree
-                degrees[u] += 1;
-                degrees[v] += 1;
-
-                // Communities update rule
-                if (degrees[u] <= D && degrees[v] <= D) {
-                    if (degrees[u] < degrees[v]) {
+        int[] batch = new int[2 * EdgeSource.BATCH_SIZE];
+        try (Checkpointer checkpointer = checkpointFile != null
+                ? new Checkpointer(checkpointFile, checkpointKey(), checkpointInterval) : null;
+             EdgeSource edges = openEdges(shuffledEdgesFile)) {
+            if (checkpoint != null) {
+                checkpointer.resumedFrom(position);
+                if (edges.skip(position) < position) {
+                    throw new IOException("shuffled edges shorter than the checkpoint");
+                }
+            } else if (thresholdSampleSize > 0) {
+                // Estimate the threshold online from a prefix of the stream, processed once the threshold is known
+                int[] prefix = readPrefix(edges);
+                D = estimateThreshold(prefix, prefix.length / 2, edges.getEdges());
+                draws += processEdges(prefix, prefix.length / 2, degrees, communities, rand);
+                position = prefix.length / 2;
+                if (metrics != null) {
+                    metrics.addEdges(prefix.length / 2);
+                }
+            }
+
+            int n;
+            while ((n = edges.read(batch)) > 0) {
+                draws += processEdges(batch, n, degrees, communities, rand);
+                position += n;
+                if (metrics != null) {
+                    metrics.addEdges(n);
+                }
+                if (checkpointer != null && checkpointer.isDue(position)) {
+                    checkpointer.write(position, checkpointContent(position, draws, degrees, communities));
+                }
+            }
+            if (checkpointer != null) {
+                checkpointer.complete();
+            }
+        } catch (IOException e) {
+            System.err.println("[ERROR]: " + e.getMessage());
+        }
+        return communities;
+    }
+
+    /**
+     * Copy the state of the sequential execution for a checkpoint.
+     *
+     * @param position    the number of processed edges
+     * @param draws       the number of random numbers drawn
+     * @param degrees     the node degrees
+     * @param communities the communities
+     * @return the content of the checkpoint
+     */
+    private CheckpointFile.Content checkpointContent(long position, long draws, int[] degrees, int[] communities) {
+        int threshold = D;
+        int[] degreesCopy = degrees.clone();
+        int[] communitiesCopy = communities.clone();
+        return writer -> {
+            writer.writeLong(position);
+            writer.writeLong(draws);
+            writer.writeInt(threshold);
+            writer.writeInts(degreesCopy, degreesCopy.length);
+            writer.writeInts(communitiesCopy, communitiesCopy.length);
+        };
+    }
+
+    /**
+     * Read the checkpoint of an interrupted run, if valid.
+     *
+     * @return the checkpoint, null if no checkpoint is available
+     */
+    private Checkpoint readCheckpoint() {
+        try (CheckpointFile.Reader reader = CheckpointFile.openIfValid(checkpointFile, checkpointKey())) {
+            if (reader == null) {
+                System.out.println("[INFO]: no checkpoint to resume from, starting from the beginning");
+                return null;
+            }
+            Checkpoint checkpoint = new Checkpoint();
+            checkpoint.position = reader.readLong();
+            checkpoint.draws = reader.readLong();
+            checkpoint.D = reader.readInt();
+            checkpoint.degrees = reader.readInts();
+            checkpoint.communities = reader.readInts();
+            if (checkpoint.degrees.length != nNodes || checkpoint.communities.length != nNodes) {
+                throw new IOException("invalid checkpoint: wrong number of nodes");
+            }
+            System.out.println("[INFO]: resuming from the checkpoint at " + checkpoint.position + " edges");
+            return checkpoint;
+        } catch (IOException e) {
+            System.err.println("[ERROR]: checkpoint not restored: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return the key identifying the run in its checkpoints: graph size, seed and shuffled edges file, whose size and
+     * modification time identify the shuffle the checkpoint was taken on
+     */
+    private String checkpointKey() {
+        File shuffled = new File(shuffledEdgesFile);
+        return String.format("%s %s %d %d %d %d %d", this.getClass().getSimpleName(), shuffledEdgesFile, nNodes,
+                nEdges, random.getSeed(), shuffled.length(), shuffled.lastModified());
+    }
+
+    /**
+     * Apply the communities update rule to a batch of edges.
+     *
+     * @param batch       the edges, as consecutive (u, v) pairs
+     * @param nEdges      the number of edges in the batch
+     * @param degrees     the node degrees
+     * @param communities the communities
+     * @param rand        the random generator for the equality cases
+     * @return the number of random numbers drawn, i.e. of equality cases
+     */
+    int processEdges(int[] batch, int nEdges, int[] degrees, int[] communities, SplittableRandom rand) {
+        int draws = 0;
+        for (int e = 0; e < 2 * nEdges; e += 2) {
+            int u = batch[e];
+            int v = batch[e + 1];
+
+            // Update edge's adjacent nodes degree
+            degrees[u] += 1;
+            degrees[v] += 1;
+
+            // Communities update rule
+            if (degrees[u] <= D && degrees[v] <= D) {
+                if (degrees[u] < degrees[v]) {
+                    communities[u] = communities[v];
+                } else if (degrees[v] < degrees[u]) {
+                    communities[v] = communities[u];
+                } else { // equality case -> arbitrarily decide based on P
+                    draws++;
+                    if (rand.nextDouble() >= P) {
                         communities[u] = communities[v];
-                    } else if (degrees[v] < degrees[u]) {
+                    } else {
                         communities[v] = communities[u];
-                    } else { // equality case -> arbitrarily decide based on P
-                        if (rand.nextDouble() >= P) {
-                            communities[u] = communities[v];
-                        } else {
-                            communities[v] = communities[u];
-                        }
                     }
                 }
             }
+        }
+        return draws;
+    }
+
+    /**
+     * Process the shuffled edges on nThreads threads, each consuming a disjoint range of the shuffled edges file.
+     * Degrees are updated with atomic increments, so that each edge sees a consistent degree for its nodes, while
+     * community labels are read and written without synchronization: a label may be overwritten by a concurrent
+     * edge, which the sequential algorithm would have processed in a different order. Since the edges are randomly
+     * shuffled, interleaving the shards is equivalent to another random order of the stream, up to these races.
+     * Each shard draws from its own split of the random stream, the races still make the result non-deterministic.
+     *
+     * @return the community of each node
+     */
+    private int[] detectParallel() {
+        AtomicIntegerArray degrees = new AtomicIntegerArray(nNodes);
+        AtomicIntegerArray communities = new AtomicIntegerArray(nNodes);
+
+        // Initialize communities
+        for (int i = 0; i < nNodes; i++) {
+            communities.setPlain(i, i);
+        }
+
+        long nShuffledEdges;
+        try (EdgeSource edges = EdgeSource.open(shuffledEdgesFile)) {
+            nShuffledEdges = edges.getEdges();
+            // Estimate the threshold from a prefix of the stream, the prefix is then processed by the first shard
+            if (thresholdSampleSize > 0) {
+                int[] prefix = readPrefix(edges);
+                D = estimateThreshold(prefix, prefix.length / 2, nShuffledEdges);
+            }
         } catch (IOException e) {
             System.err.println("[ERROR]: " + e.getMessage());
+            return IntStream.range(0, nNodes).toArray();
         }
 
-        // Filter communities with less than <FILTER_COMMUNITY_THRESHOLD> nodes
-        Map<Integer, List<Integer>> filteredCommunities = filterCommunities(communities);
-        // Write out the detected (filtered) communities
-        writeDetectedCommunities(filteredCommunities);
+        if (metrics != null) {
+            // Shards share the edges count, the threshold is fixed
+            int threshold = D;
+            metrics.setSeed(random.getSeed());
+            metrics.start(this.getClass().getSimpleName(), nShuffledEdges, m -> m.setGauge("threshold", threshold));
+        }
 
-        System.out.println("[INFO]: finished " + this.getClass().getSimpleName());
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        try {
+            List<Future<?>> workers = new ArrayList<>(nThreads);
+            SplittableRandom ties = random.stream("SCoDA.ties");
+            for (int t = 0; t < nThreads; t++) {
+                long fromEdge = nShuffledEdges * t / nThreads;
+                long toEdge = nShuffledEdges * (t + 1) / nThreads;
+                SplittableRandom rand = ties.split(); // split in shard order, before the shards start
+                workers.add(executor.submit(() -> {
+                    processShard(fromEdge, toEdge, degrees, communities, rand);
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("[ERROR]: interrupted while executing " + getClass().getSimpleName(), e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("[ERROR]: worker failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int[] result = new int[nNodes];
+        for (int i = 0; i < nNodes; i++) {
+            result[i] = communities.get(i);
+        }
+        return result;
     }
 
     /**
-     * Randomly shuffle all the lines (i.e. edges) in a file in chunks using Fisher
-     * Yates algorithm.
+     * Process a range of the shuffled edges, sharing the degrees and communities with the other shards.
      *
-     * @param blockSize the block size for shuffling the file's lines in chunks.
+     * @param fromEdge    the first edge of the range
+     * @param toEdge      the edge after the last one of the range
+     * @param degrees     the shared node degrees
+     * @param communities the shared communities
+     * @param rand        the random generator of the shard, for the equality cases
+     * @throws IOException if the shuffled edges file cannot be read
      */
-    private void shuffleStream(int blockSize) {
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(edgesFile));
-             BufferedWriter writer = new BufferedWriter(new FileWriter(shuffledEdgesFile))) {
-            // Keep track of read and written lines
-            String[] lines = new String[blockSize];
-            String line;
-            int nLines = 0;
-
-            // Read lines
-            while ((line = reader.readLine()) != null) {
-                lines[nLines % blockSize] = line;
-                nLines++;
-                if (nLines == blockSize) { // shuffle and write lines
-                    shuffleLines(lines);
-                    for (String shuffledLine : lines) {
-                        writer.write(shuffledLine);
-                        writer.newLine();
+    private void processShard(long fromEdge, long toEdge, AtomicIntegerArray degrees, AtomicIntegerArray communities,
+                              SplittableRandom rand) throws IOException {
+
+        int[] batch = new int[2 * EdgeSource.BATCH_SIZE];
+        try (EdgeSource edges = new BinaryEdgeSource(shuffledEdgesFile, fromEdge, toEdge)) {
+            int n;
+            while ((n = edges.read(batch)) > 0) {
+                for (int e = 0; e < 2 * n; e += 2) {
+                    int u = batch[e];
+                    int v = batch[e + 1];
+
+                    // Update edge's adjacent nodes degree
+                    int du = degrees.incrementAndGet(u);
+                    int dv = degrees.incrementAndGet(v);
+
+                    // Communities update rule
+                    if (du <= D && dv <= D) {
+                        if (du < dv) {
+                            communities.setPlain(u, communities.getPlain(v));
+                        } else if (dv < du) {
+                            communities.setPlain(v, communities.getPlain(u));
+                        } else { // equality case -> arbitrarily decide based on P
+                            if (rand.nextDouble() >= P) {
+                                communities.setPlain(u, communities.getPlain(v));
+                            } else {
+                                communities.setPlain(v, communities.getPlain(u));
+                            }
+                        }
                     }
-                    nLines = 0;
                 }
-            }
-
-            // Shuffle and write remaining non-shuffled lines
-            int remaining = nLines % blockSize;
-            if (remaining > 0) {
-                String[] remainingLines = new String[remaining];
-                System.arraycopy(lines, 0, remainingLines, 0, remaining);
-                shuffleLines(remainingLines);
-                for (String shuffledLine : remainingLines) {
-                    writer.write(shuffledLine);
-                    writer.newLine();
+                if (metrics != null) {
+                    metrics.addEdges(n);
                 }
             }
+        }
+    }
+
+    /**
+     * Randomly permute all the edges of the edges list into the binary shuffled edges file, with an external-memory
+     * shuffle bounded by the shuffle memory budget.
+     */
+    private void shuffleStream() {
+        try {
+            EdgeShuffler shuffler = new EdgeShuffler(shuffleMemoryBudget, dir, random.stream("SCoDA.shuffle"));
+            shuffler.shuffle(edgesFile, shuffledEdgesFile, nNodes, nEdges);
         } catch (IOException e) {
             System.err.println("[ERROR]: " + e.getMessage());
         }
     }
 
     /**
-     * Filter small communities with less than FILTER_COMMUNITY_THRESHOLD nodes
+     * Group the nodes by community and filter small communities with less than filterCommunityThreshold nodes.
      *
-     * @param communities the communities to filter.
-     * @return the filtered communities.
+     * @param communities the community of each node.
+     * @return the filtered communities, in ascending community id order.
      */
-    private Map<Integer, List<Integer>> filterCommunities(int[] communities) {
+    private List<IntSet> filterCommunities(int[] communities) {
+        return filterCommunities(communities, filterCommunityThreshold);
+    }
+
+    /**
+     * Group the nodes by community and filter small communities. The nodes are grouped with a counting sort on the
+     * community ids, which are node ids.
+     *
+     * @param communities              the community of each node.
+     * @param filterCommunityThreshold the minimum size of a community.
+     * @return the filtered communities, in ascending community id order.
+     */
+    static List<IntSet> filterCommunities(int[] communities, int filterCommunityThreshold) {
+        // Count the nodes of each community
+        int[] sizes = new int[communities.length];
+        for (int community : communities) {
+            sizes[community]++;
+        }
 
-        // Convert array of communities to a dictionary
-        Map<Integer, List<Integer>> communitiesDict = new HashMap<>();
-        for (int i = 0; i < communities.length; i++) {
-            if (!communitiesDict.containsKey(communities[i])) {
-                communitiesDict.put(communities[i], new ArrayList<>());
+        // Allocate the communities to keep, then fill them in ascending node order
+        int[][] members = new int[communities.length][];
+        for (int c = 0; c < sizes.length; c++) {
+            if (sizes[c] > 0 && sizes[c] >= filterCommunityThreshold) {
+                members[c] = new int[sizes[c]];
+                sizes[c] = 0;
+            }
+        }
+        for (int node = 0; node < communities.length; node++) {
+            int c = communities[node];
+            if (members[c] != null) {
+                members[c][sizes[c]++] = node;
             }
-            communitiesDict.get(communities[i]).add(i);
         }
 
-        // Filter the communities
-        Map<Integer, List<Integer>> filteredCommunities = new HashMap<>();
-        for (Map.Entry<Integer, List<Integer>> entry : communitiesDict.entrySet()) {
-            if (entry.getValue().size() >= FILTER_COMMUNITY_THRESHOLD) {
-                filteredCommunities.put(entry.getKey(), entry.getValue());
+        List<IntSet> filteredCommunities = new ArrayList<>();
+        for (int[] nodes : members) {
+            if (nodes != null) {
+                filteredCommunities.add(AdaptiveIntSet.ofSorted(nodes, nodes.length));
             }
         }
         return filteredCommunities;
@@ -224,11 +547,12 @@ public class SCoDA extends CommunityDetectionAlgorithm {
      *
      * @param communities the communities to write out
      */
-    private void writeDetectedCommunities(Map<Integer, List<Integer>> communities) {
+    private void writeDetectedCommunities(List<IntSet> communities) {
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(detectedCommunitiesFile))) {
-            for (List<Integer> nodes : communities.values()) {
-                StringBuilder sb = new StringBuilder();
-                for (int node : nodes) {
+            StringBuilder sb = new StringBuilder();
+            for (IntSet community : communities) {
+                sb.setLength(0);
+                for (int node : community.toArray()) {
                     sb.append(node).append(" ");
                 }
                 sb.append("\n");
@@ -240,28 +564,57 @@ public class SCoDA extends CommunityDetectionAlgorithm {
     }
 
     /**
-     * Randomly shuffle a chunk of lines.
+     * Evaluate the algorithm's detected communities with average F1 score.
+     */
+    public void evaluate() {
+        System.out.println("[INFO]: evaluating " + this.getClass().getSimpleName());
+
+        double score = averageF1Score(gtcCommunitiesFile, detectedCommunitiesFile);
+        String msg = String.format("[%s] | [average-F1-score] | [%s] | [seed %d]: %.5f", dataset,
+                this.getClass().getSimpleName(), random.getSeed(), score);
+        logger.info(msg);
+    }
+
+    /**
+     * Set the number of threads processing the shuffled edges, 1 for sequential execution. The parallel execution
+     * is not deterministic and trades some quality for throughput (see README).
      *
-     * @param lines the lines to be shuffled
+     * @param nThreads the number of threads
      */
-    private void shuffleLines(String[] lines) {
-        for (int i = lines.length - 1; i > 0; i--) {
-            int j = ThreadLocalRandom.current().nextInt(0, i + 1);
-            String temp = lines[i];
-            lines[i] = lines[j];
-            lines[j] = temp;
+    public void setThreads(int nThreads) {
+        if (nThreads < 1) {
+            throw new IllegalArgumentException("[ERROR]: number of threads must be positive!");
         }
+        this.nThreads = nThreads;
     }
 
     /**
-     * Evaluate the algorithm's detected communities with average F1 score.
+     * Set the heap available for shuffling the edges. Larger graphs are shuffled through temporary bucket files.
+     *
+     * @param shuffleMemoryBudget the memory budget, in bytes
      */
-    public void evaluate() {
-        System.out.println("[INFO]: evaluating " + this.getClass().getSimpleName());
+    public void setShuffleMemoryBudget(long shuffleMemoryBudget) {
+        this.shuffleMemoryBudget = shuffleMemoryBudget;
+    }
 
-        double score = averageF1Score(gtcCommunitiesFile, detectedCommunitiesFile);
-        String msg = String.format("[%s] | [average-F1-score] | [%s]: %.5f", dataset, this.getClass().getSimpleName()
-                , score);
-        logger.info(msg);
+    /**
+     * Estimate the threshold online from the first edges of the shuffled stream instead of the exact degree
+     * distribution, so that the edges are read only once even when no degree distribution is cached.
+     *
+     * @param thresholdSampleSize the number of edges of the prefix, 0 to use the exact mode of the degree distribution
+     */
+    public void setThresholdSampleSize(long thresholdSampleSize) {
+        this.thresholdSampleSize = thresholdSampleSize;
+    }
+
+    /**
+     * State of the sequential execution restored from a checkpoint.
+     */
+    private static class Checkpoint {
+        long position; // number of processed edges
+        long draws; // number of random numbers drawn
+        int D;
+        int[] degrees;
+        int[] communities;
     }
 }
@@ -0,0 +1,523 @@
+/*
+ * algorithms.SeedSelector
+ *
+ * @description: Selection of the CoEuS seed-sets. Seeds are sampled from the ground-truth communities with a single
+ *               pass over the parsed ints of the ground-truth file, or, when no ground truth is available, taken around
+ *               hub nodes ranked by degree or by core number. Either way candidates are produced one at a time and a
+ *               subset of them is kept: all of them, the largest ones (bounded heap) or a uniform sample (reservoir).
+ *               Each seed-set is a sorted int array. Instances are immutable and created with a Builder.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class SeedSelector {
+
+    private final Source source;
+    private final Subset subset;
+    private final int count;
+
+    private SeedSelector(Builder builder) {
+        this.source = builder.source;
+        this.subset = builder.subset;
+        this.count = builder.count;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Select the seed-sets.
+     *
+     * @param gtcFile  the ground-truth communities file, one community of node ids per line, for GROUND_TRUTH
+     * @param graph    the graph, for DEGREE and CORE (null for GROUND_TRUTH)
+     * @param numSeeds the number of seeds of each seed-set
+     * @param rand     the random generator of the seeds and of the RANDOM subset
+     * @return the seed-sets, as sorted arrays of distinct node ids, in the order of their candidates
+     * @throws IOException if the ground-truth communities cannot be read
+     */
+    public List<int[]> select(String gtcFile, Graph graph, int numSeeds, SplittableRandom rand) throws IOException {
+        if (numSeeds < 1) {
+            throw new IllegalArgumentException("[ERROR]: number of seeds must be positive!");
+        }
+        return source == Source.GROUND_TRUTH ? fromCommunities(gtcFile, numSeeds, rand)
+                : fromHubs(graph, numSeeds, rand);
+    }
+
+    /**
+     * Sample the seeds of each ground-truth community, the candidates being ranked by community size. Communities
+     * smaller than the number of seeds are taken whole.
+     */
+    private List<int[]> fromCommunities(String gtcFile, int numSeeds, SplittableRandom rand) throws IOException {
+        Collector collector = new Collector(subset, count, rand);
+        int nSmaller = 0;
+
+        try (IntLineReader reader = new IntLineReader(gtcFile)) {
+            int n;
+            while ((n = reader.readLine()) >= 0) {
+                if (n == 0) {
+                    continue;
+                }
+                if (n < numSeeds) {
+                    nSmaller++;
+                }
+                // Only the kept candidates draw their seeds
+                if (collector.offer(n)) {
+                    collector.add(n, sample(reader.getValues(), n, numSeeds, rand));
+                }
+            }
+        }
+        if (nSmaller > 0) {
+            System.out.println("[INFO]: " + nSmaller + " communities smaller than " + numSeeds
+                    + " nodes are taken whole as seed-sets");
+        }
+        return collector.getSeedSets();
+    }
+
+    /**
+     * Sample distinct seeds from the values of a community with a partial Fisher Yates shuffle, done in place on the
+     * parsed values.
+     *
+     * @param values   the node ids of the community, permuted by the sampling
+     * @param n        the number of node ids
+     * @param numSeeds the number of seeds
+     * @param rand     the random generator
+     * @return the seeds, sorted
+     */
+    static int[] sample(int[] values, int n, int numSeeds, SplittableRandom rand) {
+        int k = Math.min(numSeeds, n);
+        for (int i = 0; i < k; i++) {
+            int j = i + rand.nextInt(n - i);
+            int temp = values[i];
+            values[i] = values[j];
+            values[j] = temp;
+        }
+        int[] seeds = Arrays.copyOf(values, k);
+        Arrays.sort(seeds);
+        // A ground-truth community may repeat a node
+        int size = 0;
+        for (int i = 0; i < k; i++) {
+            if (size == 0 || seeds[i] != seeds[size - 1]) {
+                seeds[size++] = seeds[i];
+            }
+        }
+        return size < k ? Arrays.copyOf(seeds, size) : seeds;
+    }
+
+    /**
+     * Take the seed-sets around hub nodes. Nodes are ranked by degree (DEGREE), or by core number and then degree
+     * (CORE); each hub not adjacent to a previous hub is a candidate, ranked in this order, whose seed-set is the hub
+     * and its best ranked neighbors.
+     */
+    private List<int[]> fromHubs(Graph graph, int numSeeds, SplittableRandom rand) {
+        if (graph == null) {
+            throw new IllegalArgumentException("[ERROR]: " + source + " seed-sets require the graph!");
+        }
+        int nNodes = graph.getNodes();
+        int[] degrees = new int[nNodes];
+        for (int node = 0; node < nNodes; node++) {
+            degrees[node] = graph.degree(node);
+        }
+        int[] order = source == Source.CORE ? order(coreNumbers(graph, degrees), degrees) : order(degrees, null);
+        int[] rank = new int[nNodes];
+        for (int i = 0; i < nNodes; i++) {
+            rank[order[i]] = i;
+        }
+
+        Collector collector = new Collector(subset, count, rand);
+        boolean[] covered = new boolean[nNodes]; // hubs and their neighbors
+        int[] neighbors = new int[16];
+        for (int i = 0; i < nNodes; i++) {
+            int hub = order[i];
+            if (degrees[hub] == 0) {
+                break; // isolated nodes come last
+            }
+            if (covered[hub]) {
+                continue;
+            }
+            if (neighbors.length < degrees[hub]) {
+                neighbors = new int[Math.max(degrees[hub], neighbors.length << 1)];
+            }
+            int degree = graph.neighbors(hub, neighbors);
+            covered[hub] = true;
+            for (int e = 0; e < degree; e++) {
+                covered[neighbors[e]] = true;
+            }
+
+            if (collector.offer(-i)) {
+                collector.add(-i, hubSeeds(hub, neighbors, degree, rank, numSeeds));
+            } else if (subset == Subset.LARGEST) {
+                break; // candidates come in rank order, no later one can be kept
+            }
+        }
+        return collector.getSeedSets();
+    }
+
+    /**
+     * @return the hub and its numSeeds - 1 best ranked neighbors, sorted
+     */
+    private static int[] hubSeeds(int hub, int[] neighbors, int degree, int[] rank, int numSeeds) {
+        int[] best = new int[numSeeds]; // sorted by rank
+        best[0] = hub;
+        int size = 1;
+        for (int e = 0; e < degree; e++) {
+            int node = neighbors[e];
+            if (node == hub || numSeeds == 1 || (size == numSeeds && rank[node] >= rank[best[size - 1]])) {
+                continue;
+            }
+            int position = size;
+            while (position > 1 && rank[best[position - 1]] >= rank[node]) {
+                position--;
+            }
+            if (position < size && best[position] == node) {
+                continue; // repeated edge
+            }
+            int last = Math.min(size, numSeeds - 1);
+            System.arraycopy(best, position, best, position + 1, last - position);
+            best[position] = node;
+            size = Math.min(size + 1, numSeeds);
+        }
+        int[] seeds = Arrays.copyOf(best, size);
+        Arrays.sort(seeds);
+        return seeds;
+    }
+
+    /**
+     * Compute the core number of each node with the bucket algorithm of Batagelj and Zaversnik, in O(nodes + edges).
+     *
+     * @param graph   the graph
+     * @param degrees the degree of each node
+     * @return the core number of each node
+     */
+    static int[] coreNumbers(Graph graph, int[] degrees) {
+        int nNodes = degrees.length;
+        int[] degree = degrees.clone(); // remaining degree, the core number once the node is removed
+        int maxDegree = 0;
+        for (int d : degree) {
+            maxDegree = Math.max(maxDegree, d);
+        }
+
+        // Nodes sorted by remaining degree, bin[d] being the first position of the nodes of degree d
+        int[] bin = new int[maxDegree + 1];
+        for (int d : degree) {
+            bin[d]++;
+        }
+        int start = 0;
+        for (int d = 0; d <= maxDegree; d++) {
+            int n = bin[d];
+            bin[d] = start;
+            start += n;
+        }
+        int[] position = new int[nNodes];
+        int[] nodes = new int[nNodes];
+        for (int node = 0; node < nNodes; node++) {
+            position[node] = bin[degree[node]]++;
+            nodes[position[node]] = node;
+        }
+        for (int d = maxDegree; d > 0; d--) {
+            bin[d] = bin[d - 1];
+        }
+        bin[0] = 0;
+
+        // Remove the nodes by increasing remaining degree, moving each neighbor down one bin
+        for (int i = 0; i < nNodes; i++) {
+            int node = nodes[i];
+            for (long e = graph.offset(node), end = graph.offset(node + 1); e < end; e++) {
+                int neighbor = graph.target(e);
+                if (degree[neighbor] > degree[node]) {
+                    int d = degree[neighbor];
+                    int first = nodes[bin[d]];
+                    if (first != neighbor) {
+                        nodes[position[neighbor]] = first;
+                        position[first] = position[neighbor];
+                        nodes[bin[d]] = neighbor;
+                        position[neighbor] = bin[d];
+                    }
+                    bin[d]++;
+                    degree[neighbor]--;
+                }
+            }
+        }
+        return degree;
+    }
+
+    /**
+     * Order the nodes by decreasing primary key, then decreasing secondary key, then increasing id, with stable
+     * counting sorts.
+     *
+     * @param primary   the primary key of each node, non-negative
+     * @param secondary the secondary key of each node, non-negative, null if none
+     * @return the ordered nodes
+     */
+    static int[] order(int[] primary, int[] secondary) {
+        int[] nodes = new int[primary.length];
+        for (int node = 0; node < nodes.length; node++) {
+            nodes[node] = node;
+        }
+        if (secondary != null) {
+            nodes = sortDescending(nodes, secondary);
+        }
+        return sortDescending(nodes, primary);
+    }
+
+    private static int[] sortDescending(int[] nodes, int[] keys) {
+        int max = 0;
+        for (int node : nodes) {
+            max = Math.max(max, keys[node]);
+        }
+        int[] start = new int[max + 2];
+        for (int node : nodes) {
+            start[max - keys[node] + 1]++;
+        }
+        for (int k = 1; k <= max + 1; k++) {
+            start[k] += start[k - 1];
+        }
+        int[] sorted = new int[nodes.length];
+        for (int node : nodes) {
+            sorted[start[max - keys[node]]++] = node;
+        }
+        return sorted;
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    public Subset getSubset() {
+        return subset;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return a label identifying the selection, used in logs and checkpoints
+     */
+    @Override
+    public String toString() {
+        return subset == Subset.ALL ? String.format("%s_%s", source.name(), subset.name())
+                : String.format("%s_%s%d", source.name(), subset.name(), count);
+    }
+
+    /**
+     * Enum containing available sources of seed-sets.
+     */
+    public enum Source {
+        // seeds sampled from each ground-truth community
+        GROUND_TRUTH,
+        // hubs of highest degree and their neighbors of highest degree
+        DEGREE,
+        // hubs of highest core number, then degree, and their best neighbors in the same order
+        CORE,
+    }
+
+    /**
+     * Enum containing available subsets of the candidate seed-sets.
+     */
+    public enum Subset {
+        // every candidate
+        ALL,
+        // the count best ranked candidates: largest communities, or first hubs
+        LARGEST,
+        // count candidates drawn uniformly at random
+        RANDOM,
+    }
+
+    /**
+     * Subset of a sequence of candidate seed-sets. Each candidate is offered with its rank key, and its seeds are only
+     * added if the offer is accepted; the kept seed-sets are returned in candidate order.
+     */
+    private static class Collector {
+        private final Subset subset;
+        private final int count;
+        private final SplittableRandom rand;
+        private long[] keys;
+        private long[] indices; // candidate index of each kept seed-set
+        private int[][] seedSets;
+        private int size = 0;
+        private long nCandidates = 0;
+        private int slot = -1; // slot of the accepted candidate, for RANDOM
+
+        Collector(Subset subset, int count, SplittableRandom rand) {
+            this.subset = subset;
+            this.count = count;
+            this.rand = rand;
+            int capacity = subset == Subset.ALL ? 16 : count;
+            this.keys = new long[capacity];
+            this.indices = new long[capacity];
+            this.seedSets = new int[capacity][];
+        }
+
+        /**
+         * Offer the next candidate.
+         *
+         * @param key the rank key of the candidate, larger is better
+         * @return true if the candidate is kept, its seeds must then be added
+         */
+        boolean offer(long key) {
+            long index = nCandidates++;
+            switch (subset) {
+                case LARGEST -> {
+                    // A candidate only replaces a strictly smaller one, earlier candidates win ties
+                    return size < count || key > keys[0];
+                }
+                case RANDOM -> {
+                    slot = index < count ? (int) index : (int) Math.min(rand.nextLong(index + 1), count);
+                    return slot < count;
+                }
+                default -> {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Add the seeds of the candidate just accepted by offer.
+         */
+        void add(long key, int[] seeds) {
+            long index = nCandidates - 1;
+            switch (subset) {
+                case LARGEST -> {
+                    // Min-heap of the kept candidates, the worst one at the root
+                    int position;
+                    if (size < count) {
+                        position = size++;
+                        while (position > 0 && worse(key, index, (position - 1) / 2)) {
+                            move((position - 1) / 2, position);
+                            position = (position - 1) / 2;
+                        }
+                    } else {
+                        position = 0;
+                        while (2 * position + 1 < size) {
+                            int child = 2 * position + 1;
+                            if (child + 1 < size && worse(keys[child + 1], indices[child + 1], child)) {
+                                child++;
+                            }
+                            if (!worse(keys[child], indices[child], key, index)) {
+                                break;
+                            }
+                            move(child, position);
+                            position = child;
+                        }
+                    }
+                    set(position, key, index, seeds);
+                }
+                case RANDOM -> {
+                    set(slot, key, index, seeds);
+                    size = Math.max(size, slot + 1);
+                }
+                default -> {
+                    if (size == keys.length) {
+                        keys = Arrays.copyOf(keys, size << 1);
+                        indices = Arrays.copyOf(indices, size << 1);
+                        seedSets = Arrays.copyOf(seedSets, size << 1);
+                    }
+                    set(size++, key, index, seeds);
+                }
+            }
+        }
+
+        /**
+         * @return true if candidate (key, index) ranks below the candidate kept at a position
+         */
+        private boolean worse(long key, long index, int position) {
+            return worse(key, index, keys[position], indices[position]);
+        }
+
+        private static boolean worse(long key, long index, long otherKey, long otherIndex) {
+            return key < otherKey || (key == otherKey && index > otherIndex);
+        }
+
+        private void move(int from, int to) {
+            set(to, keys[from], indices[from], seedSets[from]);
+        }
+
+        private void set(int position, long key, long index, int[] seeds) {
+            keys[position] = key;
+            indices[position] = index;
+            seedSets[position] = seeds;
+        }
+
+        /**
+         * @return the kept seed-sets, in candidate order
+         */
+        List<int[]> getSeedSets() {
+            Integer[] positions = new Integer[size];
+            for (int p = 0; p < size; p++) {
+                positions[p] = p;
+            }
+            Arrays.sort(positions, (a, b) -> Long.compare(indices[a], indices[b]));
+            List<int[]> result = new ArrayList<>(size);
+            for (int p : positions) {
+                result.add(seedSets[p]);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Builder of seed selectors, every parameter not set keeps its default value: all the ground-truth communities.
+     */
+    public static class Builder {
+        private Source source = Source.GROUND_TRUTH;
+        private Subset subset = Subset.ALL;
+        private int count = 0;
+
+        private Builder() {
+        }
+
+        /**
+         * @param source the source of the seed-sets
+         */
+        public Builder source(Source source) {
+            this.source = source;
+            return this;
+        }
+
+        /**
+         * Keep every candidate seed-set.
+         */
+        public Builder all() {
+            this.subset = Subset.ALL;
+            this.count = 0;
+            return this;
+        }
+
+        /**
+         * @param count the number of best ranked candidates to keep: the largest communities, or the first hubs
+         */
+        public Builder largest(int count) {
+            this.subset = Subset.LARGEST;
+            this.count = count;
+            return this;
+        }
+
+        /**
+         * @param count the number of candidates to draw uniformly at random
+         */
+        public Builder random(int count) {
+            this.subset = Subset.RANDOM;
+            this.count = count;
+            return this;
+        }
+
+        public SeedSelector build() {
+            if (source == null) {
+                throw new IllegalArgumentException("[ERROR]: seed-sets source must be set!");
+            }
+            if (subset != Subset.ALL && count < 1) {
+                throw new IllegalArgumentException("[ERROR]: number of seed-sets must be positive!");
+            }
+            return new SeedSelector(this);
+        }
+    }
+}
@@ -0,0 +1,369 @@
+/*
+ * algorithms.StreamingSCoDA
+ *
+ * @description: SCoDA over an unbounded edge stream. Edges are pushed one batch at a time, or read by tailing a
+ *               growing edges list, with node ids mapped to dense ids as they appear so that the degrees and
+ *               communities arrays grow with the number of nodes. The threshold D is the mode of a running histogram
+ *               of the node degrees: the first edges are buffered until D is first estimated from their degrees, then
+ *               processed, as SCoDA does with its threshold sample. Snapshots of the communities are cut every given
+ *               number of edges or time interval: the community labels are copied on the ingesting thread, then
+ *               grouped and written to file on a background thread while ingestion goes on.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import community.IntSet;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class StreamingSCoDA implements Closeable {
+
+    private static final double P = 0.5; // probability for deciding in degree equality cases
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    // edges between two updates of the threshold estimate
+    private static final int THRESHOLD_UPDATE_EDGES = EdgeSource.BATCH_SIZE;
+    // edges between two checks of the snapshot interval
+    private static final int CLOCK_CHECK_EDGES = 4096;
+
+    private final String snapshotPrefix;
+    private final NodeIdMap nodeIds = new NodeIdMap(INITIAL_CAPACITY); // node id -> dense id
+    private int[] degrees = new int[INITIAL_CAPACITY]; // indexed by dense id
+    private int[] communities = new int[INITIAL_CAPACITY]; // indexed by dense id, labels are dense ids
+    private int[] histogram = new int[64]; // number of nodes of each degree
+    private SplittableRandom rand = new RandomSource(RandomSource.DEFAULT_SEED).stream("StreamingSCoDA.ties");
+    private int D = 0; // threshold for edges arrival
+    private boolean fixedThreshold = false;
+    private int[] warmUp = new int[2 * THRESHOLD_UPDATE_EDGES]; // first edges, until D is estimated, null afterwards
+    private int nWarmUp = 0;
+    private long nEdges = 0;
+
+    private long snapshotEdges = 0; // edges between two snapshots, 0 to disable
+    private long snapshotInterval = 0; // milliseconds between two snapshots, 0 to disable
+    private int filterCommunityThreshold = CommunityDetectionAlgorithm.DEFAULT_FILTER_COMMUNITY_THRESHOLD;
+    private long lastSnapshotEdges = 0;
+    private long lastSnapshotTime = System.currentTimeMillis();
+    private int nSnapshots = 0;
+    private final ExecutorService snapshotWriter = Executors.newSingleThreadExecutor();
+    private Future<String> pendingSnapshot = null;
+    private volatile boolean stopped = false;
+
+    /**
+     * Create the engine. Edges must be pushed, and snapshots cut, from a single thread.
+     *
+     * @param snapshotPrefix the prefix of the snapshot files, each snapshot is written to
+     *                       "&lt;prefix&gt;_snapshot_&lt;n&gt;.txt", one community of node ids per line
+     */
+    public StreamingSCoDA(String snapshotPrefix) {
+        this.snapshotPrefix = snapshotPrefix;
+    }
+
+    /**
+     * Process an edge.
+     *
+     * @param u node 1, a non-negative id
+     * @param v node 2, a non-negative id
+     */
+    public void accept(int u, int v) {
+        if (u < 0 || v < 0) {
+            throw new IllegalArgumentException("[ERROR]: node ids must be non-negative!");
+        }
+        u = denseId(u);
+        v = denseId(v);
+        nEdges++;
+
+        if (warmUp != null) {
+            // Only the degrees are counted until the threshold is estimated from them
+            incrementDegree(u);
+            incrementDegree(v);
+            warmUp[2 * nWarmUp] = u;
+            warmUp[2 * nWarmUp + 1] = v;
+            if (++nWarmUp == THRESHOLD_UPDATE_EDGES) {
+                endWarmUp();
+            }
+        } else {
+            processEdge(u, v);
+            if (!fixedThreshold && nEdges % THRESHOLD_UPDATE_EDGES == 0) {
+                D = DegreeDistribution.mode(histogram);
+            }
+        }
+        if ((snapshotEdges > 0 && nEdges - lastSnapshotEdges >= snapshotEdges)
+                || (snapshotInterval > 0 && nEdges % CLOCK_CHECK_EDGES == 0)) {
+            checkSnapshot();
+        }
+    }
+
+    /**
+     * Apply the update rule to an edge of dense ids.
+     */
+    private void processEdge(int u, int v) {
+        // Update edge's adjacent nodes degree
+        int du = incrementDegree(u);
+        int dv = incrementDegree(v);
+
+        // Communities update rule
+        if (du <= D && dv <= D) {
+            if (du < dv) {
+                communities[u] = communities[v];
+            } else if (dv < du) {
+                communities[v] = communities[u];
+            } else { // equality case -> arbitrarily decide based on P
+                if (rand.nextDouble() >= P) {
+                    communities[u] = communities[v];
+                } else {
+                    communities[v] = communities[u];
+                }
+            }
+        }
+    }
+
+    /**
+     * Estimate the threshold from the degrees of the buffered edges, unless fixed, then process them from zero
+     * degrees. Done once the buffer is full, or earlier if the communities are needed before.
+     */
+    private void endWarmUp() {
+        if (warmUp == null) {
+            return;
+        }
+        int[] edges = warmUp;
+        warmUp = null;
+        if (!fixedThreshold) {
+            D = DegreeDistribution.mode(histogram);
+        }
+        Arrays.fill(degrees, 0, nodeIds.size(), 0);
+        Arrays.fill(histogram, 0);
+        for (int e = 0; e < 2 * nWarmUp; e += 2) {
+            processEdge(edges[e], edges[e + 1]);
+        }
+        nWarmUp = 0;
+    }
+
+    /**
+     * Process a batch of edges.
+     *
+     * @param batch  the edges, as consecutive (u, v) pairs
+     * @param nEdges the number of edges in the batch
+     */
+    public void accept(int[] batch, int nEdges) {
+        for (int e = 0; e < 2 * nEdges; e += 2) {
+            accept(batch[e], batch[e + 1]);
+        }
+    }
+
+    /**
+     * Process the edges of a (validated) edges list as it grows, until stop is called: the lines appended to the file
+     * are polled for once its end is reached.
+     *
+     * @param file         the edges list
+     * @param pollInterval the milliseconds to wait at the end of the file before polling again
+     * @throws IOException          if the file cannot be read
+     * @throws InterruptedException if interrupted while waiting for new edges
+     */
+    public void tail(String file, long pollInterval) throws IOException, InterruptedException {
+        int[] batch = new int[2 * EdgeSource.BATCH_SIZE];
+        try (IntLineReader reader = new IntLineReader(file, true)) {
+            while (!stopped) {
+                int n = reader.readEdges(batch);
+                if (n > 0) {
+                    accept(batch, n);
+                } else {
+                    // Snapshots by time are still cut while the stream is idle
+                    if (snapshotInterval > 0) {
+                        checkSnapshot();
+                    }
+                    Thread.sleep(pollInterval);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop tailing the edges list, can be called from any thread.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Cut a snapshot of the current communities.
+     *
+     * @return the snapshot file, once written
+     */
+    public Future<String> snapshot() {
+        endWarmUp();
+        int n = nodeIds.size();
+        int[] labels = Arrays.copyOf(communities, n);
+        int[] ids = nodeIds.originalIds();
+        int threshold = filterCommunityThreshold;
+        String file = String.format("%s_snapshot_%d.txt", snapshotPrefix, nSnapshots++);
+        String info = String.format("[INFO]: snapshot at %d edges, %d nodes written to %s", nEdges, n, file);
+        lastSnapshotEdges = nEdges;
+        lastSnapshotTime = System.currentTimeMillis();
+
+        pendingSnapshot = snapshotWriter.submit(() -> {
+            writeSnapshot(SCoDA.filterCommunities(labels, threshold), ids, file);
+            System.out.println(info);
+            return file;
+        });
+        return pendingSnapshot;
+    }
+
+    /**
+     * Cut a snapshot if one is due. While the previous snapshot is still being written the cut is postponed, so that
+     * a slow disk neither blocks ingestion nor piles up copies of the communities.
+     */
+    private void checkSnapshot() {
+        if (pendingSnapshot != null && !pendingSnapshot.isDone()) {
+            return;
+        }
+        boolean dueByEdges = snapshotEdges > 0 && nEdges - lastSnapshotEdges >= snapshotEdges;
+        boolean dueByTime = snapshotInterval > 0 && System.currentTimeMillis() - lastSnapshotTime >= snapshotInterval;
+        if ((dueByEdges || dueByTime) && nEdges > lastSnapshotEdges) {
+            snapshot();
+        }
+    }
+
+    /**
+     * Write the communities of a snapshot with the original node ids.
+     *
+     * @param communities the communities, of dense ids
+     * @param ids         the node id of each dense id
+     * @param file        the snapshot file
+     */
+    private static void writeSnapshot(List<IntSet> communities, int[] ids, String file) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            StringBuilder sb = new StringBuilder();
+            for (IntSet community : communities) {
+                sb.setLength(0);
+                for (int node : community.toArray()) {
+                    sb.append(ids[node]).append(" ");
+                }
+                sb.append("\n");
+                writer.write(sb.toString());
+            }
+        } catch (IOException e) {
+            System.err.println("[ERROR]: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieve the dense id of a node, growing the arrays for a new node, which starts in its own community.
+     */
+    private int denseId(int node) {
+        int n = nodeIds.size();
+        int denseId = nodeIds.getOrAssign(node);
+        if (denseId == n) {
+            if (n == degrees.length) {
+                degrees = Arrays.copyOf(degrees, n << 1);
+                communities = Arrays.copyOf(communities, n << 1);
+            }
+            communities[n] = n;
+        }
+        return denseId;
+    }
+
+    /**
+     * Increment the degree of a node, updating the degree histogram.
+     *
+     * @return the new degree
+     */
+    private int incrementDegree(int denseId) {
+        int degree = ++degrees[denseId];
+        if (degree == histogram.length) {
+            histogram = Arrays.copyOf(histogram, degree << 1);
+        }
+        histogram[degree]++;
+        if (degree > 1) {
+            histogram[degree - 1]--;
+        }
+        return degree;
+    }
+
+    /**
+     * Wait for the pending snapshots to be written and release the snapshot writer. No snapshot is cut.
+     */
+    @Override
+    public void close() {
+        snapshotWriter.shutdown();
+        try {
+            snapshotWriter.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("[ERROR]: interrupted while writing the snapshots", e);
+        }
+    }
+
+    /**
+     * Use a fixed threshold instead of the running estimate, e.g. the mode of a degree distribution cached for an
+     * earlier part of the stream.
+     *
+     * @param D the threshold, -1 for the running estimate
+     */
+    public void setThreshold(int D) {
+        this.fixedThreshold = D >= 0;
+        if (fixedThreshold) {
+            this.D = D;
+            endWarmUp(); // the buffered edges need no estimate
+        } else if (nEdges == 0) {
+            warmUp = new int[2 * THRESHOLD_UPDATE_EDGES];
+        } else if (warmUp == null) {
+            this.D = DegreeDistribution.mode(histogram);
+        }
+    }
+
+    /**
+     * Seed the random numbers of the equality cases, before the first edge is pushed.
+     *
+     * @param seed the seed
+     */
+    public void setSeed(long seed) {
+        this.rand = new RandomSource(seed).stream("StreamingSCoDA.ties");
+    }
+
+    /**
+     * @param snapshotEdges the number of edges between two snapshots, 0 to disable
+     */
+    public void setSnapshotEdges(long snapshotEdges) {
+        this.snapshotEdges = snapshotEdges;
+    }
+
+    /**
+     * @param snapshotInterval the milliseconds between two snapshots, 0 to disable
+     */
+    public void setSnapshotInterval(long snapshotInterval) {
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    /**
+     * @param filterCommunityThreshold the minimum size of a community in the snapshots
+     */
+    public void setFilterCommunityThreshold(int filterCommunityThreshold) {
+        this.filterCommunityThreshold = filterCommunityThreshold;
+    }
+
+    public int getNodes() {
+        return nodeIds.size();
+    }
+
+    public long getEdges() {
+        return nEdges;
+    }
+
+    /**
+     * @return the threshold, estimated from the degrees seen so far while the first edges are buffered
+     */
+    public int getThreshold() {
+        return warmUp != null ? DegreeDistribution.mode(histogram) : D;
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * algorithms.TextEdgeSource
+ *
+ * @description: Edge source reading a text edges list, one "u v" pair per line. Fallback for datasets without a
+ *               binary edges file.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import java.io.IOException;
+
+public class TextEdgeSource extends EdgeSource {
+
+    private final IntLineReader reader;
+
+    public TextEdgeSource(String file) throws IOException {
+        this.reader = new IntLineReader(file);
+    }
+
+    @Override
+    public int read(int[] batch) throws IOException {
+        return reader.readEdges(batch);
+    }
+
+    @Override
+    public int getNodes() {
+        return -1;
+    }
+
+    @Override
+    public long getEdges() {
+        return -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * algorithms.ValidationManifest
+ *
+ * @description: Small properties file written next to the outputs of the validation of a dataset. It records the
+ *               format version, a fingerprint of the original files (size, last modification time and a hash of
+ *               sampled blocks), the graph size and the name and size of each output file. When the manifest still
+ *               matches the original files, validation can be skipped, and the algorithms read the graph size from it
+ *               instead of scanning the edges.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+import java.util.zip.CRC32C;
+
+public class ValidationManifest {
+
+    // bumped whenever the validated outputs change format, so that older datasets are validated again
+    public static final int VERSION = 2;
+
+    public static final String EDGES = "edges";
+    public static final String BINARY_EDGES = "edges.binary";
+    public static final String GTC = "gtc";
+    public static final String DEGREES = "degrees";
+    public static final String GRAPH = "graph";
+
+    private static final int SAMPLE_SIZE = 1 << 20; // bytes hashed at the start, middle and end of a source file
+
+    private final Path dir; // outputs are stored relative to the manifest directory
+    private final Properties properties;
+
+    private ValidationManifest(Path dir, Properties properties) {
+        this.dir = dir;
+        this.properties = properties;
+    }
+
+    /**
+     * Retrieve the manifest file of a dataset.
+     *
+     * @param dir     the directory of the dataset
+     * @param dataset the name of the dataset
+     * @return the manifest file
+     */
+    public static String fileFor(String dir, String dataset) {
+        return Paths.get(dir, dataset + "_manifest.properties").toString();
+    }
+
+    /**
+     * Create a manifest for the original files of a dataset, to be completed with the graph size and outputs.
+     *
+     * @param dir       the directory of the dataset
+     * @param edgesFile the original edges file
+     * @param gtcFile   the original ground-truth communities file
+     * @return the manifest
+     * @throws IOException if the original files cannot be read
+     */
+    public static ValidationManifest forSources(String dir, String edgesFile, String gtcFile) throws IOException {
+        ValidationManifest manifest = new ValidationManifest(Paths.get(dir), new Properties());
+        manifest.properties.setProperty("format.version", Integer.toString(VERSION));
+        manifest.putFingerprint("source.edges", edgesFile);
+        manifest.putFingerprint("source.gtc", gtcFile);
+        return manifest;
+    }
+
+    /**
+     * Load a manifest if its file exists and is readable.
+     *
+     * @param file the manifest file
+     * @return the manifest, null if not available
+     */
+    public static ValidationManifest readIfValid(String file) {
+        Path path = Paths.get(file);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            properties.load(reader);
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+        return new ValidationManifest(path.toAbsolutePath().getParent(), properties);
+    }
+
+    /**
+     * Store the manifest.
+     *
+     * @param file the manifest file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(String file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(Paths.get(file))) {
+            properties.store(writer, "Validated dataset manifest");
+        }
+    }
+
+    /**
+     * Check whether the dataset validated with this manifest is still valid for the given original files, i.e. same
+     * format version and fingerprints, and all outputs unchanged.
+     *
+     * @param current the manifest of the current original files, built with forSources
+     * @return true if validation can be skipped
+     */
+    public boolean isUpToDate(ValidationManifest current) {
+        for (String key : current.properties.stringPropertyNames()) {
+            if (!current.properties.getProperty(key).equals(properties.getProperty(key))) {
+                return false;
+            }
+        }
+        return hasValidOutputs();
+    }
+
+    /**
+     * Check that the manifest is of the current version, complete, and that all its outputs exist with the recorded
+     * size.
+     *
+     * @return true if the outputs can be used
+     */
+    public boolean hasValidOutputs() {
+        if (!Integer.toString(VERSION).equals(properties.getProperty("format.version"))
+                || getNodes() < 0 || getEdges() < 0) {
+            return false;
+        }
+        for (String key : new String[]{EDGES, BINARY_EDGES, GTC, DEGREES, GRAPH}) {
+            String name = properties.getProperty("output." + key);
+            if (name == null) {
+                return false;
+            }
+            Path file = dir.resolve(name);
+            try {
+                if (!Files.isRegularFile(file) || Files.size(file) != getLong("output." + key + ".size")) {
+                    return false;
+                }
+            } catch (IOException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Record the size of the validated graph.
+     *
+     * @param nNodes the number of nodes
+     * @param nEdges the number of edges
+     */
+    public void setGraph(int nNodes, long nEdges) {
+        properties.setProperty("graph.nodes", Integer.toString(nNodes));
+        properties.setProperty("graph.edges", Long.toString(nEdges));
+    }
+
+    /**
+     * Record an output of the validation, once it is completely written.
+     *
+     * @param key  the output, one of EDGES, BINARY_EDGES, GTC, DEGREES and GRAPH
+     * @param file the output file, in the directory of the manifest
+     * @throws IOException if the output file cannot be read
+     */
+    public void putOutput(String key, String file) throws IOException {
+        Path path = Paths.get(file);
+        properties.setProperty("output." + key, path.getFileName().toString());
+        properties.setProperty("output." + key + ".size", Long.toString(Files.size(path)));
+    }
+
+    /**
+     * @param key the output, one of EDGES, BINARY_EDGES, GTC, DEGREES and GRAPH
+     * @return the output file, null if not recorded
+     */
+    public String getOutput(String key) {
+        String name = properties.getProperty("output." + key);
+        return name != null ? dir.resolve(name).toString() : null;
+    }
+
+    /**
+     * @return the number of nodes of the graph, -1 if unknown
+     */
+    public int getNodes() {
+        return (int) getLong("graph.nodes");
+    }
+
+    /**
+     * @return the number of edges of the graph, -1 if unknown
+     */
+    public long getEdges() {
+        return getLong("graph.edges");
+    }
+
+    private long getLong(String key) {
+        try {
+            return Long.parseLong(properties.getProperty(key, "-1"));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Record the fingerprint of an original file: size, last modification time and a CRC32C of the first, middle and
+     * last blocks, so that the check does not read the whole (possibly huge) file.
+     */
+    private void putFingerprint(String prefix, String file) throws IOException {
+        Path path = Paths.get(file);
+        long size = Files.size(path);
+        properties.setProperty(prefix + ".size", Long.toString(size));
+        properties.setProperty(prefix + ".mtime", Long.toString(Files.getLastModifiedTime(path).toMillis()));
+
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocate(SAMPLE_SIZE);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // Small files are hashed entirely
+            long[] offsets = size <= 3L * SAMPLE_SIZE ? new long[]{0, SAMPLE_SIZE, 2L * SAMPLE_SIZE}
+                    : new long[]{0, (size - SAMPLE_SIZE) / 2, size - SAMPLE_SIZE};
+            for (long offset : offsets) {
+                buffer.clear();
+                long position = offset;
+                int read;
+                while (buffer.hasRemaining() && (read = channel.read(buffer, position)) > 0) {
+                    position += read;
+                }
+                buffer.flip();
+                crc.update(buffer);
+            }
+        }
+        properties.setProperty(prefix + ".hash", Long.toHexString(crc.getValue()));
+    }
+}
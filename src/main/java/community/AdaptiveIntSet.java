@@ -0,0 +1,96 @@
+/*
+ * community.AdaptiveIntSet
+ *
+ * @description: IntSet switching its representation with its size: a SortedArrayIntSet while small, a RoaringIntSet
+ *               once grown past a few thousand values, and back to a sorted array once shrunk well below, so that
+ *               sets oscillating around the limit are not converted at every update.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package community;
+
+public class AdaptiveIntSet implements IntSet {
+
+    // size above which a sorted array is converted into a roaring bitmap
+    static final int TO_ROARING = 2048;
+    // size below which a roaring bitmap is converted back into a sorted array
+    static final int TO_ARRAY = 1024;
+
+    private IntSet set;
+
+    public AdaptiveIntSet() {
+        this.set = new SortedArrayIntSet();
+    }
+
+    private AdaptiveIntSet(IntSet set) {
+        this.set = set;
+    }
+
+    /**
+     * Create a set from sorted distinct values, in the representation suiting their number.
+     *
+     * @param values the values, sorted and distinct in [0, size); the array is owned by the set afterwards
+     * @param size   the number of values
+     * @return the set
+     */
+    public static AdaptiveIntSet ofSorted(int[] values, int size) {
+        if (size <= TO_ROARING) {
+            return new AdaptiveIntSet(SortedArrayIntSet.wrap(values, size));
+        }
+        RoaringIntSet roaring = new RoaringIntSet();
+        for (int i = 0; i < size; i++) {
+            roaring.add(values[i]);
+        }
+        return new AdaptiveIntSet(roaring);
+    }
+
+    @Override
+    public boolean add(int value) {
+        if (!set.add(value)) {
+            return false;
+        }
+        if (set.size() > TO_ROARING && set instanceof SortedArrayIntSet) {
+            RoaringIntSet roaring = new RoaringIntSet();
+            for (int v : set.toArray()) {
+                roaring.add(v);
+            }
+            set = roaring;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean remove(int value) {
+        if (!set.remove(value)) {
+            return false;
+        }
+        if (set.size() < TO_ARRAY && set instanceof RoaringIntSet) {
+            int size = set.size();
+            set = SortedArrayIntSet.wrap(set.toArray(), size);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean contains(int value) {
+        return set.contains(value);
+    }
+
+    @Override
+    public int size() {
+        return set.size();
+    }
+
+    @Override
+    public int toArray(int[] dst) {
+        return set.toArray(dst);
+    }
+
+    /**
+     * @return the current representation of the set, a SortedArrayIntSet or a RoaringIntSet
+     */
+    IntSet representation() {
+        return set;
+    }
+}
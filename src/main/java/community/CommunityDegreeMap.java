@@ -0,0 +1,300 @@
+/*
+ * community.CommunityDegreeMap
+ *
+ * @description: Open-addressing hash map from a pair <node, community> to its community degree. Keys are packed in a
+ *               long (nodeId << 32 | communityId) and stored with the values in parallel primitive arrays, so that
+ *               lookups, merges, removals and iteration do not allocate.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package community;
+
+import java.util.Arrays;
+
+public class CommunityDegreeMap {
+
+    private static final long EMPTY = -1L; // node and community ids are non-negative
+    private static final float LOAD_FACTOR = 0.6f;
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    public CommunityDegreeMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public CommunityDegreeMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Pack a pair <node, community> into a key.
+     *
+     * @param nodeId      the node id
+     * @param communityId the community id
+     * @return the packed key
+     */
+    public static long key(int nodeId, int communityId) {
+        return ((long) nodeId << 32) | (communityId & 0xFFFFFFFFL);
+    }
+
+    public static int nodeId(long key) {
+        return (int) (key >>> 32);
+    }
+
+    public static int communityId(long key) {
+        return (int) key;
+    }
+
+    /**
+     * Retrieve the community degree of a node.
+     *
+     * @param nodeId       the node id
+     * @param communityId  the community id
+     * @param defaultValue the value returned if the pair is not in the map
+     * @return the community degree of the node, or the default value
+     */
+    public int get(int nodeId, int communityId, int defaultValue) {
+        int slot = find(key(nodeId, communityId));
+        return slot >= 0 ? values[slot] : defaultValue;
+    }
+
+    public boolean containsKey(int nodeId, int communityId) {
+        return find(key(nodeId, communityId)) >= 0;
+    }
+
+    /**
+     * Set the community degree of a node.
+     *
+     * @param nodeId      the node id
+     * @param communityId the community id
+     * @param value       the community degree
+     */
+    public void put(int nodeId, int communityId, int value) {
+        long key = key(nodeId, communityId);
+        int slot = find(key);
+        if (slot >= 0) {
+            values[slot] = value;
+        } else {
+            insert(key, value);
+        }
+    }
+
+    /**
+     * Add a value to the community degree of a node, inserting it if absent.
+     *
+     * @param nodeId      the node id
+     * @param communityId the community id
+     * @param delta       the value to add
+     * @return the new community degree
+     */
+    public int merge(int nodeId, int communityId, int delta) {
+        long key = key(nodeId, communityId);
+        int slot = find(key);
+        if (slot >= 0) {
+            return values[slot] += delta;
+        }
+        insert(key, delta);
+        return delta;
+    }
+
+    /**
+     * Retrieve a community degree stored as a float, e.g. a sum of edge qualities. Floats are stored as their raw
+     * bits, so that toArrays and put copy them unchanged.
+     *
+     * @param nodeId       the node id
+     * @param communityId  the community id
+     * @param defaultValue the value returned if the pair is not in the map
+     * @return the community degree of the node, or the default value
+     */
+    public float getFloat(int nodeId, int communityId, float defaultValue) {
+        int slot = find(key(nodeId, communityId));
+        return slot >= 0 ? Float.intBitsToFloat(values[slot]) : defaultValue;
+    }
+
+    /**
+     * Set a community degree stored as a float.
+     *
+     * @param nodeId      the node id
+     * @param communityId the community id
+     * @param value       the community degree
+     */
+    public void putFloat(int nodeId, int communityId, float value) {
+        put(nodeId, communityId, Float.floatToRawIntBits(value));
+    }
+
+    /**
+     * Add a value to a community degree stored as a float, inserting it if absent.
+     *
+     * @param nodeId      the node id
+     * @param communityId the community id
+     * @param delta       the value to add
+     * @return the new community degree
+     */
+    public float mergeFloat(int nodeId, int communityId, float delta) {
+        long key = key(nodeId, communityId);
+        int slot = find(key);
+        if (slot >= 0) {
+            float value = Float.intBitsToFloat(values[slot]) + delta;
+            values[slot] = Float.floatToRawIntBits(value);
+            return value;
+        }
+        insert(key, Float.floatToRawIntBits(delta));
+        return delta;
+    }
+
+    /**
+     * Remove the community degree of a node.
+     *
+     * @param nodeId      the node id
+     * @param communityId the community id
+     * @return true if the pair was in the map
+     */
+    public boolean remove(int nodeId, int communityId) {
+        int slot = find(key(nodeId, communityId));
+        if (slot < 0) {
+            return false;
+        }
+        // Backward-shift deletion, keeps the probe sequences intact without tombstones
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        size--;
+        return true;
+    }
+
+    /**
+     * @return the number of slots of the hash table, each taking 12 bytes
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * Copy the entries of the map into arrays, e.g. for a checkpoint.
+     *
+     * @param keys   the destination of the packed keys, at least as long as the map size
+     * @param values the destination of the community degrees, at least as long as the map size
+     * @return the number of entries copied, i.e. the map size
+     */
+    public int toArrays(long[] keys, int[] values) {
+        int n = 0;
+        for (int i = 0; i < this.keys.length; i++) {
+            if (this.keys[i] != EMPTY) {
+                keys[n] = this.keys[i];
+                values[n++] = this.values[i];
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Iterate over all the entries of the map. The map must not be modified during the iteration.
+     *
+     * @param consumer the consumer of the entries
+     */
+    public void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(nodeId(keys[i]), communityId(keys[i]), values[i]);
+            }
+        }
+    }
+
+    private int find(long key) {
+        int slot = hash(key) & mask;
+        long k;
+        while ((k = keys[slot]) != EMPTY) {
+            if (k == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insert(long key, int value) {
+        if (size >= resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Mix the bits of a key (MurmurHash3 finalizer).
+     */
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    /**
+     * Consumer of the map entries.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int nodeId, int communityId, int value);
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * community.IntSet
+ *
+ * @description: Set of primitive ints, such as the node ids of a community. Implementations store the values without
+ *               boxing: SortedArrayIntSet for small sets, RoaringIntSet for large ones and AdaptiveIntSet switching
+ *               between the two according to the size.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package community;
+
+public interface IntSet {
+
+    /**
+     * @param value the value to add
+     * @return true if the value was not in the set
+     */
+    boolean add(int value);
+
+    /**
+     * @param value the value to remove
+     * @return true if the value was in the set
+     */
+    boolean remove(int value);
+
+    boolean contains(int value);
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Copy the values of the set, in ascending order, into an array.
+     *
+     * @param dst the destination array, at least as long as the set size
+     * @return the number of values copied, i.e. the set size
+     */
+    int toArray(int[] dst);
+
+    /**
+     * @return the values of the set, in ascending order
+     */
+    default int[] toArray() {
+        int[] values = new int[size()];
+        toArray(values);
+        return values;
+    }
+}
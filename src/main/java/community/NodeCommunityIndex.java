@@ -0,0 +1,102 @@
+/*
+ * community.NodeCommunityIndex
+ *
+ * @description: Inverted index from a node id to the ids of the communities currently containing it. Each node keeps
+ *               a small unordered int array of community ids, allocated only once the node joins a community.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package community;
+
+public class NodeCommunityIndex {
+
+    private static final int INITIAL_CAPACITY = 2;
+    private static final int[] NO_COMMUNITIES = new int[0];
+
+    private final int[][] memberships;
+    private final int[] sizes;
+
+    public NodeCommunityIndex(int nNodes) {
+        this.memberships = new int[nNodes][];
+        this.sizes = new int[nNodes];
+    }
+
+    /**
+     * Add a community to the memberships of a node, the node must not be already indexed for the community.
+     *
+     * @param node        the node id
+     * @param communityId the community id
+     */
+    public void add(int node, int communityId) {
+        int[] communities = memberships[node];
+        if (communities == null) {
+            communities = memberships[node] = new int[INITIAL_CAPACITY];
+        } else if (sizes[node] == communities.length) {
+            int[] grown = new int[communities.length << 1];
+            System.arraycopy(communities, 0, grown, 0, communities.length);
+            communities = memberships[node] = grown;
+        }
+        communities[sizes[node]++] = communityId;
+    }
+
+    /**
+     * Remove a community from the memberships of a node. The order of the remaining memberships is not preserved.
+     *
+     * @param node        the node id
+     * @param communityId the community id
+     * @return true if the node was indexed for the community
+     */
+    public boolean remove(int node, int communityId) {
+        int[] communities = memberships[node];
+        int size = sizes[node];
+        for (int k = 0; k < size; k++) {
+            if (communities[k] == communityId) {
+                communities[k] = communities[size - 1];
+                sizes[node] = size - 1;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean contains(int node, int communityId) {
+        int[] communities = memberships[node];
+        for (int k = 0; k < sizes[node]; k++) {
+            if (communities[k] == communityId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param node the node id
+     * @return the number of communities containing the node
+     */
+    public int size(int node) {
+        return sizes[node];
+    }
+
+    /**
+     * @param node the node id
+     * @param k    the position of the membership, in [0, size(node))
+     * @return the k-th community containing the node
+     */
+    public int get(int node, int k) {
+        return memberships[node][k];
+    }
+
+    /**
+     * @param node the node id
+     * @return a copy of the ids of the communities containing the node
+     */
+    public int[] communitiesOf(int node) {
+        if (sizes[node] == 0) {
+            return NO_COMMUNITIES;
+        }
+        int[] communities = new int[sizes[node]];
+        System.arraycopy(memberships[node], 0, communities, 0, sizes[node]);
+        return communities;
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * community.RoaringIntSet
+ *
+ * @description: IntSet compressed as a roaring bitmap. Values are split by their high 16 bits into chunks, kept in
+ *               sorted order, and the low 16 bits of each chunk are stored in a container: a sorted char array (2 bytes
+ *               per value) while the chunk holds at most 4096 values, a 65536-bit bitmap (8 KB) above. It suits large
+ *               sets, either sparse or dense.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package community;
+
+import java.util.Arrays;
+
+public class RoaringIntSet implements IntSet {
+
+    // a bitmap container takes as much memory as an array container of 4096 values
+    private static final int ARRAY_CONTAINER_MAX = 4096;
+    private static final int BITMAP_WORDS = 1 << 10;
+    private static final int DEFAULT_CONTAINERS = 4;
+
+    // chunk keys, the high 16 bits with the sign bit flipped so that chars sort as the signed values
+    private char[] keys = new char[DEFAULT_CONTAINERS];
+    private char[][] arrays = new char[DEFAULT_CONTAINERS][]; // array container of each chunk, null for a bitmap
+    private long[][] bitmaps = new long[DEFAULT_CONTAINERS][]; // bitmap container of each chunk, null for an array
+    private int[] cardinalities = new int[DEFAULT_CONTAINERS];
+    private int nContainers = 0;
+    private int size = 0;
+
+    @Override
+    public boolean add(int value) {
+        char key = key(value);
+        char low = (char) value;
+        int c = findContainer(key);
+        if (c < 0) {
+            c = -c - 1;
+            insertContainer(c, key);
+        }
+
+        if (bitmaps[c] != null) {
+            long[] bitmap = bitmaps[c];
+            long bit = 1L << low;
+            if ((bitmap[low >>> 6] & bit) != 0) {
+                return false;
+            }
+            bitmap[low >>> 6] |= bit;
+        } else {
+            char[] array = arrays[c];
+            int cardinality = cardinalities[c];
+            int position = Arrays.binarySearch(array, 0, cardinality, low);
+            if (position >= 0) {
+                return false;
+            }
+            if (cardinality == ARRAY_CONTAINER_MAX) {
+                toBitmapContainer(c);
+                bitmaps[c][low >>> 6] |= 1L << low;
+            } else {
+                position = -position - 1;
+                if (cardinality == array.length) {
+                    array = arrays[c] = Arrays.copyOf(array,
+                            Math.min(ARRAY_CONTAINER_MAX, cardinality + (cardinality >> 1) + 1));
+                }
+                System.arraycopy(array, position, array, position + 1, cardinality - position);
+                array[position] = low;
+            }
+        }
+        cardinalities[c]++;
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(int value) {
+        int c = findContainer(key(value));
+        if (c < 0) {
+            return false;
+        }
+        char low = (char) value;
+
+        if (bitmaps[c] != null) {
+            long[] bitmap = bitmaps[c];
+            long bit = 1L << low;
+            if ((bitmap[low >>> 6] & bit) == 0) {
+                return false;
+            }
+            bitmap[low >>> 6] &= ~bit;
+            if (--cardinalities[c] <= ARRAY_CONTAINER_MAX) {
+                toArrayContainer(c);
+            }
+        } else {
+            char[] array = arrays[c];
+            int cardinality = cardinalities[c];
+            int position = Arrays.binarySearch(array, 0, cardinality, low);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(array, position + 1, array, position, cardinality - position - 1);
+            cardinalities[c]--;
+        }
+        size--;
+
+        if (cardinalities[c] == 0) {
+            removeContainer(c);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean contains(int value) {
+        int c = findContainer(key(value));
+        if (c < 0) {
+            return false;
+        }
+        char low = (char) value;
+        if (bitmaps[c] != null) {
+            return (bitmaps[c][low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch(arrays[c], 0, cardinalities[c], low) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int toArray(int[] dst) {
+        int n = 0;
+        for (int c = 0; c < nContainers; c++) {
+            int high = (keys[c] ^ 0x8000) << 16;
+            if (bitmaps[c] != null) {
+                long[] bitmap = bitmaps[c];
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    long word = bitmap[w];
+                    while (word != 0) {
+                        dst[n++] = high | (w << 6) | Long.numberOfTrailingZeros(word);
+                        word &= word - 1;
+                    }
+                }
+            } else {
+                char[] array = arrays[c];
+                for (int j = 0; j < cardinalities[c]; j++) {
+                    dst[n++] = high | array[j];
+                }
+            }
+        }
+        return n;
+    }
+
+    private static char key(int value) {
+        return (char) ((value >>> 16) ^ 0x8000);
+    }
+
+    /**
+     * @return the position of the container of a chunk, or (-(insertion point) - 1) if absent
+     */
+    private int findContainer(char key) {
+        // Values are often added in ascending order, check the last chunk first
+        if (nContainers > 0 && keys[nContainers - 1] == key) {
+            return nContainers - 1;
+        }
+        return Arrays.binarySearch(keys, 0, nContainers, key);
+    }
+
+    private void insertContainer(int c, char key) {
+        if (nContainers == keys.length) {
+            int capacity = nContainers << 1;
+            keys = Arrays.copyOf(keys, capacity);
+            arrays = Arrays.copyOf(arrays, capacity);
+            bitmaps = Arrays.copyOf(bitmaps, capacity);
+            cardinalities = Arrays.copyOf(cardinalities, capacity);
+        }
+        int moved = nContainers - c;
+        System.arraycopy(keys, c, keys, c + 1, moved);
+        System.arraycopy(arrays, c, arrays, c + 1, moved);
+        System.arraycopy(bitmaps, c, bitmaps, c + 1, moved);
+        System.arraycopy(cardinalities, c, cardinalities, c + 1, moved);
+        keys[c] = key;
+        arrays[c] = new char[DEFAULT_CONTAINERS];
+        bitmaps[c] = null;
+        cardinalities[c] = 0;
+        nContainers++;
+    }
+
+    private void removeContainer(int c) {
+        int moved = nContainers - c - 1;
+        System.arraycopy(keys, c + 1, keys, c, moved);
+        System.arraycopy(arrays, c + 1, arrays, c, moved);
+        System.arraycopy(bitmaps, c + 1, bitmaps, c, moved);
+        System.arraycopy(cardinalities, c + 1, cardinalities, c, moved);
+        nContainers--;
+        arrays[nContainers] = null;
+        bitmaps[nContainers] = null;
+    }
+
+    /**
+     * Convert a full array container into a bitmap container.
+     */
+    private void toBitmapContainer(int c) {
+        long[] bitmap = new long[BITMAP_WORDS];
+        char[] array = arrays[c];
+        for (int j = 0; j < cardinalities[c]; j++) {
+            bitmap[array[j] >>> 6] |= 1L << array[j];
+        }
+        bitmaps[c] = bitmap;
+        arrays[c] = null;
+    }
+
+    /**
+     * Convert a bitmap container back into an array container, once small enough.
+     */
+    private void toArrayContainer(int c) {
+        char[] array = new char[cardinalities[c]];
+        long[] bitmap = bitmaps[c];
+        int n = 0;
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            long word = bitmap[w];
+            while (word != 0) {
+                array[n++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        arrays[c] = array;
+        bitmaps[c] = null;
+    }
+}
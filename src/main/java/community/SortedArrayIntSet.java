@@ -0,0 +1,92 @@
+/*
+ * community.SortedArrayIntSet
+ *
+ * @description: IntSet storing its values in a sorted int array, about 4 bytes per value. Lookups are binary searches
+ *               and updates shift the following values, so it suits small sets such as pruned communities.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package community;
+
+import java.util.Arrays;
+
+public class SortedArrayIntSet implements IntSet {
+
+    private static final int DEFAULT_CAPACITY = 4;
+    private static final int MIN_TRIMMED_CAPACITY = 16;
+
+    private int[] values;
+    private int size = 0;
+
+    public SortedArrayIntSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SortedArrayIntSet(int capacity) {
+        this.values = new int[Math.max(1, capacity)];
+    }
+
+    private SortedArrayIntSet(int[] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    /**
+     * Create a set backed by an array of values, without copying it.
+     *
+     * @param values the values, sorted and distinct in [0, size); the array is owned by the set afterwards
+     * @param size   the number of values
+     * @return the set
+     */
+    public static SortedArrayIntSet wrap(int[] values, int size) {
+        return new SortedArrayIntSet(values, size);
+    }
+
+    @Override
+    public boolean add(int value) {
+        int position = Arrays.binarySearch(values, 0, size, value);
+        if (position >= 0) {
+            return false;
+        }
+        position = -position - 1;
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        }
+        System.arraycopy(values, position, values, position + 1, size - position);
+        values[position] = value;
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(int value) {
+        int position = Arrays.binarySearch(values, 0, size, value);
+        if (position < 0) {
+            return false;
+        }
+        System.arraycopy(values, position + 1, values, position, size - position - 1);
+        size--;
+        // Release the memory of sets shrunk by pruning
+        if (values.length > MIN_TRIMMED_CAPACITY && size < values.length >> 2) {
+            values = Arrays.copyOf(values, Math.max(MIN_TRIMMED_CAPACITY, size << 1));
+        }
+        return true;
+    }
+
+    @Override
+    public boolean contains(int value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int toArray(int[] dst) {
+        System.arraycopy(values, 0, dst, 0, size);
+        return size;
+    }
+}
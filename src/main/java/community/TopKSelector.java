@@ -0,0 +1,107 @@
+/*
+ * community.TopKSelector
+ *
+ * @description: Bounded selector of the k nodes with the highest scores, among nodes offered one at a time. It is a
+ *               binary min-heap of <node, score> pairs stored in parallel primitive arrays, reset and reused across
+ *               selections, so that a selection does not allocate.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package community;
+
+public class TopKSelector {
+
+    private final int k;
+    private final int[] nodes;
+    private final float[] scores;
+    private int size = 0;
+
+    /**
+     * @param k the maximum number of selected nodes
+     */
+    public TopKSelector(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("[ERROR]: k must be positive!");
+        }
+        this.k = k;
+        this.nodes = new int[k];
+        this.scores = new float[k];
+    }
+
+    /**
+     * Empty the selector for a new selection.
+     */
+    public void reset() {
+        size = 0;
+    }
+
+    /**
+     * Offer a node to the selection. While less than k nodes are selected the node is always selected, then it
+     * replaces the selected node with the lowest score if its score is strictly higher.
+     *
+     * @param node  the node id
+     * @param score the score of the node
+     * @return the node left out of the selection, i.e. the replaced node or the offered node itself, -1 if none
+     */
+    public int offer(int node, float score) {
+        if (size < k) {
+            siftUp(size++, node, score);
+            return -1;
+        }
+        if (score <= scores[0]) {
+            return node;
+        }
+        int evicted = nodes[0];
+        siftDown(node, score);
+        return evicted;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param i the position in the selection, in [0, size)
+     * @return the selected node at the position, in no particular order
+     */
+    public int node(int i) {
+        return nodes[i];
+    }
+
+    private void siftUp(int i, int node, float score) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (scores[parent] <= score) {
+                break;
+            }
+            nodes[i] = nodes[parent];
+            scores[i] = scores[parent];
+            i = parent;
+        }
+        nodes[i] = node;
+        scores[i] = score;
+    }
+
+    /**
+     * Replace the root with a node and restore the heap order.
+     */
+    private void siftDown(int node, float score) {
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && scores[child + 1] < scores[child]) {
+                child++;
+            }
+            if (score <= scores[child]) {
+                break;
+            }
+            nodes[i] = nodes[child];
+            scores[i] = scores[child];
+            i = child;
+        }
+        nodes[i] = node;
+        scores[i] = score;
+    }
+}
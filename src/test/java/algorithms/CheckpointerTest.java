@@ -0,0 +1,91 @@
+/*
+ * algorithms.CheckpointerTest
+ *
+ * @description: Tests of the checkpoints: round trip of the content, and the previous checkpoint being kept when
+ *               writing a new one fails.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CheckpointerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void roundTrip() throws IOException {
+        String file = dir.resolve("run.ckpt").toString();
+        int[] ints = new int[300_000]; // more than the buffer
+        long[] longs = {Long.MIN_VALUE, -1, 0, Long.MAX_VALUE};
+        for (int i = 0; i < ints.length; i++) {
+            ints[i] = i * 31 - 7;
+        }
+        try (CheckpointFile.Writer writer = CheckpointFile.create(file, "key")) {
+            writer.writeLong(42);
+            writer.writeString("state");
+            writer.writeInts(ints, ints.length);
+            writer.writeLongs(longs, longs.length);
+            writer.commit();
+        }
+        assertNull(CheckpointFile.openIfValid(file, "other key"));
+        try (CheckpointFile.Reader reader = CheckpointFile.openIfValid(file, "key")) {
+            assertNotNull(reader);
+            assertEquals(42, reader.readLong());
+            assertEquals("state", reader.readString());
+            assertArrayEquals(ints, reader.readInts());
+            assertArrayEquals(longs, reader.readLongs());
+        }
+    }
+
+    @Test
+    public void uncommittedCheckpointIsDiscarded() throws IOException {
+        String file = dir.resolve("run.ckpt").toString();
+        try (CheckpointFile.Writer writer = CheckpointFile.create(file, "key")) {
+            writer.writeLong(1);
+        }
+        assertFalse(Files.exists(dir.resolve("run.ckpt")));
+        assertFalse(Files.exists(dir.resolve("run.ckpt.tmp")));
+    }
+
+    @Test
+    public void failedWriteKeepsPreviousCheckpoint() throws IOException {
+        String file = dir.resolve("run.ckpt").toString();
+        try (Checkpointer checkpointer = new Checkpointer(file, "key", 10)) {
+            checkpointer.write(10, writer -> writer.writeLong(10));
+        }
+        byte[] previous = Files.readAllBytes(Path.of(file));
+
+        // The content fails halfway, after more than a buffer was written
+        int[] values = new int[1 << 19];
+        try (Checkpointer checkpointer = new Checkpointer(file, "key", 10)) {
+            assertTrue(checkpointer.isDue(20));
+            checkpointer.write(20, writer -> {
+                writer.writeLong(20);
+                writer.writeInts(values, values.length);
+                throw new IllegalStateException("failed copy");
+            });
+        }
+        assertArrayEquals(previous, Files.readAllBytes(Path.of(file)));
+        assertFalse(Files.exists(dir.resolve("run.ckpt.tmp")));
+        try (CheckpointFile.Reader reader = CheckpointFile.openIfValid(file, "key")) {
+            assertNotNull(reader);
+            assertEquals(10, reader.readLong());
+        }
+    }
+}
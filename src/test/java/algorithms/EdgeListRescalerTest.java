@@ -0,0 +1,186 @@
+/*
+ * algorithms.EdgeListRescalerTest
+ *
+ * @description: Tests of EdgeListRescaler, checked against the sequential rescaling it replaced (regex filter and
+ *               HashMap ids) on generated datasets with comments, mixed separators and line terminators, for several
+ *               numbers of threads.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class EdgeListRescalerTest {
+
+    private static final String[] SEPARATORS = {" ", "\t", "  ", " \t"};
+    private static final String[] TERMINATORS = {"\n", "\r\n", "\r"};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void sameAsSequentialRescaling() throws IOException {
+        SplittableRandom rand = new SplittableRandom(11);
+        for (int round = 0; round < 5; round++) {
+            Path edges = dir.resolve("edges" + round + ".txt");
+            Path gtc = dir.resolve("gtc" + round + ".txt");
+            Files.writeString(edges, randomEdges(rand, 5000 + rand.nextInt(5000)), StandardCharsets.US_ASCII);
+            Files.writeString(gtc, randomCommunities(rand, 300), StandardCharsets.US_ASCII);
+
+            Reference expected = new Reference(edges, gtc);
+            for (int nThreads : new int[]{1, 3, 8}) {
+                Path outEdges = dir.resolve("out" + round + "_" + nThreads + ".txt");
+                Path outGtc = dir.resolve("outgtc" + round + "_" + nThreads + ".txt");
+                EdgeListRescaler rescaler = new EdgeListRescaler(nThreads);
+                rescaler.rescaleEdges(edges.toString(), outEdges.toString());
+                rescaler.rescaleCommunities(gtc.toString(), outGtc.toString());
+
+                assertEquals(expected.edges, Files.readString(outEdges), "edges, " + nThreads + " threads");
+                assertEquals(expected.communities, Files.readString(outGtc), "gtc, " + nThreads + " threads");
+                assertArrayEquals(expected.degrees, rescaler.getDegrees());
+                assertEquals(expected.ids.size(), rescaler.getNodeIds().size());
+                expected.ids.forEach((id, dense) -> assertEquals((int) dense, rescaler.getNodeIds().get(id)));
+                assertArrayEquals(expected.binaryEdges(), readBinary(outEdges.toString()));
+            }
+        }
+    }
+
+    @Test
+    public void emptyFile() throws IOException {
+        Path edges = Files.writeString(dir.resolve("empty.txt"), "# no edges\n");
+        Path out = dir.resolve("empty-out.txt");
+        EdgeListRescaler rescaler = new EdgeListRescaler(4);
+        rescaler.rescaleEdges(edges.toString(), out.toString());
+        assertEquals("", Files.readString(out));
+        assertEquals(0, rescaler.getDegrees().length);
+        assertEquals(0, readBinary(out.toString()).length);
+    }
+
+    @Test
+    public void communitiesBeforeEdges() {
+        assertThrows(IllegalStateException.class,
+                () -> new EdgeListRescaler(1).rescaleCommunities("gtc.txt", "out.txt"));
+        assertThrows(IllegalArgumentException.class, () -> new EdgeListRescaler(0));
+    }
+
+    /**
+     * Edges with large sparse ids, comments, blank lines, lines with a third column or a negative id (not edges).
+     */
+    private static String randomEdges(SplittableRandom rand, int nLines) {
+        StringBuilder sb = new StringBuilder("# Directed graph\n# FromNodeId\tToNodeId\n");
+        for (int i = 0; i < nLines; i++) {
+            String u = Integer.toString(rand.nextInt(3000) * 1009);
+            String v = Integer.toString(rand.nextInt(3000) * 1009);
+            String separator = SEPARATORS[rand.nextInt(SEPARATORS.length)];
+            switch (rand.nextInt(20)) {
+                case 0 -> sb.append("# comment ").append(u);
+                case 1 -> sb.append(u).append(separator).append(v).append(separator).append("7");
+                case 2 -> sb.append("-").append(u).append(separator).append(v);
+                case 3 -> { } // blank line
+                default -> sb.append(u).append(separator).append(v);
+            }
+            sb.append(TERMINATORS[rand.nextInt(TERMINATORS.length)]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Communities of node ids, some of them not in the edges, and non-numeric tokens.
+     */
+    private static String randomCommunities(SplittableRandom rand, int nLines) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < nLines; i++) {
+            int size = rand.nextInt(30);
+            for (int j = 0; j < size; j++) {
+                if (j > 0) {
+                    sb.append(SEPARATORS[rand.nextInt(SEPARATORS.length)]);
+                }
+                sb.append(rand.nextInt(50) == 0 ? "x" : Integer.toString(rand.nextInt(3100) * 1009));
+            }
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+
+    private static int[] readBinary(String edgesFile) throws IOException {
+        List<Integer> edges = new ArrayList<>();
+        try (BinaryEdgeSource source = new BinaryEdgeSource(EdgeSource.binaryFileFor(edgesFile))) {
+            int[] batch = new int[2 * 100];
+            int n;
+            while ((n = source.read(batch)) > 0) {
+                for (int i = 0; i < 2 * n; i++) {
+                    edges.add(batch[i]);
+                }
+            }
+        }
+        return edges.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * The sequential rescaling: regex filter, String split and HashMap ids. Nodes without edges are dropped from the
+     * communities.
+     */
+    private static class Reference {
+        final Map<Integer, Integer> ids = new HashMap<>();
+        final List<Integer> binary = new ArrayList<>();
+        final String edges;
+        final String communities;
+        final int[] degrees;
+
+        Reference(Path edgesFile, Path gtcFile) throws IOException {
+            StringBuilder out = new StringBuilder();
+            for (String line : Files.readAllLines(edgesFile, StandardCharsets.US_ASCII)) {
+                if (!line.matches("^\\d+\\s+\\d+$")) continue;
+                String[] parts = line.strip().split("\\s+");
+                int u = ids.computeIfAbsent(Integer.parseInt(parts[0]), k -> ids.size());
+                int v = ids.computeIfAbsent(Integer.parseInt(parts[1]), k -> ids.size());
+                out.append(u).append(' ').append(v).append('\n');
+                binary.add(u);
+                binary.add(v);
+            }
+            edges = out.toString();
+            degrees = new int[ids.size()];
+            for (int node : binary) {
+                degrees[node]++;
+            }
+
+            StringBuilder gtc = new StringBuilder();
+            for (String line : Files.readAllLines(gtcFile, StandardCharsets.US_ASCII)) {
+                StringBuilder sb = new StringBuilder();
+                for (String part : line.strip().split("\\s+")) {
+                    try {
+                        Integer node = ids.get(Integer.parseInt(part));
+                        if (node != null) {
+                            sb.append(node).append(" ");
+                        }
+                    } catch (NumberFormatException e) {
+                        // not a node
+                    }
+                }
+                gtc.append(sb.toString().trim()).append("\n");
+            }
+            communities = gtc.toString();
+        }
+
+        int[] binaryEdges() {
+            return binary.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * algorithms.IntLineReaderTest
+ *
+ * @description: Tests of IntLineReader, checked against BufferedReader.readLine and Integer.parseInt on generated files
+ *               with mixed separators, line terminators, signs, leading zeros and lines longer than the read buffer.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class IntLineReaderTest {
+
+    private static final String[] SEPARATORS = {" ", "\t", "  ", " \t", "\u000B", "\f"};
+    private static final String[] TERMINATORS = {"\n", "\r\n", "\r"};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void sameAsParseInt() throws IOException {
+        SplittableRandom rand = new SplittableRandom(13);
+        for (int round = 0; round < 5; round++) {
+            StringBuilder sb = new StringBuilder();
+            int nLines = 1 + rand.nextInt(2000);
+            int longLine = rand.nextInt(nLines);
+            for (int i = 0; i < nLines; i++) {
+                // One line longer than the read buffer
+                int nValues = i == longLine ? 200_000 : rand.nextInt(6);
+                appendLine(sb, rand, nValues);
+                if (i < nLines - 1 || rand.nextBoolean()) {
+                    sb.append(TERMINATORS[rand.nextInt(TERMINATORS.length)]);
+                }
+            }
+            Path file = write("ints" + round + ".txt", sb.toString());
+            assertLines(expectedLines(file), file);
+            assertEdges(expectedLines(file), file, 2 * (1 + rand.nextInt(100)));
+        }
+    }
+
+    @Test
+    public void leadingZerosAndBounds() throws IOException {
+        Path file = write("bounds.txt", "00000000001 0002147483647 -0002147483648\n+000 -0 0\n007\t+42\n");
+        assertLines(expectedLines(file), file);
+        try (IntLineReader reader = new IntLineReader(file.toString())) {
+            assertEquals(3, reader.readLine());
+            assertArrayEquals(new int[]{1, Integer.MAX_VALUE, Integer.MIN_VALUE}, values(reader, 3));
+        }
+    }
+
+    @Test
+    public void invalidTokens() throws IOException {
+        String[] tokens = {"12a", "-", "+", "--1", "1-", "2147483648", "-2147483649", "99999999999", "000002147483648",
+                "0x10", "1.5"};
+        for (String token : tokens) {
+            assertThrows(NumberFormatException.class, () -> Integer.parseInt(token), token);
+            Path file = write("invalid.txt", "1 2\n3 " + token + " 4\n");
+            try (IntLineReader reader = new IntLineReader(file.toString())) {
+                assertEquals(2, reader.readLine());
+                assertThrows(NumberFormatException.class, reader::readLine, token);
+            }
+        }
+    }
+
+    @Test
+    public void crLfAcrossBuffers() throws IOException {
+        // \r as the last byte of the first read, \n as the first byte of the second one
+        String first = "1 ".repeat((1 << 19) - 1) + "5";
+        Path file = write("crlf.txt", first + "\r\n7 8\n");
+        assertLines(expectedLines(file), file);
+    }
+
+    @Test
+    public void followGrowingFile() throws IOException {
+        Path file = write("follow.txt", "1 2\n3 ");
+        try (IntLineReader reader = new IntLineReader(file.toString(), true)) {
+            assertEquals(2, reader.readLine());
+            assertEquals(-1, reader.readLine()); // last line not complete
+            Files.writeString(file, "4\n5 6\r\n7", StandardOpenOption.APPEND);
+            assertEquals(2, reader.readLine());
+            assertArrayEquals(new int[]{3, 4}, values(reader, 2));
+            assertEquals(2, reader.readLine());
+            assertArrayEquals(new int[]{5, 6}, values(reader, 2));
+            assertEquals(-1, reader.readLine());
+            Files.writeString(file, "0 8\n", StandardOpenOption.APPEND);
+            assertEquals(2, reader.readLine());
+            assertArrayEquals(new int[]{70, 8}, values(reader, 2));
+            assertEquals(-1, reader.readLine());
+        }
+    }
+
+    private static void appendLine(StringBuilder sb, SplittableRandom rand, int nValues) {
+        if (rand.nextInt(4) == 0) {
+            sb.append(SEPARATORS[rand.nextInt(SEPARATORS.length)]);
+        }
+        for (int j = 0; j < nValues; j++) {
+            if (j > 0) {
+                sb.append(SEPARATORS[rand.nextInt(SEPARATORS.length)]);
+            }
+            int value = switch (rand.nextInt(4)) {
+                case 0 -> rand.nextInt();
+                case 1 -> rand.nextBoolean() ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+                default -> rand.nextInt(1000);
+            };
+            if (value >= 0 && rand.nextInt(10) == 0) {
+                sb.append('+');
+            }
+            if (rand.nextInt(10) == 0) {
+                String zeros = "0".repeat(1 + rand.nextInt(12));
+                sb.append(value < 0 ? "-" : "").append(zeros).append(Math.abs((long) value));
+            } else {
+                sb.append(value);
+            }
+        }
+        if (rand.nextInt(4) == 0) {
+            sb.append(SEPARATORS[rand.nextInt(SEPARATORS.length)]);
+        }
+    }
+
+    /**
+     * @return the ints of each line, as read by BufferedReader.readLine and Integer.parseInt
+     */
+    private static List<int[]> expectedLines(Path file) throws IOException {
+        List<int[]> lines = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(Arrays.stream(line.split("[ \t\u000B\f]+")).filter(token -> !token.isEmpty())
+                        .mapToInt(Integer::parseInt).toArray());
+            }
+        }
+        return lines;
+    }
+
+    private static void assertLines(List<int[]> expected, Path file) throws IOException {
+        try (IntLineReader reader = new IntLineReader(file.toString())) {
+            for (int[] line : expected) {
+                assertEquals(line.length, reader.readLine());
+                assertArrayEquals(line, values(reader, line.length));
+            }
+            assertEquals(-1, reader.readLine());
+            assertEquals(-1, reader.readLine());
+        }
+    }
+
+    private static void assertEdges(List<int[]> expected, Path file, int batchSize) throws IOException {
+        List<Integer> expectedEdges = new ArrayList<>();
+        for (int[] line : expected) {
+            if (line.length >= 2) {
+                expectedEdges.add(line[0]);
+                expectedEdges.add(line[1]);
+            }
+        }
+        List<Integer> edges = new ArrayList<>();
+        try (IntLineReader reader = new IntLineReader(file.toString())) {
+            int[] batch = new int[batchSize];
+            int n;
+            while ((n = reader.readEdges(batch)) > 0) {
+                for (int i = 0; i < 2 * n; i++) {
+                    edges.add(batch[i]);
+                }
+            }
+        }
+        assertEquals(expectedEdges, edges);
+    }
+
+    private static int[] values(IntLineReader reader, int n) {
+        return Arrays.copyOf(reader.getValues(), n);
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(dir.resolve(name), content, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * algorithms.PipelinedEdgeSourceTest
+ *
+ * @description: Tests of PipelinedEdgeSource, checked edge for edge against EdgeSource.open on text and binary edges
+ *               lists spanning several chunks, with 1 to 4 parsers, mixed line terminators, blank lines, a line longer
+ *               than a chunk, skips, early closes and invalid tokens.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PipelinedEdgeSourceTest {
+
+    private static final String[] SEPARATORS = {" ", "\t", "  ", " \t", "\u000B", "\f"};
+    private static final String[] TERMINATORS = {"\n", "\r\n", "\r"};
+    private static final int[] BATCH_SIZES = {1, 7, EdgeSource.BATCH_SIZE};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void textSameAsEdgeSource() throws IOException {
+        SplittableRandom rand = new SplittableRandom(25);
+        for (boolean finalTerminator : new boolean[]{true, false}) {
+            String file = writeText("edges_" + finalTerminator + ".txt", rand, 150_000, finalTerminator);
+            int[] expected = readAll(EdgeSource.open(file), EdgeSource.BATCH_SIZE);
+            assertTrue(expected.length > 2 * 100_000);
+            for (int nParsers = 1; nParsers <= 4; nParsers++) {
+                for (int batchSize : BATCH_SIZES) {
+                    try (PipelinedEdgeSource source = new PipelinedEdgeSource(file, nParsers)) {
+                        assertEquals(-1, source.getNodes());
+                        assertEquals(-1, source.getEdges());
+                        assertArrayEquals(expected, readAll(source, batchSize), nParsers + " " + batchSize);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void lineTerminators() throws IOException {
+        String content = "1 2\r\n\r\n3 4\r\r5 6\n\n7\n8 9 10\r\n \t\n-1 +2\r00011 -0002\r\n12 13";
+        String file = write("terminators.txt", content);
+        int[] expected = {1, 2, 3, 4, 5, 6, 8, 9, -1, 2, 11, -2, 12, 13};
+        assertArrayEquals(expected, readAll(EdgeSource.open(file), EdgeSource.BATCH_SIZE));
+        for (int nParsers = 1; nParsers <= 4; nParsers++) {
+            assertArrayEquals(expected, readAll(new PipelinedEdgeSource(file, nParsers), 2));
+        }
+        // A single terminator, and an empty file
+        for (String empty : new String[]{"\r\n", "\r", ""}) {
+            String emptyFile = write("empty.txt", empty);
+            assertEquals(0, readAll(new PipelinedEdgeSource(emptyFile, 2), 8).length);
+        }
+    }
+
+    @Test
+    public void lineLongerThanChunk() throws IOException {
+        // Lines of more than 1 MB, the first one at the start of the file, the last one without terminator
+        String longLine = "12 34" + " 5678901".repeat(300_000);
+        String content = longLine + "\r\n1 2\n" + "3 4\r".repeat(50_000) + longLine + "\n5 6\r" + longLine;
+        String file = write("long.txt", content);
+        int[] expected = readAll(EdgeSource.open(file), EdgeSource.BATCH_SIZE);
+        assertEquals(2 * 50_005, expected.length);
+        for (int nParsers = 1; nParsers <= 4; nParsers++) {
+            assertArrayEquals(expected, readAll(new PipelinedEdgeSource(file, nParsers), EdgeSource.BATCH_SIZE));
+        }
+    }
+
+    @Test
+    public void binarySameAsEdgeSource() throws IOException {
+        String file = dir.resolve("edges.txt").toString();
+        SplittableRandom rand = new SplittableRandom(3);
+        int nEdges = 400_000; // 3 MB of edges
+        try (BinaryEdgeWriter writer = new BinaryEdgeWriter(EdgeSource.binaryFileFor(file))) {
+            for (int e = 0; e < nEdges; e++) {
+                writer.write(rand.nextInt(1 << 20), rand.nextInt(1 << 20));
+            }
+            writer.setNodes(1 << 20);
+        }
+        EdgeSource reference = EdgeSource.open(file);
+        assertInstanceOf(BinaryEdgeSource.class, reference);
+        int[] expected = readAll(reference, EdgeSource.BATCH_SIZE);
+        assertEquals(2 * nEdges, expected.length);
+        for (int nParsers = 1; nParsers <= 4; nParsers++) {
+            for (int batchSize : BATCH_SIZES) {
+                try (PipelinedEdgeSource source = new PipelinedEdgeSource(file, nParsers)) {
+                    assertEquals(1 << 20, source.getNodes());
+                    assertEquals(nEdges, source.getEdges());
+                    assertArrayEquals(expected, readAll(source, batchSize), nParsers + " " + batchSize);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void skipBeforeAndAfterFirstRead() throws IOException {
+        SplittableRandom rand = new SplittableRandom(7);
+        String text = writeText("skip.txt", rand, 100_000, true);
+        String binary = dir.resolve("skip_binary.txt").toString();
+        try (BinaryEdgeWriter writer = new BinaryEdgeWriter(EdgeSource.binaryFileFor(binary))) {
+            for (int e = 0; e < 300_000; e++) {
+                writer.write(e, rand.nextInt());
+            }
+        }
+        for (String file : new String[]{text, binary}) {
+            int[] all = readAll(EdgeSource.open(file), EdgeSource.BATCH_SIZE);
+            int nEdges = all.length / 2;
+            for (long skipped : new long[]{0, 1, 1000, 131_071, nEdges - 1, nEdges, nEdges + 10}) {
+                int from = (int) Math.min(skipped, nEdges);
+                for (int nParsers = 1; nParsers <= 4; nParsers += 3) {
+                    // Before the first read
+                    try (PipelinedEdgeSource source = new PipelinedEdgeSource(file, nParsers)) {
+                        assertEquals(from, source.skip(skipped));
+                        assertArrayEquals(Arrays.copyOfRange(all, 2 * from, all.length), readAll(source, 1000));
+                    }
+                    // After the first read
+                    try (PipelinedEdgeSource source = new PipelinedEdgeSource(file, nParsers)) {
+                        int[] batch = new int[2 * 3];
+                        assertEquals(3, source.read(batch));
+                        assertArrayEquals(Arrays.copyOf(all, 6), batch);
+                        int afterRead = (int) Math.min(skipped, nEdges - 3);
+                        assertEquals(afterRead, source.skip(skipped));
+                        assertArrayEquals(Arrays.copyOfRange(all, 2 * (3 + afterRead), all.length),
+                                readAll(source, 1000));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @Timeout(60)
+    public void earlyClose() throws IOException {
+        String file = writeText("close.txt", new SplittableRandom(11), 200_000, true);
+        for (int nParsers = 1; nParsers <= 4; nParsers++) {
+            // Never read
+            new PipelinedEdgeSource(file, nParsers).close();
+            // Closed while the ring is full and the I/O thread waits for a free slot
+            PipelinedEdgeSource source = new PipelinedEdgeSource(file, nParsers);
+            int[] batch = new int[2 * 10];
+            assertEquals(10, source.read(batch));
+            source.close();
+        }
+    }
+
+    @Test
+    public void invalidToken() throws IOException {
+        for (String token : new String[]{"12a", "-", "2147483648", "00000000002147483648", "1.5"}) {
+            // The invalid token is in a later chunk, after valid edges
+            String content = "1 2\n".repeat(400_000) + "3 " + token + "\n4 5\n";
+            String file = write("invalid.txt", content);
+            for (int nParsers = 1; nParsers <= 4; nParsers++) {
+                try (PipelinedEdgeSource source = new PipelinedEdgeSource(file, nParsers)) {
+                    assertThrows(NumberFormatException.class, () -> readAll(source, EdgeSource.BATCH_SIZE), token);
+                }
+            }
+        }
+    }
+
+    /**
+     * Write a text edges list of random lines: blank ones, ones with less than two ints, ones with extra ints, with
+     * mixed separators, terminators, signs and leading zeros.
+     */
+    private String writeText(String name, SplittableRandom rand, int nLines, boolean finalTerminator)
+            throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < nLines; i++) {
+            int nValues = rand.nextInt(10) == 0 ? rand.nextInt(2) : 2 + (rand.nextInt(5) == 0 ? rand.nextInt(4) : 0);
+            if (rand.nextInt(8) == 0) {
+                sb.append(SEPARATORS[rand.nextInt(SEPARATORS.length)]);
+            }
+            for (int j = 0; j < nValues; j++) {
+                if (j > 0) {
+                    sb.append(SEPARATORS[rand.nextInt(SEPARATORS.length)]);
+                }
+                int value = rand.nextInt(20) == 0 ? rand.nextInt() : rand.nextInt(1_000_000);
+                if (value >= 0 && rand.nextInt(20) == 0) {
+                    sb.append('+');
+                }
+                if (rand.nextInt(20) == 0) {
+                    sb.append(value < 0 ? "-" : "").append("0".repeat(1 + rand.nextInt(5))).append(Math.abs(
+                            (long) value));
+                } else {
+                    sb.append(value);
+                }
+            }
+            if (i < nLines - 1 || finalTerminator) {
+                sb.append(TERMINATORS[rand.nextInt(TERMINATORS.length)]);
+            }
+        }
+        return write(name, sb.toString());
+    }
+
+    private String write(String name, String content) throws IOException {
+        return Files.writeString(dir.resolve(name), content, StandardCharsets.US_ASCII).toString();
+    }
+
+    /**
+     * Read the rest of the stream with batches of the given number of edges, and close the source.
+     *
+     * @return the read edges, as consecutive (u, v) pairs
+     */
+    private static int[] readAll(EdgeSource source, int batchSize) throws IOException {
+        try (source) {
+            int[] batch = new int[2 * batchSize];
+            int[] edges = new int[1024];
+            int length = 0;
+            int n;
+            while ((n = source.read(batch)) > 0) {
+                assertTrue(n <= batchSize);
+                if (length + 2 * n > edges.length) {
+                    edges = Arrays.copyOf(edges, Math.max(2 * edges.length, length + 2 * n));
+                }
+                System.arraycopy(batch, 0, edges, length, 2 * n);
+                length += 2 * n;
+            }
+            assertEquals(0, source.read(batch)); // stays at the end of the stream
+            return Arrays.copyOf(edges, length);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * algorithms.StreamingSCoDATest
+ *
+ * @description: Tests of StreamingSCoDA on streams of edges within planted clusters, in particular streams shorter
+ *               than one estimation interval of the threshold.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package algorithms;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StreamingSCoDATest {
+
+    private static final int CLUSTERS = 400;
+    private static final int CLUSTER_SIZE = 10;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void streamShorterThanEstimationInterval() throws Exception {
+        int[] edges = clusteredEdges(8000, new SplittableRandom(1));
+        try (StreamingSCoDA scoda = new StreamingSCoDA(dir.resolve("short").toString())) {
+            scoda.accept(edges, edges.length / 2);
+            assertTrue(scoda.getThreshold() > 0);
+
+            List<int[]> communities = read(scoda.snapshot().get());
+            assertTrue(communities.size() >= CLUSTERS / 2, "communities: " + communities.size());
+            assertWithinClusters(communities);
+            assertEquals(edges.length / 2, scoda.getEdges());
+        }
+    }
+
+    @Test
+    public void bufferedEdgesSameAsKnownThreshold() throws Exception {
+        int[] edges = clusteredEdges(5000, new SplittableRandom(2));
+        String estimated;
+        int D;
+        try (StreamingSCoDA scoda = new StreamingSCoDA(dir.resolve("estimated").toString())) {
+            scoda.setSeed(7);
+            scoda.accept(edges, edges.length / 2);
+            estimated = Files.readString(Path.of(scoda.snapshot().get()));
+            D = scoda.getThreshold();
+        }
+        // The buffered edges are processed as if the threshold had been known from the first edge
+        try (StreamingSCoDA scoda = new StreamingSCoDA(dir.resolve("fixed").toString())) {
+            scoda.setSeed(7);
+            scoda.setThreshold(D);
+            scoda.accept(edges, edges.length / 2);
+            assertEquals(estimated, Files.readString(Path.of(scoda.snapshot().get())));
+        }
+    }
+
+    @Test
+    public void streamLongerThanEstimationInterval() throws Exception {
+        int[] edges = clusteredEdges(40000, new SplittableRandom(3));
+        try (StreamingSCoDA scoda = new StreamingSCoDA(dir.resolve("long").toString())) {
+            scoda.setSnapshotEdges(3000);
+            for (int e = 0; e < edges.length / 2; e += 1000) {
+                scoda.accept(Arrays.copyOfRange(edges, 2 * e, 2 * (e + 1000)), 1000);
+            }
+            assertTrue(scoda.getThreshold() > 0);
+            List<int[]> communities = read(scoda.snapshot().get());
+            assertTrue(communities.size() >= CLUSTERS / 2, "communities: " + communities.size());
+            assertWithinClusters(communities);
+
+            // Periodic snapshots were cut before, the first one once the first edges were processed
+            List<int[]> first = read(dir.resolve("long_snapshot_0.txt").toString());
+            assertTrue(first.size() > 0);
+            assertWithinClusters(first);
+        }
+    }
+
+    /**
+     * Random edges within clusters of consecutive node ids, with sparse node ids.
+     */
+    private static int[] clusteredEdges(int nEdges, SplittableRandom rand) {
+        int[] edges = new int[2 * nEdges];
+        for (int e = 0; e < nEdges; e++) {
+            int cluster = rand.nextInt(CLUSTERS);
+            int u = rand.nextInt(CLUSTER_SIZE);
+            int v = (u + 1 + rand.nextInt(CLUSTER_SIZE - 1)) % CLUSTER_SIZE;
+            edges[2 * e] = nodeId(cluster, u);
+            edges[2 * e + 1] = nodeId(cluster, v);
+        }
+        return edges;
+    }
+
+    private static int nodeId(int cluster, int member) {
+        return 1000 * (cluster * CLUSTER_SIZE + member);
+    }
+
+    private static void assertWithinClusters(List<int[]> communities) {
+        for (int[] community : communities) {
+            assertTrue(community.length >= CommunityDetectionAlgorithm.DEFAULT_FILTER_COMMUNITY_THRESHOLD);
+            for (int node : community) {
+                assertEquals(community[0] / (1000 * CLUSTER_SIZE), node / (1000 * CLUSTER_SIZE));
+            }
+        }
+    }
+
+    private static List<int[]> read(String file) throws Exception {
+        List<int[]> communities = new ArrayList<>();
+        try (IntLineReader reader = new IntLineReader(file)) {
+            int n;
+            while ((n = reader.readLine()) >= 0) {
+                communities.add(Arrays.copyOf(reader.getValues(), n));
+            }
+        }
+        return communities;
+    }
+}
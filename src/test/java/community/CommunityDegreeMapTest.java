@@ -0,0 +1,150 @@
+/*
+ * community.CommunityDegreeMapTest
+ *
+ * @description: Tests of CommunityDegreeMap, checked against a HashMap on random operations, including the rehashes
+ *               and the backward-shift deletions.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package community;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CommunityDegreeMapTest {
+
+    @Test
+    public void keyRoundTrip() {
+        int[] ids = {0, 1, 12345, Integer.MAX_VALUE};
+        for (int node : ids) {
+            for (int community : ids) {
+                long key = CommunityDegreeMap.key(node, community);
+                assertEquals(node, CommunityDegreeMap.nodeId(key));
+                assertEquals(community, CommunityDegreeMap.communityId(key));
+            }
+        }
+    }
+
+    @Test
+    public void basicOperations() {
+        CommunityDegreeMap map = new CommunityDegreeMap(4);
+        assertTrue(map.isEmpty());
+        assertEquals(-1, map.get(1, 2, -1));
+
+        map.put(1, 2, 5);
+        assertEquals(6, map.merge(1, 2, 1));
+        assertEquals(3, map.merge(2, 1, 3));
+        assertEquals(6, map.get(1, 2, -1));
+        assertEquals(3, map.get(2, 1, -1));
+        assertTrue(map.containsKey(1, 2));
+        assertFalse(map.containsKey(1, 1));
+        assertEquals(2, map.size());
+
+        assertTrue(map.remove(1, 2));
+        assertFalse(map.remove(1, 2));
+        assertEquals(-1, map.get(1, 2, -1));
+        assertEquals(1, map.size());
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertEquals(-1, map.get(2, 1, -1));
+    }
+
+    @Test
+    public void floatValues() {
+        CommunityDegreeMap map = new CommunityDegreeMap(4);
+        assertEquals(-1f, map.getFloat(1, 2, -1f));
+        map.putFloat(1, 2, 1);
+        assertEquals(1.25f, map.mergeFloat(1, 2, 0.25f));
+        assertEquals(0.5f, map.mergeFloat(3, 2, 0.5f));
+        for (int node = 10; node < 1000; node++) {
+            map.putFloat(node, 0, node / 3f); // rehashes keep the raw bits
+        }
+        assertEquals(1.25f, map.getFloat(1, 2, -1f));
+        assertEquals(0.5f, map.getFloat(3, 2, -1f));
+        assertEquals(999 / 3f, map.getFloat(999, 0, -1f));
+
+        long[] keys = new long[map.size()];
+        int[] values = new int[map.size()];
+        map.toArrays(keys, values);
+        CommunityDegreeMap copy = new CommunityDegreeMap();
+        for (int k = 0; k < keys.length; k++) {
+            copy.put(CommunityDegreeMap.nodeId(keys[k]), CommunityDegreeMap.communityId(keys[k]), values[k]);
+        }
+        assertEquals(1.25f, copy.getFloat(1, 2, -1f));
+        assertEquals(500 / 3f, copy.getFloat(500, 0, -1f));
+    }
+
+    @Test
+    public void fuzzAgainstHashMap() {
+        SplittableRandom rand = new SplittableRandom(2);
+        for (int round = 0; round < 20; round++) {
+            // Few distinct keys, so that removals hit clustered probe sequences
+            int nNodes = 1 + rand.nextInt(200);
+            int nCommunities = 1 + rand.nextInt(50);
+            CommunityDegreeMap map = new CommunityDegreeMap(1 + rand.nextInt(16));
+            Map<Long, Integer> expected = new HashMap<>();
+
+            for (int op = 0; op < 20000; op++) {
+                int node = rand.nextInt(nNodes);
+                int community = rand.nextInt(nCommunities);
+                long key = CommunityDegreeMap.key(node, community);
+                switch (rand.nextInt(4)) {
+                    case 0 -> {
+                        int value = rand.nextInt(100);
+                        map.put(node, community, value);
+                        expected.put(key, value);
+                    }
+                    case 1 -> {
+                        int delta = rand.nextInt(10) - 5;
+                        assertEquals((int) expected.merge(key, delta, Integer::sum), map.merge(node, community, delta));
+                    }
+                    case 2 -> assertEquals(expected.remove(key) != null, map.remove(node, community));
+                    default -> assertEquals((int) expected.getOrDefault(key, -1), map.get(node, community, -1));
+                }
+                assertEquals(expected.size(), map.size());
+            }
+
+            assertEquals(expected, entries(map));
+            long[] keys = new long[map.size()];
+            int[] values = new int[map.size()];
+            assertEquals(expected.size(), map.toArrays(keys, values));
+            for (int i = 0; i < keys.length; i++) {
+                assertEquals((int) expected.get(keys[i]), values[i]);
+            }
+        }
+    }
+
+    @Test
+    public void removeAll() {
+        CommunityDegreeMap map = new CommunityDegreeMap(4);
+        for (int node = 0; node < 1000; node++) {
+            map.put(node, node % 7, node);
+        }
+        for (int node = 999; node >= 0; node -= 2) {
+            assertTrue(map.remove(node, node % 7));
+        }
+        for (int node = 0; node < 1000; node++) {
+            assertEquals(node % 2 == 0 ? node : -1, map.get(node, node % 7, -1));
+        }
+        for (int node = 0; node < 1000; node += 2) {
+            assertTrue(map.remove(node, node % 7));
+        }
+        assertTrue(map.isEmpty());
+        assertTrue(entries(map).isEmpty());
+    }
+
+    private static Map<Long, Integer> entries(CommunityDegreeMap map) {
+        Map<Long, Integer> entries = new HashMap<>();
+        map.forEach((node, community, value) -> entries.put(CommunityDegreeMap.key(node, community), value));
+        return entries;
+    }
+}
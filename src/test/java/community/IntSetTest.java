@@ -0,0 +1,227 @@
+/*
+ * community.IntSetTest
+ *
+ * @description: Tests of the IntSet implementations, checked against a TreeSet on random operations over sparse,
+ *               dense and negative values, including the container switches of RoaringIntSet and the representation
+ *               switches of AdaptiveIntSet.
+ *
+ * @author: matteo.pinna@hotmail.com
+ */
+
+package community;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IntSetTest {
+
+    private static final int CHUNK = 1 << 16; // values sharing their high 16 bits in RoaringIntSet
+
+    @Test
+    public void sortedArrayAgainstTreeSet() {
+        fuzz(SortedArrayIntSet::new, 1);
+    }
+
+    @Test
+    public void roaringAgainstTreeSet() {
+        fuzz(RoaringIntSet::new, 2);
+    }
+
+    @Test
+    public void adaptiveAgainstTreeSet() {
+        fuzz(AdaptiveIntSet::new, 3);
+    }
+
+    @Test
+    public void roaringContainerSwitch() {
+        // A chunk of positive and a chunk of negative values (sign-flipped keys)
+        for (int base : new int[]{3 * CHUNK, -2 * CHUNK}) {
+            RoaringIntSet set = new RoaringIntSet();
+            TreeSet<Integer> expected = new TreeSet<>();
+            // 4096 values fit in an array container
+            for (int i = 0; i < 4096; i++) {
+                assertTrue(set.add(base + 2 * i));
+                expected.add(base + 2 * i);
+            }
+            assertContents(expected, set);
+            // The 4097th one turns it into a bitmap
+            assertTrue(set.add(base + 1));
+            assertFalse(set.add(base + 1));
+            expected.add(base + 1);
+            assertContents(expected, set);
+            assertTrue(set.add(base + CHUNK - 1));
+            expected.add(base + CHUNK - 1);
+            assertContents(expected, set);
+            // Back to an array container at 4096 values
+            assertTrue(set.remove(base + 1));
+            assertFalse(set.remove(base + 1));
+            expected.remove(base + 1);
+            assertContents(expected, set);
+            assertTrue(set.remove(base));
+            expected.remove(base);
+            assertContents(expected, set);
+            // And to a bitmap again
+            for (int i = 0; i < 10; i++) {
+                set.add(base + 2 * i + 1);
+                expected.add(base + 2 * i + 1);
+            }
+            assertContents(expected, set);
+            removeAll(expected, set, new SplittableRandom(base));
+        }
+    }
+
+    @Test
+    public void adaptiveHysteresis() {
+        AdaptiveIntSet set = new AdaptiveIntSet();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < AdaptiveIntSet.TO_ROARING; i++) {
+            set.add(7 * i - 5000);
+            expected.add(7 * i - 5000);
+        }
+        assertInstanceOf(SortedArrayIntSet.class, set.representation());
+        set.add(Integer.MAX_VALUE);
+        expected.add(Integer.MAX_VALUE);
+        assertInstanceOf(RoaringIntSet.class, set.representation());
+        assertContents(expected, set);
+
+        // Stays a bitmap down to TO_ARRAY values
+        while (expected.size() > AdaptiveIntSet.TO_ARRAY) {
+            int value = expected.pollFirst();
+            assertTrue(set.remove(value));
+            assertFalse(set.remove(value));
+            assertInstanceOf(RoaringIntSet.class, set.representation());
+        }
+        assertContents(expected, set);
+        int value = expected.pollLast();
+        set.remove(value);
+        assertInstanceOf(SortedArrayIntSet.class, set.representation());
+        assertContents(expected, set);
+
+        // Stays an array up to TO_ROARING values
+        for (int i = 0; expected.size() < AdaptiveIntSet.TO_ROARING; i++) {
+            set.add(Integer.MIN_VALUE + i);
+            expected.add(Integer.MIN_VALUE + i);
+            assertInstanceOf(SortedArrayIntSet.class, set.representation());
+        }
+        assertContents(expected, set);
+        removeAll(expected, set, new SplittableRandom(4));
+    }
+
+    @Test
+    public void adaptiveOfSorted() {
+        for (int size : new int[]{0, 1, AdaptiveIntSet.TO_ROARING, AdaptiveIntSet.TO_ROARING + 1, 10000}) {
+            int[] values = new int[size];
+            TreeSet<Integer> expected = new TreeSet<>();
+            for (int i = 0; i < size; i++) {
+                values[i] = 3 * i - size;
+                expected.add(values[i]);
+            }
+            AdaptiveIntSet set = AdaptiveIntSet.ofSorted(values, size);
+            Class<? extends IntSet> representation = size > AdaptiveIntSet.TO_ROARING ? RoaringIntSet.class
+                    : SortedArrayIntSet.class;
+            assertInstanceOf(representation, set.representation());
+            assertContents(expected, set);
+            set.add(size);
+            expected.add(size);
+            assertContents(expected, set);
+        }
+    }
+
+    @Test
+    public void negativeValues() {
+        int[] values = {Integer.MIN_VALUE, Integer.MIN_VALUE + 1, -CHUNK - 1, -CHUNK, -1, 0, 1, CHUNK - 1, CHUNK,
+                Integer.MAX_VALUE - 1, Integer.MAX_VALUE};
+        for (IntSet set : new IntSet[]{new SortedArrayIntSet(), new RoaringIntSet(), new AdaptiveIntSet()}) {
+            for (int i = values.length - 1; i >= 0; i--) {
+                assertTrue(set.add(values[i]));
+            }
+            assertArrayEquals(values, set.toArray());
+            for (int value : values) {
+                assertTrue(set.contains(value));
+                assertFalse(set.contains(value ^ 0x5555));
+            }
+            for (int value : values) {
+                assertTrue(set.remove(value));
+            }
+            assertTrue(set.isEmpty());
+            assertEquals(0, set.toArray().length);
+        }
+    }
+
+    /**
+     * Apply random adds, removes and lookups to a set and to a TreeSet, over values drawn around a few chunks so that
+     * containers fill up, switch and empty out, then remove everything.
+     */
+    private static void fuzz(Supplier<IntSet> factory, long seed) {
+        SplittableRandom rand = new SplittableRandom(seed);
+        for (int round = 0; round < 30; round++) {
+            IntSet set = factory.get();
+            TreeSet<Integer> expected = new TreeSet<>();
+            int[] bases = {rand.nextInt(), -rand.nextInt(1, 4) * CHUNK, rand.nextInt(4) * CHUNK};
+            // Dense ranges cross the 4096-values container limit, sparse ones hit many chunks
+            int range = rand.nextBoolean() ? 6000 + rand.nextInt(6000) : CHUNK;
+            double addRatio = 0.4 + 0.3 * rand.nextDouble();
+            int nOps = 5000 + rand.nextInt(30000);
+
+            for (int op = 0; op < nOps; op++) {
+                int value = rand.nextInt(50) == 0 ? rand.nextInt()
+                        : bases[rand.nextInt(bases.length)] + rand.nextInt(range);
+                double r = rand.nextDouble();
+                if (r < addRatio) {
+                    assertEquals(expected.add(value), set.add(value));
+                } else if (r < 0.9) {
+                    assertEquals(expected.remove(value), set.remove(value));
+                } else {
+                    assertEquals(expected.contains(value), set.contains(value));
+                }
+                assertEquals(expected.size(), set.size());
+                if (op % 2000 == 0) {
+                    assertContents(expected, set);
+                }
+            }
+            assertContents(expected, set);
+            removeAll(expected, set, rand);
+        }
+    }
+
+    /**
+     * Remove all the values in random order, checking the set along the way, and check that it is reusable.
+     */
+    private static void removeAll(TreeSet<Integer> expected, IntSet set, SplittableRandom rand) {
+        int[] values = expected.stream().mapToInt(Integer::intValue).toArray();
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            int temp = values[i];
+            values[i] = values[j];
+            values[j] = temp;
+        }
+        for (int k = 0; k < values.length; k++) {
+            assertTrue(set.remove(values[k]));
+            expected.remove(values[k]);
+            if (k % 500 == 0) {
+                assertContents(expected, set);
+            }
+        }
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.toArray().length);
+        assertFalse(set.contains(values.length > 0 ? values[0] : 0));
+        assertTrue(set.add(42));
+        assertArrayEquals(new int[]{42}, set.toArray());
+    }
+
+    private static void assertContents(TreeSet<Integer> expected, IntSet set) {
+        assertEquals(expected.size(), set.size());
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), set.toArray());
+        int[] dst = new int[set.size() + 3];
+        assertEquals(expected.size(), set.toArray(dst));
+    }
+}